@@ -0,0 +1,59 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.benchmarks;
+
+import java.util.Date;
+
+import org.stockchart.series.StockSeries;
+import org.stockchart.utils.StockDataGenerator;
+
+/**
+ * Datasets shared by the benchmarks. Points are generated with the fixed seed, 
+ * so every run measures the same data.
+ */
+public class BenchmarkData 
+{
+	public static final long SEED = 20261018L;
+	
+	private static final long BAR_DURATION = 60*1000L;
+	
+	/**
+	 * Creates stock series of the given number of one minute bars.
+	 * 
+	 * @param withDates whether points get <code>Date</code> IDs (i.e. for <code>DateTimeScaleValuesProvider</code>) 
+	 */
+	public static StockSeries createStockSeries(int barsCount,boolean withDates)
+	{
+		StockDataGenerator generator = new StockDataGenerator(2.0, 1000.0, 100000.0, SEED);
+		StockSeries s = new StockSeries();
+		
+		long time = 0;
+		
+		for(int i=0;i<barsCount;i++)
+		{
+			StockDataGenerator.Point p = generator.getNextPoint();
+			
+			s.addPoint(p.o, p.h, p.l, p.c);
+			
+			if(withDates)
+				s.getPoints().get(i).setID(new Date(time));
+			
+			time += BAR_DURATION;
+		}
+		
+		return s;
+	}
+}
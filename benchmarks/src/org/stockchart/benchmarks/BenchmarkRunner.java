@@ -0,0 +1,49 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs all benchmarks with the allocation profiler and writes results into the JSON file,
+ * which serves as the baseline for the next runs.
+ * <p>
+ * Usage: <code>java -cp target/benchmarks.jar org.stockchart.benchmarks.BenchmarkRunner [result file] [benchmark regexp]</code>, 
+ * by default results are written to <code>baseline.json</code>. The jar is built by <code>mvn package</code> 
+ * in the benchmarks directory, <code>java -jar target/benchmarks.jar</code> runs the plain JMH launcher.
+ */
+public class BenchmarkRunner 
+{
+	public static void main(String[] args) throws RunnerException 
+	{
+		String result = args.length > 0?args[0]:"baseline.json";
+		String include = args.length > 1?args[1]:BenchmarkRunner.class.getPackage().getName() + ".*";
+		
+		Options options = new OptionsBuilder()
+			.include(include)
+			.addProfiler(GCProfiler.class)
+			.resultFormat(ResultFormatType.JSON)
+			.result(result)
+			.build();
+		
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stockchart.indicators.BollingerBandsIndicator;
+import org.stockchart.indicators.EmaIndicator;
+import org.stockchart.indicators.MacdIndicator;
+import org.stockchart.indicators.RsiIndicator;
+import org.stockchart.indicators.SmaIndicator;
+import org.stockchart.indicators.StochasticIndicator;
+import org.stockchart.series.BarSeries;
+import org.stockchart.series.LinearSeries;
+import org.stockchart.series.RangeSeries;
+import org.stockchart.series.StockSeries;
+
+/**
+ * Full recalculation of the indicators, close price is the source value.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class IndicatorBenchmarks 
+{
+	private static final int CLOSE = 3;
+	
+	@Param({"10000", "100000", "1000000", "10000000"})
+	public int barsCount;
+	
+	private SmaIndicator fSma;
+	private EmaIndicator fEma;
+	private RsiIndicator fRsi;
+	private MacdIndicator fMacd;
+	private BollingerBandsIndicator fBollingerBands;
+	private StochasticIndicator fStochastic;
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		StockSeries src = BenchmarkData.createStockSeries(barsCount, false);
+		
+		fSma = new SmaIndicator(src, CLOSE, new LinearSeries());
+		fEma = new EmaIndicator(src, CLOSE, new LinearSeries());
+		fRsi = new RsiIndicator(src, CLOSE, new LinearSeries());
+		fMacd = new MacdIndicator(src, CLOSE, new LinearSeries(), new LinearSeries(), new BarSeries());
+		fBollingerBands = new BollingerBandsIndicator(src, CLOSE, new LinearSeries(), new RangeSeries());
+		fStochastic = new StochasticIndicator(src, CLOSE, new LinearSeries(), new LinearSeries());
+	}
+	
+	@Benchmark
+	public int sma()
+	{
+		fSma.recalc();
+		
+		return fSma.getDstSma().getPointCount();
+	}
+	
+	@Benchmark
+	public int ema()
+	{
+		fEma.recalc();
+		
+		return fEma.getDstEma().getPointCount();
+	}
+	
+	@Benchmark
+	public int rsi()
+	{
+		fRsi.recalc();
+		
+		return fRsi.getDstRsi().getPointCount();
+	}
+	
+	@Benchmark
+	public int macd()
+	{
+		fMacd.recalc();
+		
+		return fMacd.getDstHistogram().getPointCount();
+	}
+	
+	@Benchmark
+	public int bollingerBands()
+	{
+		fBollingerBands.recalc();
+		
+		return fBollingerBands.getDstBb().getPointCount();
+	}
+	
+	@Benchmark
+	public int stochastic()
+	{
+		fStochastic.recalc();
+		
+		return fStochastic.getDstSlowD().getPointCount();
+	}
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.benchmarks;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.stockchart.indicators.AbstractIndicator;
+import org.stockchart.indicators.BollingerBandsIndicator;
+import org.stockchart.indicators.EmaIndicator;
+import org.stockchart.indicators.EnvelopesIndicator;
+import org.stockchart.indicators.IndicatorGroup;
+import org.stockchart.indicators.MacdIndicator;
+import org.stockchart.indicators.RsiIndicator;
+import org.stockchart.indicators.SmaIndicator;
+import org.stockchart.indicators.StochasticIndicator;
+import org.stockchart.series.AbstractSeries;
+import org.stockchart.series.BarSeries;
+import org.stockchart.series.LinearSeries;
+import org.stockchart.series.RangeSeries;
+import org.stockchart.series.SeriesBase;
+import org.stockchart.series.StockSeries;
+
+/**
+ * Checks that the indicators calculated by {@link IndicatorGroup} on all cores (parallel window sums,
+ * exponential averages solved by the parallel scan) match the sequential calculation within
+ * the rounding tolerance. Long series are checked with and without NaN gaps, the gaps make
+ * the group fall back to the sequential restart from the first window.
+ * <p>
+ * It runs in the <code>test</code> phase of the benchmarks build, or by
+ * <code>java -cp target/benchmarks.jar org.stockchart.benchmarks.ParityCheck</code>.
+ */
+public class ParityCheck
+{
+	private static final int CLOSE = 3;
+	
+	private static final int BARS_COUNT = 1 << 18;
+	
+	// small enough for the chunks of every indicator to be calculated in parallel
+	private static final int PARALLEL_THRESHOLD = 1 << 12;
+	
+	private static final double TOLERANCE = 1e-9;
+	
+	public static void main(String[] args)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory()
+		{
+			@Override
+			public Thread newThread(Runnable r)
+			{
+				Thread t = new Thread(r, "ParityCheck");
+				t.setDaemon(true);
+				
+				return t;
+			}
+		});
+		
+		try
+		{
+			int failures = 0;
+			
+			failures += check("long series", BenchmarkData.createStockSeries(BARS_COUNT, false), executor);
+			failures += check("long series with NaN gaps", createSeriesWithGaps(), executor);
+			
+			if(failures > 0)
+				throw new IllegalStateException(failures + " Dst... series differ from the sequential calculation");
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+	}
+	
+	/**
+	 * @return number of Dst... series which differ
+	 */
+	private static int check(String name,StockSeries src,ExecutorService executor)
+	{
+		ArrayList<AbstractIndicator> sequential = createIndicators(src);
+		ArrayList<AbstractIndicator> parallel = createIndicators(src);
+		
+		for(AbstractIndicator a: sequential)
+			a.recalc();
+		
+		for(AbstractIndicator group: IndicatorGroup.group(parallel, executor, PARALLEL_THRESHOLD))
+			group.recalc();
+		
+		int failures = 0;
+		
+		for(int i=0;i<sequential.size();i++)
+		{
+			SeriesBase[] expected = sequential.get(i).getAllDst();
+			SeriesBase[] actual = parallel.get(i).getAllDst();
+			
+			for(int j=0;j<expected.length;j++)
+			{
+				String series = name + ": " + sequential.get(i).getClass().getSimpleName() + " Dst " + j;
+				double error = getMaxError(expected[j], actual[j]);
+				
+				System.out.println(series + ", max relative error " + error);
+				
+				if(!(error <= TOLERANCE))
+					failures++;
+			}
+		}
+		
+		return failures;
+	}
+	
+	/**
+	 * Gets the maximal relative difference of the values, NaN if the series differ in the number of points
+	 * or in the positions of NaN values.
+	 */
+	private static double getMaxError(SeriesBase expected,SeriesBase actual)
+	{
+		if(expected.getPointCount() != actual.getPointCount() || expected.getIndexOffset() != actual.getIndexOffset())
+			return Double.NaN;
+		
+		int valuesCount = ((AbstractSeries<?>)expected).getColumns().getValuesCount();
+		double result = 0.0;
+		
+		for(int i=0;i<expected.getPointCount();i++)
+		{
+			for(int vi=0;vi<valuesCount;vi++)
+			{
+				double e = expected.getValueAt(i, vi);
+				double a = actual.getValueAt(i, vi);
+				
+				if(Double.isNaN(e) != Double.isNaN(a)) return Double.NaN;
+				
+				if(!Double.isNaN(e))
+					result = Math.max(result, Math.abs(e - a) / Math.max(1.0, Math.abs(e)));
+			}
+		}
+		
+		return result;
+	}
+	
+	private static ArrayList<AbstractIndicator> createIndicators(StockSeries src)
+	{
+		ArrayList<AbstractIndicator> result = new ArrayList<AbstractIndicator>();
+		
+		result.add(new SmaIndicator(src, CLOSE, new LinearSeries()));
+		result.add(new EmaIndicator(src, CLOSE, new LinearSeries()));
+		result.add(new RsiIndicator(src, CLOSE, new LinearSeries()));
+		result.add(new MacdIndicator(src, CLOSE, new LinearSeries(), new LinearSeries(), new BarSeries()));
+		result.add(new BollingerBandsIndicator(src, CLOSE, new LinearSeries(), new RangeSeries()));
+		result.add(new EnvelopesIndicator(src, CLOSE, new RangeSeries()));
+		result.add(new StochasticIndicator(src, CLOSE, new LinearSeries(), new LinearSeries()));
+		
+		return result;
+	}
+	
+	/**
+	 * Creates the long series whose close values have runs of NaN in the middle
+	 */
+	private static StockSeries createSeriesWithGaps()
+	{
+		StockSeries s = BenchmarkData.createStockSeries(BARS_COUNT, false);
+		
+		for(int start=BARS_COUNT / 5;start + 7 < BARS_COUNT;start += BARS_COUNT / 5)
+		{
+			for(int i=start;i<start + 7;i++)
+				s.getColumns().setValue(i, CLOSE, Double.NaN);
+		}
+		
+		return s;
+	}
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stockchart.core.PaintInfo;
+import org.stockchart.misc.DateTimeScaleValuesProvider;
+import org.stockchart.misc.RoundNumbersScaleValuesProvider;
+import org.stockchart.series.StockSeries;
+
+/**
+ * Scale values of the axes. The view is moved by one point on every call,
+ * so providers caching the last values have to recalculate them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScaleValuesBenchmarks 
+{
+	private static final int BARS_COUNT = 100000;
+	private static final int VALUES_COUNT = 10;
+	
+	@Param({"100", "1000", "10000"})
+	public int visibleCount;
+	
+	private DateTimeScaleValuesProvider fDateTimeProvider;
+	private final RoundNumbersScaleValuesProvider fRoundNumbersProvider = new RoundNumbersScaleValuesProvider(2);
+	
+	private final PaintInfo fXInfo = new PaintInfo();
+	private final PaintInfo fYInfo = new PaintInfo();
+	
+	private int fShift = 0;
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		StockSeries s = BenchmarkData.createStockSeries(BARS_COUNT, true);
+		
+		fDateTimeProvider = new DateTimeScaleValuesProvider(s);
+		
+		fXInfo.IsX = true;
+		fXInfo.Size = 1000f;
+		
+		fYInfo.IsX = false;
+		fYInfo.Size = 500f;
+	}
+	
+	@Benchmark
+	public Double[] dateTime()
+	{
+		fShift = (fShift + 1) % (BARS_COUNT - visibleCount);
+		
+		fXInfo.Min = fShift;
+		fXInfo.Max = fShift + visibleCount;
+		
+		return fDateTimeProvider.getScaleValues(fXInfo, VALUES_COUNT);
+	}
+	
+	@Benchmark
+	public Double[] roundNumbers()
+	{
+		fShift = (fShift + 1) % (BARS_COUNT - visibleCount);
+		
+		fYInfo.Min = 1000.0 + fShift*0.01;
+		fYInfo.Max = fYInfo.Min + visibleCount*0.1;
+		
+		return fRoundNumbersProvider.getScaleValues(fYInfo, VALUES_COUNT);
+	}
+}
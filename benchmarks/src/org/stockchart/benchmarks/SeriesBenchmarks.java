@@ -0,0 +1,103 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.stockchart.core.AxisRange;
+import org.stockchart.series.StockSeries;
+
+/**
+ * Auto range of the visible points: the query of the series maximum and minimum 
+ * and the expansion of the axis range, the way <code>Area</code> does it every frame.
+ * Visible windows are taken at pseudo-random positions which are the same for every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SeriesBenchmarks 
+{
+	private static final int WINDOWS_COUNT = 1024;
+	
+	@Param({"10000", "100000", "1000000", "10000000"})
+	public int barsCount;
+	
+	@Param({"100", "10000"})
+	public int visibleCount;
+	
+	private StockSeries fSeries;
+	private final AxisRange fRange = new AxisRange();
+	
+	private final double[] fViewMin = new double[WINDOWS_COUNT];
+	private int fWindow = 0;
+	
+	@Setup(Level.Trial)
+	public void setUp()
+	{
+		fSeries = BenchmarkData.createStockSeries(barsCount, false);
+		
+		Random r = new Random(BenchmarkData.SEED);
+		int visible = Math.min(visibleCount, barsCount);
+		
+		for(int i=0;i<WINDOWS_COUNT;i++)
+			fViewMin[i] = r.nextInt(barsCount - visible + 1);
+	}
+	
+	@Benchmark
+	public double[] getMaxMinPrice()
+	{
+		double min = nextViewMin();
+		
+		return fSeries.getMaxMinPrice(min + visibleCount, min);
+	}
+	
+	@Benchmark
+	public double expandAutoValues()
+	{
+		double min = nextViewMin();
+		double[] maxMin = fSeries.getMaxMinPrice(min + visibleCount, min);
+		
+		fRange.resetAutoValues();
+		
+		double m = fRange.getMargin(maxMin[0], maxMin[1]);
+		fRange.expandAutoValues(maxMin[0] + m, maxMin[1] - m);
+		
+		return fRange.getMaxOrAutoValue();
+	}
+	
+	private double nextViewMin()
+	{
+		fWindow = (fWindow + 1) & (WINDOWS_COUNT - 1);
+		
+		return fViewMin[fWindow];
+	}
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * Stand-in for the Android class, so the library runs on a plain JVM for the benchmarks.
+ * Only the members used by the library are declared, drawing calls do nothing.
+ */
+public class Color
+{
+	public static final int BLACK = 0xFF000000;
+	public static final int DKGRAY = 0xFF444444;
+	public static final int GRAY = 0xFF888888;
+	public static final int LTGRAY = 0xFFCCCCCC;
+	public static final int WHITE = 0xFFFFFFFF;
+	public static final int RED = 0xFFFF0000;
+	public static final int GREEN = 0xFF00FF00;
+	public static final int BLUE = 0xFF0000FF;
+	public static final int YELLOW = 0xFFFFFF00;
+	public static final int CYAN = 0xFF00FFFF;
+	public static final int MAGENTA = 0xFFFF00FF;
+	public static final int TRANSPARENT = 0;
+
+	public static int alpha(int color)
+	{
+		return color >>> 24;
+	}
+
+	public static int red(int color)
+	{
+		return (color >> 16) & 0xFF;
+	}
+
+	public static int green(int color)
+	{
+		return (color >> 8) & 0xFF;
+	}
+
+	public static int blue(int color)
+	{
+		return color & 0xFF;
+	}
+
+	public static int rgb(int red, int green, int blue)
+	{
+		return argb(0xFF, red, green, blue);
+	}
+
+	public static int argb(int alpha, int red, int green, int blue)
+	{
+		return (alpha << 24) | (red << 16) | (green << 8) | blue;
+	}
+
+	public static int parseColor(String color)
+	{
+		long c = Long.parseLong(color.substring(1), 16);
+
+		return (int)(color.length() == 7?c | 0xFF000000L:c);
+	}
+
+	public static void colorToHSV(int color, float[] hsv)
+	{
+		float r = red(color) / 255f;
+		float g = green(color) / 255f;
+		float b = blue(color) / 255f;
+
+		float max = Math.max(r, Math.max(g, b));
+		float min = Math.min(r, Math.min(g, b));
+		float d = max - min;
+
+		float h = 0f;
+
+		if(d > 0f)
+		{
+			if(max == r)
+				h = ((g - b) / d) % 6f;
+			else if(max == g)
+				h = (b - r) / d + 2f;
+			else
+				h = (r - g) / d + 4f;
+
+			h *= 60f;
+
+			if(h < 0f)
+				h += 360f;
+		}
+
+		hsv[0] = h;
+		hsv[1] = max > 0f?d / max:0f;
+		hsv[2] = max;
+	}
+
+	public static int HSVToColor(float[] hsv)
+	{
+		return HSVToColor(0xFF, hsv);
+	}
+
+	public static int HSVToColor(int alpha, float[] hsv)
+	{
+		float c = hsv[2] * hsv[1];
+		float x = c * (1f - Math.abs((hsv[0] / 60f) % 2f - 1f));
+		float m = hsv[2] - c;
+
+		float r, g, b;
+
+		switch((int)(hsv[0] / 60f) % 6)
+		{
+		case 0: r = c; g = x; b = 0f; break;
+		case 1: r = x; g = c; b = 0f; break;
+		case 2: r = 0f; g = c; b = x; break;
+		case 3: r = 0f; g = x; b = c; break;
+		case 4: r = x; g = 0f; b = c; break;
+		default: r = c; g = 0f; b = x; break;
+		}
+
+		return argb(alpha, Math.round((r + m) * 255f), Math.round((g + m) * 255f), Math.round((b + m) * 255f));
+	}
+}
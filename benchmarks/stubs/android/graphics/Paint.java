@@ -0,0 +1,166 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * Stand-in for the Android class, so the library runs on a plain JVM for the benchmarks.
+ * Only the members used by the library are declared, drawing calls do nothing.
+ */
+public class Paint
+{
+	public enum Style
+	{
+		FILL,
+		STROKE,
+		FILL_AND_STROKE
+	}
+
+	public enum Align
+	{
+		LEFT,
+		CENTER,
+		RIGHT
+	}
+
+	public static final int ANTI_ALIAS_FLAG = 1;
+
+	private Style fStyle = Style.FILL;
+	private int fColor = Color.BLACK;
+	private float fStrokeWidth = 0f;
+	private float fTextSize = 12f;
+	private Shader fShader;
+
+	public Paint() {}
+
+	public Paint(int flags) {}
+
+	public Paint(Paint paint)
+	{
+		set(paint);
+	}
+
+	public void reset()
+	{
+		set(new Paint());
+	}
+
+	public void set(Paint paint)
+	{
+		fStyle = paint.fStyle;
+		fColor = paint.fColor;
+		fStrokeWidth = paint.fStrokeWidth;
+		fTextSize = paint.fTextSize;
+		fShader = paint.fShader;
+	}
+
+	public Style getStyle()
+	{
+		return fStyle;
+	}
+
+	public void setStyle(Style style)
+	{
+		fStyle = style;
+	}
+
+	public int getColor()
+	{
+		return fColor;
+	}
+
+	public void setColor(int color)
+	{
+		fColor = color;
+	}
+
+	public void setAlpha(int alpha)
+	{
+		fColor = (alpha << 24) | (fColor & 0xFFFFFF);
+	}
+
+	public float getStrokeWidth()
+	{
+		return fStrokeWidth;
+	}
+
+	public void setStrokeWidth(float width)
+	{
+		fStrokeWidth = width;
+	}
+
+	public float getTextSize()
+	{
+		return fTextSize;
+	}
+
+	public void setTextSize(float size)
+	{
+		fTextSize = size;
+	}
+
+	public Shader getShader()
+	{
+		return fShader;
+	}
+
+	public Shader setShader(Shader shader)
+	{
+		fShader = shader;
+
+		return shader;
+	}
+
+	public PathEffect setPathEffect(PathEffect effect)
+	{
+		return effect;
+	}
+
+	public Typeface setTypeface(Typeface typeface)
+	{
+		return typeface;
+	}
+
+	public void setAntiAlias(boolean value) {}
+
+	public void setDither(boolean value) {}
+
+	public void setFilterBitmap(boolean value) {}
+
+	public void setTextAlign(Align align) {}
+
+	/**
+	 * Approximates the width of the text by the average glyph width
+	 */
+	public float measureText(String text)
+	{
+		return 0.6f * fTextSize * text.length();
+	}
+
+	public void getTextBounds(String text, int start, int end, Rect bounds)
+	{
+		bounds.set(0, Math.round(ascent()), Math.round(0.6f * fTextSize * (end - start)), Math.round(descent()));
+	}
+
+	public float ascent()
+	{
+		return -0.8f * fTextSize;
+	}
+
+	public float descent()
+	{
+		return 0.2f * fTextSize;
+	}
+}
@@ -0,0 +1,116 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * Stand-in for the Android class, so the library runs on a plain JVM for the benchmarks.
+ * Only the members used by the library are declared, drawing calls do nothing.
+ */
+public class Rect
+{
+	public int left;
+	public int top;
+	public int right;
+	public int bottom;
+
+	public Rect() {}
+
+	public Rect(int left, int top, int right, int bottom)
+	{
+		set(left, top, right, bottom);
+	}
+
+	public Rect(Rect r)
+	{
+		set(r);
+	}
+
+	public void set(int left, int top, int right, int bottom)
+	{
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+
+	public void set(Rect r)
+	{
+		set(r.left, r.top, r.right, r.bottom);
+	}
+
+	public void setEmpty()
+	{
+		set(0, 0, 0, 0);
+	}
+
+	public boolean isEmpty()
+	{
+		return left >= right || top >= bottom;
+	}
+
+	public int width()
+	{
+		return right - left;
+	}
+
+	public int height()
+	{
+		return bottom - top;
+	}
+
+	public int centerX()
+	{
+		return (left + right) >> 1;
+	}
+
+	public int centerY()
+	{
+		return (top + bottom) >> 1;
+	}
+
+	public boolean contains(int x, int y)
+	{
+		return left <= x && x < right && top <= y && y < bottom;
+	}
+
+	public void offset(int dx, int dy)
+	{
+		left += dx;
+		right += dx;
+		top += dy;
+		bottom += dy;
+	}
+
+	public boolean intersect(Rect r)
+	{
+		if(left >= r.right || r.left >= right || top >= r.bottom || r.top >= bottom) 
+			return false;
+
+		set(Math.max(left, r.left), Math.max(top, r.top), Math.min(right, r.right), Math.min(bottom, r.bottom));
+
+		return true;
+	}
+
+	public void union(Rect r)
+	{
+		if(r.isEmpty()) return;
+
+		if(isEmpty())
+			set(r);
+		else
+			set(Math.min(left, r.left), Math.min(top, r.top), Math.max(right, r.right), Math.max(bottom, r.bottom));
+	}
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * Stand-in for the Android class, so the library runs on a plain JVM for the benchmarks.
+ * Only the members used by the library are declared, drawing calls do nothing.
+ */
+public class RectF
+{
+	public float left;
+	public float top;
+	public float right;
+	public float bottom;
+
+	public RectF() {}
+
+	public RectF(float left, float top, float right, float bottom)
+	{
+		set(left, top, right, bottom);
+	}
+
+	public RectF(RectF r)
+	{
+		set(r);
+	}
+
+	public RectF(Rect r)
+	{
+		set(r);
+	}
+
+	public void set(float left, float top, float right, float bottom)
+	{
+		this.left = left;
+		this.top = top;
+		this.right = right;
+		this.bottom = bottom;
+	}
+
+	public void set(RectF r)
+	{
+		set(r.left, r.top, r.right, r.bottom);
+	}
+
+	public void set(Rect r)
+	{
+		set(r.left, r.top, r.right, r.bottom);
+	}
+
+	public void setEmpty()
+	{
+		set(0f, 0f, 0f, 0f);
+	}
+
+	public boolean isEmpty()
+	{
+		return left >= right || top >= bottom;
+	}
+
+	public float width()
+	{
+		return right - left;
+	}
+
+	public float height()
+	{
+		return bottom - top;
+	}
+
+	public float centerX()
+	{
+		return (left + right) / 2f;
+	}
+
+	public float centerY()
+	{
+		return (top + bottom) / 2f;
+	}
+
+	public boolean contains(float x, float y)
+	{
+		return left <= x && x < right && top <= y && y < bottom;
+	}
+
+	public boolean contains(RectF r)
+	{
+		return !isEmpty() && left <= r.left && top <= r.top && right >= r.right && bottom >= r.bottom;
+	}
+
+	public void offset(float dx, float dy)
+	{
+		left += dx;
+		right += dx;
+		top += dy;
+		bottom += dy;
+	}
+
+	public void inset(float dx, float dy)
+	{
+		left += dx;
+		right -= dx;
+		top += dy;
+		bottom -= dy;
+	}
+
+	public void sort()
+	{
+		if(left > right)
+		{
+			float t = left;
+			left = right;
+			right = t;
+		}
+
+		if(top > bottom)
+		{
+			float t = top;
+			top = bottom;
+			bottom = t;
+		}
+	}
+
+	public boolean intersects(float left, float top, float right, float bottom)
+	{
+		return this.left < right && left < this.right && this.top < bottom && top < this.bottom;
+	}
+
+	public boolean intersect(RectF r)
+	{
+		if(!intersects(r.left, r.top, r.right, r.bottom)) return false;
+
+		set(Math.max(left, r.left), Math.max(top, r.top), Math.min(right, r.right), Math.min(bottom, r.bottom));
+
+		return true;
+	}
+
+	public void union(float left, float top, float right, float bottom)
+	{
+		if(left >= right || top >= bottom) return;
+
+		if(isEmpty())
+			set(left, top, right, bottom);
+		else
+			set(Math.min(this.left, left), Math.min(this.top, top), Math.max(this.right, right), Math.max(this.bottom, bottom));
+	}
+
+	public void union(RectF r)
+	{
+		union(r.left, r.top, r.right, r.bottom);
+	}
+
+	public void union(float x, float y)
+	{
+		left = Math.min(left, x);
+		top = Math.min(top, y);
+		right = Math.max(right, x);
+		bottom = Math.max(bottom, y);
+	}
+
+	public void round(Rect r)
+	{
+		r.set(Math.round(left), Math.round(top), Math.round(right), Math.round(bottom));
+	}
+
+	public void roundOut(Rect r)
+	{
+		r.set((int)Math.floor(left), (int)Math.floor(top), (int)Math.ceil(right), (int)Math.ceil(bottom));
+	}
+}
@@ -0,0 +1,40 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package android.graphics;
+
+/**
+ * Stand-in for the Android class, so the library runs on a plain JVM for the benchmarks.
+ * Only the members used by the library are declared, drawing calls do nothing.
+ */
+public class Typeface
+{
+	public static final int NORMAL = 0;
+	public static final int BOLD = 1;
+	public static final int ITALIC = 2;
+	public static final int BOLD_ITALIC = 3;
+
+	public static final Typeface DEFAULT = new Typeface();
+
+	public static Typeface create(String familyName, int style)
+	{
+		return DEFAULT;
+	}
+
+	public static Typeface createFromFile(String path)
+	{
+		return DEFAULT;
+	}
+}
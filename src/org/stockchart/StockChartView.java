@@ -16,6 +16,10 @@
 
 package org.stockchart;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.Iterator;
@@ -30,11 +34,14 @@ import org.stockchart.core.Area;
 import org.stockchart.core.Axis;
 import org.stockchart.core.Axis.Side;
 import org.stockchart.core.AxisRange;
+import org.stockchart.core.BinarySnapshot;
 import org.stockchart.core.ChartElement;
 import org.stockchart.core.Crosshair;
 import org.stockchart.core.IndicatorManager;
 import org.stockchart.core.Plot;
 import org.stockchart.core.SeriesPaintInfo;
+import org.stockchart.core.StickerHitIndex;
+import org.stockchart.core.UpdateScheduler;
 import org.stockchart.indicators.AbstractIndicator;
 import org.stockchart.points.AbstractPoint;
 import org.stockchart.series.AbstractSeries;
@@ -42,8 +49,10 @@ import org.stockchart.series.BarSeries;
 import org.stockchart.series.SeriesBase;
 import org.stockchart.series.StockSeries;
 import org.stockchart.stickers.AbstractSticker;
+import org.stockchart.utils.AllocationCounter;
 import org.stockchart.utils.CustomObjects;
 import org.stockchart.utils.DrawingCache;
+import org.stockchart.utils.DrawingCache.Layer;
 import org.stockchart.utils.DrawingCache.Params;
 import org.stockchart.utils.PointD;
 import org.stockchart.utils.StockDataGenerator;
@@ -124,7 +133,17 @@ public class StockChartView extends View
 	
 	private final IndicatorManager fIndicatorManager = new IndicatorManager(this);
 	
+	private boolean fIsIndicatorsRecalcAsync = false;
+	
+	private final UpdateScheduler fUpdateScheduler = new UpdateScheduler(this);
+	
 	private final EnumMap<Axis.Side, AxisRange> fGlobalRanges = new EnumMap<Axis.Side, AxisRange>(Axis.Side.class);
+	
+	// inputs of the last auto values calculation, see recalc()
+	private boolean fIsAutoValuesDirty = true;
+	private final ArrayList<Area> fCalcAreas = new ArrayList<Area>();
+	private final int[] fCalcGlobalRangeVersions = new int[Axis.Side.values().length];
+	private final ArrayList<Area> fDirtyAreas = new ArrayList<Area>();
 
 	private TouchMode fMode = TouchMode.NONE;
 	
@@ -144,6 +163,16 @@ public class StockChartView extends View
 	
 	private final HitTestInfo fInnerHitTestInfo = new HitTestInfo();
 	
+	// hit testing doesn't allocate unless something is hit
+	private final SeriesPaintInfo fHitPaintInfo = new SeriesPaintInfo();
+	private final RectF fHitBounds = new RectF();
+	private final RectF fHitRectF = new RectF();
+	
+	private final double[] fHitMaxMin = new double[2];
+	
+	// changed on every invalidation, so the sticker grids are rebuilt
+	private int fHitTestStamp;
+	
 	private DrawingCache fCache = new DrawingCache();
 	
 	public StockChartView(Context context)
@@ -221,6 +250,15 @@ public class StockChartView extends View
 		return fIndicatorManager;
 	}
 	
+	/**
+	 * Gets the scheduler applying updates of the series once per frame. 
+	 * Use it to feed the chart from background threads or at a high rate.
+	 */
+	public UpdateScheduler getUpdateScheduler()
+	{
+		return fUpdateScheduler;
+	}
+	
 	@Deprecated
 	public ArrayList<AbstractIndicator> getIndicators()
 	{
@@ -242,6 +280,8 @@ public class StockChartView extends View
 		fAreas.clear();		
 		fGlobalRanges.clear();
 		fIndicatorManager.getIndicators().clear();
+		fIndicatorManager.getCache().clear();
+		fIsAutoValuesDirty = true;
 	}
 	
 	public Area findAreaBySeriesName(String seriesName)
@@ -357,15 +397,84 @@ public class StockChartView extends View
 		return view.toString();
 	}
 	
-
-	public void recalcIndicators()
+	/**
+	 * Saves the layout and points of all series, including calculated indicators, 
+	 * into the binary snapshot (see {@link BinarySnapshot})
+	 */
+	public void saveSnapshot(File file) throws IOException, JSONException
 	{
-		for(AbstractIndicator a: fIndicatorManager.getIndicators())
+		FileOutputStream stream = new FileOutputStream(file);
+		
+		try
+		{
+			new BinarySnapshot(this).save(stream.getChannel());
+		}
+		finally
 		{
-			a.recalc();
+			stream.close();
 		}
 	}
 	
+	/**
+	 * Restores the chart saved by {@link #saveSnapshot(File)}, indicators are not recalculated
+	 */
+	public void loadSnapshot(File file) throws IOException, JSONException
+	{
+		FileInputStream stream = new FileInputStream(file);
+		
+		try
+		{
+			new BinarySnapshot(this).load(stream.getChannel());
+		}
+		finally
+		{
+			stream.close();
+		}
+	}
+	
+
+	/**
+	 * Recalcs indicators, in background if asynchronous mode is on 
+	 * (see {@link #setIndicatorsRecalcAsync(boolean)})
+	 */
+	public void recalcIndicators()
+	{
+		recalcIndicators(null);
+	}
+	
+	/**
+	 * Recalcs only the indicators depending on the changed series, directly or through 
+	 * other indicators. In asynchronous mode the calculation is done in background
+	 * (see {@link #setIndicatorsRecalcAsync(boolean)})
+	 * 
+	 * @param changed changed series, <code>null</code> to recalc all indicators
+	 */
+	public void recalcIndicators(SeriesBase changed)
+	{
+		if(fIsIndicatorsRecalcAsync)
+			fIndicatorManager.recalcAsync(changed);
+		else
+			fIndicatorManager.recalc(changed);
+	}
+	
+	/**
+	 * Gets whether indicators are recalculated in background
+	 */
+	public boolean isIndicatorsRecalcAsync()
+	{
+		return fIsIndicatorsRecalcAsync;
+	}
+	
+	/**
+	 * Sets whether indicators are recalculated in background. In asynchronous mode 
+	 * <code>recalcIndicators()</code> returns immediately, Dst... series are updated 
+	 * and the view is invalidated when the calculation is finished.
+	 */
+	public void setIndicatorsRecalcAsync(boolean value)
+	{
+		fIsIndicatorsRecalcAsync = value;
+	}
+	
 	public AxisRange getGlobalAxisRange(Axis.Side side)
 	{
 		return fGlobalRanges.get(side);
@@ -374,11 +483,22 @@ public class StockChartView extends View
 	public void disableGlobalAxisRange(Axis.Side side)
 	{
 		fGlobalRanges.remove(side);
+		fIsAutoValuesDirty = true;
 	}
 	
 	public void enableGlobalAxisRange(Axis.Side side, AxisRange value)
 	{
 		fGlobalRanges.put(side, value);
+		fIsAutoValuesDirty = true;
+	}
+	
+	/**
+	 * Forces the calculation of the auto values of all areas on the next draw, 
+	 * i.e. after the points have been changed without notifying the series
+	 */
+	public void invalidateAutoValues()
+	{
+		fIsAutoValuesDirty = true;
 	}
 	
 	
@@ -479,15 +599,163 @@ public class StockChartView extends View
 	{	
 		super.onDraw(canvas);
 		
-		Params p = fCache.getParams(canvas);
-				
+		AllocationCounter.reset();
+		
+		// auto values of the series aggregated by pixel columns depend on the width of the plots,
+		// so the areas are laid out before, and again for the axes fitting the new auto values
+		resetPositions();
 		recalc();
 		resetPositions();
+		
+		// the series layer invalidated explicitly or recreated is drawn entirely, 
+		// invalidated by the changed view values it may be scrolled
+		fCache.getParams(canvas, Layer.SERIES);
+		boolean isSeriesScrollable = !fCache.isDirty(Layer.SERIES);
+		
+		fCache.setOpaque(0xFF == Color.alpha(fClearColor));
+		
+		commitLayerInputs();
+		
+		for(Layer layer: Layer.values())
+		{
+			if(!layer.isCached())
+			{
+				drawAreas(canvas, layer);
+				continue;
+			}
+			
+			Params p = fCache.getParams(canvas, layer);
+			
+			if(fCache.isDirty(layer) && Layer.SERIES == layer && isSeriesScrollable)
+			{
+				p = drawSeriesFrom(canvas, p);
+				
+				fCache.validate(layer);
+			}
+			else if(fCache.isDirty(layer))
+			{
+				if(Layer.BACKGROUND == layer)
+					drawClear(p.bitmap);
+				else
+					p.bitmap.eraseColor(Color.TRANSPARENT);
+				
+				drawAreas(p.canvas, layer);
+				
+				fCache.validate(layer);
+			}
 						
-		drawClear(p.bitmap);
-		drawAreas(p.canvas);
+			canvas.drawBitmap(p.bitmap,0f,0f,null);
+		}
+	}
+	
+	/**
+	 * Draws the series layer into the back bitmap, plots shift the previous drawing
+	 * of their series if only the horizontal view values have been changed.
+	 * 
+	 * @return the new front bitmap of the layer
+	 */
+	private Params drawSeriesFrom(Canvas canvas,Params previous)
+	{
+		Params p = fCache.getBackParams(canvas, Layer.SERIES);
+		
+		p.bitmap.eraseColor(Color.TRANSPARENT);
+		
+		fCustomObjects.put(CustomObjects.PREVIOUS_SERIES, previous.bitmap);
+		drawAreas(p.canvas, Layer.SERIES);
+		fCustomObjects.remove(CustomObjects.PREVIOUS_SERIES);
+		
+		fCache.swap(Layer.SERIES);
+		
+		return p;
+	}
+	
+	/**
+	 * Redraws all layers of the chart. Use {@link #invalidate(Layer)} if the changes 
+	 * are limited to a layer.
+	 */
+	@Override
+	public void invalidate()
+	{
+		// the view can be invalidated by the platform before the fields are initialized
+		if(null != fCache)
+			fCache.invalidate();
+		
+		fHitTestStamp++;
+		
+		super.invalidate();
+	}
+	
+	/**
+	 * Redraws the given layer of the chart. Other layers are redrawn only if 
+	 * the positions of the areas, the axis ranges or the series have been changed.
+	 * Must be called on the UI thread.
+	 */
+	public void invalidate(Layer layer)
+	{
+		fCache.invalidate(layer);
+		
+		fHitTestStamp++;
+		
+		super.invalidate();
+	}
+	
+	/**
+	 * Invalidates cached layers whose inputs differ from the last frame
+	 */
+	private void commitLayerInputs()
+	{
+		fCache.beginInputs();
 		
-		canvas.drawBitmap(p.bitmap,0f,0f,null);
+		fCache.addInput(getWidth());
+		fCache.addInput(getHeight());
+		fCache.addInput(fClearColor);
+		
+		for(Area a: fAreas)
+		{
+			if(!a.isVisible()) continue;
+			
+			addBoundsInputs(a);
+			addBoundsInputs(a.getPlot());
+			
+			for(Axis axis: a.getAxes())
+			{
+				AxisRange range = axis.getAxisRangeOrGlobalAxisRange();
+				
+				fCache.addInput(range.getMaxViewValueOrAutoValue());
+				fCache.addInput(range.getMinViewValueOrAutoValue());
+			}
+		}
+		
+		for(Area a: fAreas)
+		{
+			if(!a.isVisible()) continue;
+			
+			ArrayList<SeriesBase> series = a.getSeries();
+			
+			fCache.addInput(series.size());
+			
+			for(int i=0;i<series.size();i++)
+			{
+				SeriesBase s = series.get(i);
+				
+				fCache.addInput(s.getVersion());
+				fCache.addInput(s.getPointCount());
+			}
+		}
+		
+		// labels and the grid of DateTime axes are taken from the points, so the background depends on the series too
+		fCache.commitInputs(Layer.SERIES);
+		fCache.commitInputs(Layer.BACKGROUND);
+	}
+	
+	private void addBoundsInputs(ChartElement e)
+	{
+		RectF r = e.getBounds();
+		
+		fCache.addInput(r.left);
+		fCache.addInput(r.top);
+		fCache.addInput(r.right);
+		fCache.addInput(r.bottom);
 	}
 
 
@@ -498,6 +766,8 @@ public class StockChartView extends View
 		super.onDetachedFromWindow();
 		
 		this.fCache.recycle();
+		this.fIndicatorManager.shutdown();
+		this.fUpdateScheduler.clear();
 	}
 	
 	@Override
@@ -604,7 +874,7 @@ public class StockChartView extends View
 						}
 					}
 					
-					this.invalidate();
+					this.invalidate(Layer.OVERLAY);
 				}
 			}
 			break;
@@ -615,7 +885,7 @@ public class StockChartView extends View
 		 		
 		 		this.fCustomObjects.remove(CustomObjects.STICKER);
 		 		fStickerInfo = null;
-		 		this.invalidate();
+		 		this.invalidate(Layer.OVERLAY);
 
 		 	}
             break;
@@ -652,7 +922,7 @@ public class StockChartView extends View
 				else
 					fStickerInfo.sticker.setSecondPoint(vx, vy);
 
-				this.invalidate();
+				this.invalidate(Layer.OVERLAY);
 		 	}
 		 	break;
 		 		
@@ -725,7 +995,9 @@ public class StockChartView extends View
 	 				{
 	 					this.move(inPercentsOfWidth(dx), inPercentsOfHeight(dy));
 	 				
-	 					invalidate();
+	 					// layers depending on the view values are redrawn by their inputs, 
+	 					// so the series can be scrolled
+	 					invalidate(Layer.OVERLAY);
 	 					fTouchEventHandled = true;
 	 				}
 	 			}
@@ -749,7 +1021,7 @@ public class StockChartView extends View
 		{
 			this.fCrosshair.setPositionInPercents(inPercentsOfWidth(x), inPercentsOfHeight(y));
 			this.fCrosshair.setVisible(true);
-			this.invalidate();
+			this.invalidate(Layer.OVERLAY);
 		}
 	}
 	
@@ -813,24 +1085,99 @@ public class StockChartView extends View
 		}	
 	}
 	
+	/**
+	 * Calculates auto values of the areas whose series, axis ranges or size have been changed 
+	 * since the last call. Areas sharing global axis ranges depend on each other, 
+	 * so all of them are recalculated when any has been changed.
+	 */
 	public void recalc()
 	{
-		// set local maxmin x and y
+		boolean recalcAll = isCalcInputsChanged();
+		
+		fDirtyAreas.clear();
+		
 		for(Area a:fAreas)
 		{
-			if(a.isVisible())
-				a.calcAutoValues();
+			if(a.isVisible() && (recalcAll || a.isAutoValuesDirty()))
+				fDirtyAreas.add(a);
+		}
+		
+		if(fDirtyAreas.isEmpty()) return;
+		
+		if(!recalcAll && !fGlobalRanges.isEmpty())
+		{
+			fDirtyAreas.clear();
+			
+			for(Area a:fAreas)
+			{
+				if(a.isVisible())
+					fDirtyAreas.add(a);
+			}
 		}
+		
+		// set local maxmin x and y
+		for(Area a:fDirtyAreas)
+			a.calcAutoValues();
 
 		// set globals
 		calcGlobalValues();
 		
 		// set y again if global x changed 
+		for(Area a:fDirtyAreas)
+			a.calcYAutoValues();
+		
+		fDirtyAreas.clear();
+	}
+	
+	/**
+	 * Checks whether the set of visible areas or the global ranges have been changed 
+	 * since the last call, and saves the current state.
+	 */
+	private boolean isCalcInputsChanged()
+	{
+		boolean changed = fIsAutoValuesDirty;
+		
+		int count = 0;
+		
 		for(Area a:fAreas)
 		{
-			if(a.isVisible())
-				a.calcYAutoValues();
+			if(!a.isVisible()) continue;
+			
+			if(count == fCalcAreas.size())
+			{
+				fCalcAreas.add(a);
+				changed = true;
+			}
+			else if(fCalcAreas.get(count) != a)
+			{
+				fCalcAreas.set(count, a);
+				changed = true;
+			}
+			
+			count++;
+		}
+		
+		if(count != fCalcAreas.size())
+		{
+			fCalcAreas.subList(count, fCalcAreas.size()).clear();
+			changed = true;
+		}
+		
+		for(Entry<Axis.Side, AxisRange> i:fGlobalRanges.entrySet())
+		{
+			int side = i.getKey().ordinal();
+			int version = i.getValue().getVersion();
+			
+			if(fCalcGlobalRangeVersions[side] != version)
+			{
+				fCalcGlobalRangeVersions[side] = version;
+				changed = true;
+			}
 		}
+		
+		fIsAutoValuesDirty = false;
+		
+		return changed;
 	}
 	
 	private void doEditMode()
@@ -842,6 +1189,7 @@ public class StockChartView extends View
 		BarSeries volume = new BarSeries();
 		volume.setName("volume");
 		volume.setYAxisSide(Side.LEFT);
+		volume.setVolume(true);
 		
 		Area a = this.addArea();
 		a.getLeftAxis().setVisible(false);
@@ -883,133 +1231,32 @@ public class StockChartView extends View
 		{
 			if(!a.isVisible()) continue;
 			
-			if(a.getAbsoluteBounds().contains(x, y))
-			{				
-				if(a.getPlot().getAbsoluteBounds().contains(x,y))
+			a.getAbsoluteBounds(fHitBounds);
+			
+			if(fHitBounds.contains(x, y))
+			{
+				a.getPlot().getAbsoluteBounds(fHitBounds);
+				
+				if(fHitBounds.contains(x,y))
 				{					
 					info.element = a.getPlot();
-					SeriesPaintInfo pinfo = new SeriesPaintInfo();
-					RectF rectF = new RectF();
+					
+					float relX = x - fHitBounds.left;
+					float relY = y - fHitBounds.top;
 
 					if(HIT_TEST_STICKERS == (hitTestOptions & HIT_TEST_STICKERS))
-					{
-						final float r = AbstractSticker.RADIUS;
-						
-						PointF rel = a.getPlot().getRelativePosition(x, y);
-						
-						for(AbstractSticker s: a.getStickers())
-						{
-							pinfo.loadFrom(a.getAxis(s.getHorizontalAxis()),
-									a.getAxis(s.getVerticalAxis()));
-						
-							double midX = s.getMidX();
-							double midY = s.getMidY();
-							
-							// mid point
-							rectF.set(pinfo.getX(midX) - r,
-									  pinfo.getY(midY) - r,
-									  pinfo.getX(midX) + r,
-									  pinfo.getY(midY) + r);
-							
-							if(rectF.contains(rel.x,rel.y))
-							{
-								info.stickerInfo = new StickerInfo(a,s);
-								info.stickerInfo.stickerPoint = STICKER_MID_POINT;
-								break;
-							}
-							
-							// first point
-							rectF.set(pinfo.getX(s.getX1()) - r,
-									  pinfo.getY(s.getY1()) - r,
-									  pinfo.getX(s.getX1()) + r,
-									  pinfo.getY(s.getY1()) + r
-									  );
-							
-							if(rectF.contains(rel.x,rel.y))
-							{
-								info.stickerInfo = new StickerInfo(a,s);
-								info.stickerInfo.stickerPoint = STICKER_FIRST_POINT;
-								break;
-							}
-							
-							// second point
-							rectF.set(pinfo.getX(s.getX2()) - r,
-									  pinfo.getY(s.getY2()) - r,
-									  pinfo.getX(s.getX2()) + r,
-									  pinfo.getY(s.getY2()) + r
-									  );
-							
-							if(rectF.contains(rel.x,rel.y))
-							{
-								info.stickerInfo = new StickerInfo(a,s);
-								info.stickerInfo.stickerPoint = STICKER_SECOND_POINT;
-								break;
-							}
-						}
-					}
+						hitTestStickers(info, a, relX, relY);
 					
 					if(HIT_TEST_SERIES == (hitTestOptions & HIT_TEST_SERIES))
-					{
-						
-						for(SeriesBase s: a.getSeries())
-						{				
-							AbstractSeries<?> as = (AbstractSeries<?>)s;
-
-							pinfo.loadFrom(a.getAxis(as.getXAxisSide()), a.getAxis(as.getYAxisSide()));
-
-							if(!as.isVisibleOnScreen(pinfo.X.Max, pinfo.X.Min)) continue;
-
-							int index = as.convertToArrayIndexZeroBased(pinfo.X.Min);
-
-							for(int i=index;i<as.getPointCount();i++)
-							{							
-								AbstractPoint ap = as.getPointAt(i);		
-
-								float scaleIndex = as.convertToScaleIndex(i);
-
-								if(ap.isVisible())
-								{							
-									double[] maxMin = ap.getMaxMin();
-									float x1 = pinfo.getX(scaleIndex - 0.5f) + 1f;
-									float x2 = pinfo.getX(scaleIndex + 0.5f) - 1f;
-
-									float max = pinfo.getY(maxMin[0]);
-									float min = pinfo.getY(maxMin[1]);
-
-									if(maxMin[0] == maxMin[1])
-									{
-										float d = (x2-x1)/2f; 
-										max -= d;
-										min += d;
-									}
-
-
-									PointF p = a.getPlot().getAbsolutePosition(x1,max);								
-									rectF.set(p.x, p.y, p.x + (x2-x1), p.y + (min-max));
-
-									if(rectF.contains(x, y))
-									{
-										if(null == info.points)
-											info.points =  new TreeMap<String,AbstractPoint>();
-										
-										info.points.put(s.getName(), ap);
-										break;
-									}
-
-								}
-
-								if(scaleIndex > pinfo.X.Max)
-									break;
-							}
-						}
-					}
-						
+						hitTestSeries(info, a, relX, relY);
 				}
 				else
 				{
 					for(Axis axis : a.getAxes())
 					{
-						if(axis.getAbsoluteBounds().contains(x,y))
+						axis.getAbsoluteBounds(fHitBounds);
+						
+						if(fHitBounds.contains(x,y))
 						{
 							info.element = axis;
 							break;
@@ -1025,6 +1272,109 @@ public class StockChartView extends View
 		}
 	}
 	
+	/**
+	 * Finds the sticker handle by the grid of the area, the grid is rebuilt 
+	 * once the chart has been invalidated or resized.
+	 */
+	private void hitTestStickers(HitTestInfo info, Area a, float relX, float relY)
+	{
+		StickerHitIndex index = a.getStickerHitIndex();
+		
+		if(!index.isBuilt(a, fHitTestStamp))
+			index.build(a, fHitTestStamp);
+		
+		int handle = index.hitTest(relX, relY);
+		
+		if(handle < 0) return;
+		
+		info.stickerInfo = new StickerInfo(a,index.getSticker(handle));
+		
+		switch(index.getStickerPoint(handle))
+		{
+		case StickerHitIndex.MID_POINT:
+			info.stickerInfo.stickerPoint = STICKER_MID_POINT;
+			break;
+		case StickerHitIndex.FIRST_POINT:
+			info.stickerInfo.stickerPoint = STICKER_FIRST_POINT;
+			break;
+		default:
+			info.stickerInfo.stickerPoint = STICKER_SECOND_POINT;
+			break;
+		}
+	}
+	
+	/**
+	 * Finds the points under the coordinates. Points don't overlap horizontally, 
+	 * so the only candidate of the series is found from the scale value of the coordinate
+	 * (by binary search if the series has sparse positions).
+	 */
+	private void hitTestSeries(HitTestInfo info, Area a, float relX, float relY)
+	{
+		SeriesPaintInfo pinfo = fHitPaintInfo;
+		
+		for(SeriesBase s: a.getSeries())
+		{				
+			AbstractSeries<?> as = (AbstractSeries<?>)s;
+
+			pinfo.loadFrom(a.getAxis(as.getXAxisSide()), a.getAxis(as.getYAxisSide()));
+
+			if(!as.isVisibleOnScreen(pinfo.X.Max, pinfo.X.Min)) continue;
+			
+			// zoomed out series are hit tested by the aggregated bucket of the pixel column,
+			// the point is created only if the bucket is hit
+			int bucket = as.aggregateBucketAt(pinfo, relX, fHitMaxMin);
+			
+			if(bucket >= 0)
+			{
+				float max = pinfo.getY(fHitMaxMin[0]) - 1f;
+				float min = pinfo.getY(fHitMaxMin[1]) + 1f;
+				
+				if(relY >= max && relY <= min)
+					addHitPoint(info, s, as.createBucketPoint(bucket));
+				
+				continue;
+			}
+
+			int i = as.convertToArrayIndex(pinfo.X.getValue(relX));
+			
+			if(i < 0 || i >= as.getPointCount() || !as.isPointVisible(i)) continue;
+			
+			double scaleIndex = as.getScalePosition(i);
+			
+			double maxValue = as.getMaxValueAt(i);
+			double minValue = as.getMinValueAt(i);
+			float x1 = pinfo.getX(scaleIndex - 0.5) + 1f;
+			float x2 = pinfo.getX(scaleIndex + 0.5) - 1f;
+
+			float max = pinfo.getY(maxValue);
+			float min = pinfo.getY(minValue);
+
+			if(maxValue == minValue)
+			{
+				float d = (x2-x1)/2f; 
+				max -= d;
+				min += d;
+			}
+
+			fHitRectF.set(x1, max, x2, min);
+
+			if(fHitRectF.contains(relX, relY))
+				addHitPoint(info, s, as.getPointAt(i));
+		}
+	}
+	
+	private static void addHitPoint(HitTestInfo info, SeriesBase s, AbstractPoint p)
+	{
+		if(null == info.points)
+			info.points =  new TreeMap<String,AbstractPoint>();
+		
+		info.points.put(s.getName(), p);
+	}
+	
+	/**
+	 * Positions the areas. Areas whose bounds and margins haven't been changed 
+	 * since the last call keep their layout.
+	 */
 	public void resetPositions()
 	{
 		float y = 0f;
@@ -1040,23 +1390,21 @@ public class StockChartView extends View
 			
 			float height = a.isAutoHeight()? pxAutoHeight : a.getHeightInPercents() * pxHeight;
 			
-			RectF rect = new RectF(0,y,pxWidth,y+height);
-
 			a.setGlobalMargins(lr[0], lr[1]);
 			
-			a.setBounds(0f, rect.top, rect.width(), rect.height());
+			a.layout(0f, y, pxWidth, height);
 			
 			y+=height;
 		}
 	}
 
-	private void drawAreas(Canvas c)
+	private void drawAreas(Canvas c,Layer layer)
 	{		
 		for(Area a: fAreas)
 		{
 			if(!a.isVisible()) continue;
 			
-			a.draw(c,fCustomObjects);
+			a.draw(c,fCustomObjects,layer);
 		}
 	}
 
@@ -19,6 +19,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.stockchart.utils.SizeF;
 
+import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.DashPathEffect;
 import android.graphics.LinearGradient;
@@ -173,6 +174,38 @@ public class Appearance
 
 	}
 	
+	/**
+	 * Single-entry gradient cache, the shader is recreated only when its key changes.
+	 */
+	private static class ShaderCache
+	{
+		private LinearGradient fShader = null;
+		
+		private float fX0;
+		private float fY0;
+		private float fX1;
+		private float fY1;
+		private int fColor0;
+		private int fColor1;
+		
+		public LinearGradient get(float x0,float y0,float x1,float y1,int color0,int color1)
+		{
+			if(null == fShader || x0 != fX0 || y0 != fY0 || x1 != fX1 || y1 != fY1 || color0 != fColor0 || color1 != fColor1)
+			{
+				fShader = new LinearGradient(x0,y0,x1,y1,color0,color1,TileMode.MIRROR);
+				
+				fX0 = x0;
+				fY0 = y0;
+				fX1 = x1;
+				fY1 = y1;
+				fColor0 = color0;
+				fColor1 = color1;
+			}
+			
+			return fShader;
+		}
+	}
+	
 	private int fPrimaryFillColor = Color.WHITE;
 	private int fSecondaryFillColor = Color.WHITE;
 	
@@ -188,6 +221,11 @@ public class Appearance
 	
 	private static final Rect fTempRect = new Rect();
 	
+	private final RectF fTempRectF = new RectF();
+	
+	private final ShaderCache fShaderCache = new ShaderCache();
+	private final ShaderCache fUnitShaderCache = new ShaderCache();
+	
 	public void fill(Appearance a)
 	{
 		if(null == a) return;
@@ -339,10 +377,73 @@ public class Appearance
 	
 	public void applyFill(Paint p,Rect rect)
 	{
-		this.applyFill(p, new RectF(rect));
+		fTempRectF.set(rect);
+		this.applyFill(p, fTempRectF);
 	}
 	
+	/**
+	 * Sets fill parameters of the paint. The gradient shader is cached by bounds and colors,
+	 * so filling the same rectangle every frame doesn't create new shaders.
+	 */
 	public void applyFill(Paint p,RectF rect)
+	{
+		applyFill(p, rect, fShaderCache);
+	}
+	
+	/**
+	 * Fills the rectangle. Looks the same as <code>applyFill</code> followed by <code>drawRect</code>, 
+	 * but the gradient shader is shared by rectangles of any bounds: the unit square is 
+	 * filled on the translated and scaled canvas. Use it when many rectangles are filled per frame.
+	 */
+	public void fillRect(Canvas c,Paint p,RectF rect)
+	{
+		if(Gradient.NONE == fGradient)
+		{
+			applyFill(p, rect);
+			c.drawRect(rect, p);
+			
+			return;
+		}
+		
+		applyUnitFill(p);
+		
+		c.save();
+		c.translate(rect.left, rect.top);
+		c.scale(rect.width(), rect.height());
+		c.drawRect(0f, 0f, 1f, 1f, p);
+		c.restore();
+	}
+	
+	/**
+	 * Fills the circle sharing the gradient shader the same way {@link #fillRect(Canvas, Paint, RectF)} does.
+	 */
+	public void fillCircle(Canvas c,Paint p,float x,float y,float r)
+	{
+		if(Gradient.NONE == fGradient)
+		{
+			fTempRectF.set(x - r, y - r, x + r, y + r);
+			applyFill(p, fTempRectF);
+			c.drawCircle(x, y, r, p);
+			
+			return;
+		}
+		
+		applyUnitFill(p);
+		
+		c.save();
+		c.translate(x - r, y - r);
+		c.scale(2f*r, 2f*r);
+		c.drawCircle(0.5f, 0.5f, 0.5f, p);
+		c.restore();
+	}
+	
+	private void applyUnitFill(Paint p)
+	{
+		fTempRectF.set(0f, 0f, 1f, 1f);
+		applyFill(p, fTempRectF, fUnitShaderCache);
+	}
+	
+	private void applyFill(Paint p,RectF rect,ShaderCache cache)
 	{
 		p.reset();
 		p.setStyle(Style.FILL);
@@ -351,15 +452,11 @@ public class Appearance
 		switch(fGradient)
 		{
 		case LINEAR_HORIZONTAL:
-			{
-				p.setShader(new LinearGradient(rect.left,rect.top,rect.right,rect.top,fPrimaryFillColor,fSecondaryFillColor,TileMode.MIRROR));			
-			}
+			p.setShader(cache.get(rect.left,rect.top,rect.right,rect.top,fPrimaryFillColor,fSecondaryFillColor));
 			break;
 			
 		case LINEAR_VERTICAL:
-			{
-				p.setShader(new LinearGradient(rect.left,rect.top,rect.left,rect.bottom,fPrimaryFillColor,fSecondaryFillColor,TileMode.MIRROR));			
-			}
+			p.setShader(cache.get(rect.left,rect.top,rect.left,rect.bottom,fPrimaryFillColor,fSecondaryFillColor));
 			break;
 		default:
 			p.setShader(null);
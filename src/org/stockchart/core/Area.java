@@ -25,6 +25,7 @@ import org.stockchart.core.Axis.Side;
 import org.stockchart.series.SeriesBase;
 import org.stockchart.stickers.AbstractSticker;
 import org.stockchart.utils.CustomObjects;
+import org.stockchart.utils.DrawingCache.Layer;
 import org.stockchart.utils.PaintUtils;
 import org.stockchart.utils.Reflection;
 
@@ -36,7 +37,7 @@ public class Area extends ChartElement
 {
 	private final ArrayList<SeriesBase> fSeries = new ArrayList<SeriesBase>();
 	private final ArrayList<Line> fLines = new ArrayList<Line>();
-	private final ArrayList<AbstractSticker> fStickers = new ArrayList<AbstractSticker>();
+	private final StickerList fStickers = new StickerList();
 	
 	private final Axis[] fAxes;
 	
@@ -53,8 +54,12 @@ public class Area extends ChartElement
 	private float fHeightInPercents = 0;
 							
 	private final Plot fPlot = new Plot(this);
+	
+	private final PaintInfo fXPaintInfo = new PaintInfo();
 	private final Legend fLegend = new Legend(this);
 	
+	private final StickerHitIndex fStickerHitIndex = new StickerHitIndex();
+	
 	private String fTitle = "";
 	
 	private String fName;
@@ -65,6 +70,25 @@ public class Area extends ChartElement
 	private float fGlobalRightMargin = 0f;
 
 	private boolean fVisible = true;
+	
+	// inputs of the last auto values calculation
+	private boolean fIsAutoValuesDirty = true;
+	private final ArrayList<SeriesBase> fCalcSeries = new ArrayList<SeriesBase>();
+	private int[] fCalcSeriesVersions = new int[0];
+	private int[] fCalcPointCounts = new int[0];
+	private final int[] fCalcRangeVersions = new int[4];
+	private float fCalcPlotWidth = Float.NaN;
+	private float fCalcPlotHeight = Float.NaN;
+	
+	// inputs of the last layout
+	private boolean fIsLayoutDirty = true;
+	private final RectF fLayoutMargins = new RectF();
+	private final RectF fLayoutLegendSize = new RectF();
+	private Axis.Side fLayoutLegendSide;
+	private float fLayoutGlobalLeftMargin;
+	private float fLayoutGlobalRightMargin;
+	
+	private final RectF fTempMargins = new RectF();
 
 	public Area()
 	{
@@ -116,6 +140,20 @@ public class Area extends ChartElement
 		return fStickers;
 	}
 	
+	public StickerHitIndex getStickerHitIndex()
+	{
+		return fStickerHitIndex;
+	}
+	
+	/**
+	 * Gets the number of additions and removals of the stickers, 
+	 * used by the hit index to notice them without the chart being invalidated.
+	 */
+	public int getStickersVersion()
+	{
+		return fStickers.getVersion();
+	}
+	
 	public Appearance getAppearance()
 	{
 		return fAreaAppearance;	
@@ -147,6 +185,8 @@ public class Area extends ChartElement
 		fVerticalGridVisible = j.getBoolean("verticalGridVisible");
 		fVerticalGridAxisSide = Axis.Side.valueOf(j.getString("verticalGridAxis"));
 		fHorizontalGridAxisSide = Axis.Side.valueOf(j.getString("horizontalGridAxis"));
+		fIsAutoValuesDirty = true;
+		fIsLayoutDirty = true;
 		fAreaAppearance.fromJSONObject(j.getJSONObject("areaAppearance"));
 		fPlot.getAppearance().fromJSONObject(j.getJSONObject("plotAppearance"));
 		fLegend.fromJSONObject(j.getJSONObject("legend"));
@@ -433,7 +473,7 @@ public class Area extends ChartElement
 			
 			if(xAxis.getAxisRange().isAuto())
 			{
-				xAxis.getAxisRange().expandAutoValues(s.getLastScaleIndex()+1,s.getFirstScaleIndex()-1);
+				xAxis.getAxisRange().expandAutoValues(s.getScalePosition(s.getPointCount() - 1)+1,s.getScalePosition(0)-1);
 			}			
 		}			
 	}
@@ -449,7 +489,9 @@ public class Area extends ChartElement
 			
 			if(yAxis.getAxisRange().isAuto())
 			{
-				double maxMin[] = s.getMaxMinPrice(xAxis.getAxisRangeOrGlobalAxisRange().getMaxViewValueOrAutoValue(), xAxis.getAxisRangeOrGlobalAxisRange().getMinViewValueOrAutoValue());
+				fXPaintInfo.loadFrom(xAxis);
+				
+				double maxMin[] = s.getMaxMinPrice(fXPaintInfo);
 				
 				if(null != maxMin)
 				{
@@ -471,12 +513,122 @@ public class Area extends ChartElement
 		resetAutoValues();
 		calcXAutoValues();
 		calcYAutoValues();
+		
+		saveAutoValuesInputs();
+	}
+	
+	/**
+	 * Checks whether the series, the axis ranges or the size of the plot have been changed 
+	 * since the last call of {@link #calcAutoValues()}.
+	 */
+	public boolean isAutoValuesDirty()
+	{
+		if(fIsAutoValuesDirty || fSeries.size() != fCalcSeries.size()) return true;
+		
+		for(int i=0;i<fSeries.size();i++)
+		{
+			SeriesBase s = fSeries.get(i);
+			
+			if(s != fCalcSeries.get(i) || 
+			   s.getVersion() != fCalcSeriesVersions[i] || 
+			   s.getPointCount() != fCalcPointCounts[i]) 
+				return true;
+		}
+		
+		for(int i=0;i<fAxes.length;i++)
+		{
+			if(fAxes[i].getAxisRange().getVersion() != fCalcRangeVersions[i]) return true;
+		}
+		
+		// the auto values of aggregating series depend on the number of pixels
+		return fPlot.width() != fCalcPlotWidth || fPlot.height() != fCalcPlotHeight;
+	}
+	
+	/**
+	 * Forces the calculation of the auto values, i.e. after the points 
+	 * have been changed without notifying the series
+	 */
+	public void invalidateAutoValues()
+	{
+		fIsAutoValuesDirty = true;
+	}
+	
+	private void saveAutoValuesInputs()
+	{
+		int count = fSeries.size();
+		
+		if(fCalcSeriesVersions.length < count)
+		{
+			fCalcSeriesVersions = new int[count];
+			fCalcPointCounts = new int[count];
+		}
+		
+		fCalcSeries.clear();
+		fCalcSeries.addAll(fSeries);
+		
+		for(int i=0;i<count;i++)
+		{
+			SeriesBase s = fSeries.get(i);
+			
+			fCalcSeriesVersions[i] = s.getVersion();
+			fCalcPointCounts[i] = s.getPointCount();
+		}
+		
+		for(int i=0;i<fAxes.length;i++)
+			fCalcRangeVersions[i] = fAxes[i].getAxisRange().getVersion();
+		
+		fCalcPlotWidth = fPlot.width();
+		fCalcPlotHeight = fPlot.height();
+		
+		fIsAutoValuesDirty = false;
+	}
+	
+	/**
+	 * Sets the bounds of the area and positions its elements. Does nothing if the bounds, 
+	 * the sizes of the axes and the legend are the same as at the last layout.
+	 * 
+	 * @return <code>true</code> if the elements have been positioned
+	 */
+	public boolean layout(float relX,float relY,float width,float height)
+	{
+		RectF b = getBounds();
+		
+		if(!fIsLayoutDirty && 
+		   b.left == relX && b.top == relY && b.width() == width && b.height() == height &&
+		   fLayoutGlobalLeftMargin == fGlobalLeftMargin && fLayoutGlobalRightMargin == fGlobalRightMargin &&
+		   fLayoutLegendSide == fLegend.getSide())
+		{
+			RectF legendSize = getSideMargins(fTempMargins);
+			
+			if(isSame(fTempMargins, fLayoutMargins) && (null == legendSize || isSame(legendSize, fLayoutLegendSize)))
+				return false;
+		}
+		
+		setBounds(relX, relY, width, height);
+		
+		return true;
+	}
+	
+	private static boolean isSame(RectF a,RectF b)
+	{
+		// RectF doesn't override equals() on older platforms
+		return a.left == b.left && a.top == b.top && a.right == b.right && a.bottom == b.bottom;
 	}
 	
 	public RectF getSideMargins()
 	{
 		RectF r = new RectF();
 		
+		getSideMargins(r);
+		
+		return r;
+	}
+	
+	/**
+	 * @return size of the legend or <code>null</code> if it is invisible
+	 */
+	private RectF getSideMargins(RectF r)
+	{
 		r.left = getLeftAxis().getSize(0f);
 		r.right = getRightAxis().getSize(0f);
 		r.top = getTopAxis().getSize(0f);
@@ -502,14 +654,23 @@ public class Area extends ChartElement
 				break;
 			
 			}
+			
+			return size;
 		}
 		
-		return r;
+		return null;
 	}
 	
 
 	private void drawEverything(Canvas c,CustomObjects customObjects)
 	{		
+		drawAxes(c);
+		
+		fPlot.draw(c,customObjects);	
+	}
+	
+	private void drawAxes(Canvas c)
+	{
 		this.Paint().reset();
 		
 		if(fLegend.isVisible())
@@ -540,8 +701,6 @@ public class Area extends ChartElement
 		{
 			getBottomAxis().drawSimple(c);
 		}
-		
-		fPlot.draw(c,customObjects);	
 	}
 
 	@Override
@@ -551,14 +710,38 @@ public class Area extends ChartElement
 		drawEverything(c, customObjects);
 	}
 	
+	@Override
+	protected void innerDraw(Canvas c,CustomObjects customObjects,Layer layer) 
+	{
+		switch(layer)
+		{
+		case BACKGROUND:
+			drawClear(c);
+			drawAxes(c);
+			break;
+		default:
+			break;
+		}
+		
+		fPlot.draw(c,customObjects,layer);
+	}
+	
 	@Override
 	protected void onBoundsChanged()
 	{
 		final RectF margins = this.getSideMargins();
+		
+		fLayoutMargins.set(margins);
+		fLayoutLegendSide = fLegend.getSide();
+		fLayoutGlobalLeftMargin = fGlobalLeftMargin;
+		fLayoutGlobalRightMargin = fGlobalRightMargin;
+		fIsLayoutDirty = false;
+		
 		margins.left = Math.max(fGlobalLeftMargin, margins.left);
 		margins.right = Math.max(fGlobalRightMargin, margins.right);
 		
 		final RectF legendSize = this.fLegend.getSize();
+		fLayoutLegendSize.set(legendSize);
 		
 		final float horizontalAxisWidth = getBounds().width() - (margins.left +  margins.right);
 		final float verticalAxisHeight = getBounds().height() - (margins.top +  margins.bottom);
@@ -592,4 +775,25 @@ public class Area extends ChartElement
 	{
 		PaintUtils.drawFullRect(c, this.Paint(), fAreaAppearance,c.getClipBounds());
 	}
+	
+	/**
+	 * The list counts its structural changes, replacing the sticker is counted as well.
+	 */
+	private static class StickerList extends ArrayList<AbstractSticker>
+	{
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public AbstractSticker set(int index, AbstractSticker s)
+		{
+			modCount++;
+			
+			return super.set(index, s);
+		}
+		
+		public int getVersion()
+		{
+			return modCount;
+		}
+	}
 }
@@ -47,6 +47,17 @@ public class AxisRange
 	private double fMinViewLength = Double.NaN;
 	private double fMaxViewLength = Double.NaN;
 	
+	private int fVersion = 0;
+	
+	/**
+	 * Gets the number of changes of the settings and view values of the range.
+	 * Auto values are the result of the calculation and don't change the version.
+	 */
+	public int getVersion()
+	{
+		return fVersion;
+	}
+	
 	/**
 	 *  Sets maximal and minimal view length
 	 *  
@@ -57,6 +68,7 @@ public class AxisRange
 	{
 		fMinViewLength = minViewLength;
 		fMaxViewLength = maxViewLength;
+		fVersion++;
 	}
 	
 	public double getMaxViewLength()
@@ -72,6 +84,7 @@ public class AxisRange
 	public void setMargin(float f)
 	{
 		fMargin = f;
+		fVersion++;
 	}
 	
 	public float getMargin()
@@ -132,6 +145,7 @@ public class AxisRange
 		fIsZoomable = j.getBoolean("zoomable");
 		fIsMovable = j.getBoolean("movable");
 		fMargin = (float)j.getDouble("margin");
+		fVersion++;
 	}
 	
 	public boolean isZoomable()
@@ -156,8 +170,11 @@ public class AxisRange
 	
 	public void resetViewValues()
 	{
+		if(Double.isNaN(fMinViewValue) && Double.isNaN(fMaxViewValue)) return;
+		
 		fMinViewValue = Double.NaN;
 		fMaxViewValue = Double.NaN;
+		fVersion++;
 	}
 	
 	public void resetAutoValues()
@@ -191,6 +208,7 @@ public class AxisRange
 	public void setAuto(boolean value)
 	{
 		fAuto = value;
+		fVersion++;
 	}
 	
 	public double getViewLength()
@@ -321,6 +339,7 @@ public class AxisRange
 	{
 		fMinValue = minValue;
 		fMaxValue = maxValue;
+		fVersion++;
 	}
 	
 	public boolean expandViewValues(double maxValue,double minValue)
@@ -445,8 +464,12 @@ public class AxisRange
 				minValue = middle - d;
 			}
 			
-			fMinViewValue = minValue;
-			fMaxViewValue = maxValue;
+			if(0 != Double.compare(minValue, fMinViewValue) || 0 != Double.compare(maxValue, fMaxViewValue))
+			{
+				fMinViewValue = minValue;
+				fMaxViewValue = maxValue;
+				fVersion++;
+			}
 		}
 		
 		return true;
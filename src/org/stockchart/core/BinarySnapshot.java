@@ -0,0 +1,396 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Date;
+
+import org.json.JSONException;
+import org.stockchart.StockChartView;
+import org.stockchart.points.MappedPointColumns;
+import org.stockchart.points.PointColumns;
+import org.stockchart.series.AbstractSeries;
+import org.stockchart.series.SeriesBase;
+
+/**
+ * Binary snapshot of the chart: the layout as saved by {@link StockChartView#save()} 
+ * followed by the points of every series, including Dst... series of the indicators.
+ * Points of the memory-mapped series are not copied, the layout keeps the path to their files.
+ * <p>
+ * All numbers are little-endian. The snapshot starts with the header 
+ * (magic number, version, layout string), then for every series goes its name, 
+ * values count, points count, IDs type and flags (hidden points, positions) followed 
+ * by the blocks of raw doubles, one per value column, then point IDs, visibility 
+ * and positions if present. Version 1 snapshots have no positions.
+ * Blocks are transferred through a direct buffer with bulk copies, value columns are read 
+ * from the storage in chunks, so the storage doesn't need to keep them in arrays.
+ */
+public class BinarySnapshot 
+{
+	public static final int VERSION = 2;
+	
+	// "SCSN"
+	private static final int MAGIC = 0x4E534353;
+	
+	private static final int BUFFER_SIZE = 64*1024;
+	
+	private static final byte FLAG_HIDDEN = 1;
+	private static final byte FLAG_POSITIONS = 2;
+	
+	private static final byte IDS_NONE = 0;
+	private static final byte IDS_DATE = 1;
+	
+	private static final long NULL_DATE = Long.MIN_VALUE;
+	
+	private static final String CHARSET = "UTF-8";
+	
+	private final StockChartView fView;
+	private final ByteBuffer fBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+	private final double[] fChunk = new double[BUFFER_SIZE >> 3];
+	
+	private FileChannel fChannel;
+	
+	public BinarySnapshot(StockChartView view)
+	{
+		fView = view;
+	}
+	
+	/**
+	 * Writes the snapshot at the current position of the channel.
+	 */
+	public void save(FileChannel channel) throws IOException, JSONException
+	{
+		fChannel = channel;
+		fBuffer.clear();
+		
+		putInt(MAGIC);
+		putInt(VERSION);
+		putString(fView.save());
+		
+		ArrayList<AbstractSeries<?>> series = new ArrayList<AbstractSeries<?>>();
+		
+		for(Area a: fView.getAreas())
+		{
+			for(SeriesBase s: a.getSeries())
+			{
+				// mapped series are reopened by the layout
+				if(s instanceof AbstractSeries && !(((AbstractSeries<?>)s).getColumns() instanceof MappedPointColumns))
+					series.add((AbstractSeries<?>)s);
+			}
+		}
+		
+		putInt(series.size());
+		
+		for(AbstractSeries<?> s: series)
+			putSeries(s);
+		
+		flush();
+	}
+	
+	/**
+	 * Replaces the chart with the snapshot read from the current position of the channel.
+	 * Indicators are not recalculated, their Dst... series are restored from the snapshot. 
+	 */
+	public void load(FileChannel channel) throws IOException, JSONException
+	{
+		fChannel = channel;
+		fBuffer.clear();
+		fBuffer.flip();
+		
+		if(MAGIC != getInt())
+			throw new IOException("Not a chart snapshot");
+		
+		int version = getInt();
+		
+		if(version > VERSION)
+			throw new IOException("Unsupported snapshot version: "+version);
+		
+		fView.load(getString());
+		
+		int count = getInt();
+		
+		for(int i=0;i<count;i++)
+		{
+			String name = getString();
+			SeriesBase s = fView.findSeriesByName(name);
+			
+			if(!(s instanceof AbstractSeries))
+				throw new IOException("Series not found: "+name);
+			
+			getSeries((AbstractSeries<?>)s);
+		}
+	}
+	
+	private void putSeries(AbstractSeries<?> s) throws IOException
+	{
+		PointColumns columns = s.getColumns();
+		int size = columns.size();
+		
+		byte ids = IDS_NONE;
+		
+		for(int i=0;i<size;i++)
+		{
+			if(PointColumns.NO_TIME != columns.getTime(i))
+			{
+				ids = IDS_DATE;
+				continue;
+			}
+			
+			Object id = columns.getID(i);
+			
+			if(null == id) continue;
+			
+			if(!(id instanceof Date))
+				throw new IOException("Unsupported ID of "+s.getName()+": "+id.getClass().getName());
+			
+			ids = IDS_DATE;
+		}
+		
+		putString(s.getName());
+		putInt(columns.getValuesCount());
+		putInt(size);
+		putByte(ids);
+		putByte((byte)((columns.hasHiddenPoints()?FLAG_HIDDEN:0) | (columns.hasPositions()?FLAG_POSITIONS:0)));
+		
+		for(int vi=0;vi<columns.getValuesCount();vi++)
+			putColumn(columns, vi, size);
+		
+		if(IDS_DATE == ids)
+		{
+			for(int i=0;i<size;i++)
+			{
+				long time = columns.getTime(i);
+				
+				require(8);
+				fBuffer.putLong(PointColumns.NO_TIME == time?NULL_DATE:time);
+			}
+		}
+		
+		if(columns.hasHiddenPoints())
+		{
+			for(int i=0;i<size;i++)
+				putByte(columns.isVisible(i)?(byte)0:(byte)1);
+		}
+		
+		if(columns.hasPositions())
+			putDoubles(columns.getPositionColumn(), size);
+	}
+	
+	private void getSeries(AbstractSeries<?> s) throws IOException
+	{
+		PointColumns columns = s.getColumns();
+		
+		int valuesCount = getInt();
+		
+		if(valuesCount != columns.getValuesCount())
+			throw new IOException("Series "+s.getName()+" has "+columns.getValuesCount()+" values, got "+valuesCount);
+		
+		int size = getInt();
+		byte ids = getByte();
+		byte flags = getByte();
+		
+		columns.reset(size);
+		
+		for(int vi=0;vi<valuesCount;vi++)
+			getDoubles(columns.getColumn(vi), size);
+		
+		if(IDS_DATE == ids)
+		{
+			for(int i=0;i<size;i++)
+			{
+				available(8);
+				long time = fBuffer.getLong();
+				
+				if(NULL_DATE != time)
+					columns.setID(i, new Date(time));
+			}
+		}
+		else if(IDS_NONE != ids)
+			throw new IOException("Unsupported IDs type: "+ids);
+		
+		if(0 != (flags & FLAG_HIDDEN))
+		{
+			for(int i=0;i<size;i++)
+			{
+				if(0 != getByte())
+					columns.setVisible(i, false);
+			}
+		}
+		
+		if(0 != (flags & FLAG_POSITIONS))
+			getDoubles(columns.getPositionColumn(), size);
+	}
+	
+	private void putDoubles(double[] values,int count) throws IOException
+	{
+		int i = 0;
+		
+		while(i < count)
+		{
+			require(8);
+			
+			int n = Math.min(count - i, fBuffer.remaining() >> 3);
+			
+			fBuffer.asDoubleBuffer().put(values, i, n);
+			fBuffer.position(fBuffer.position() + (n << 3));
+			
+			i += n;
+		}
+	}
+	
+	private void putColumn(PointColumns columns,int valueIndex,int count) throws IOException
+	{
+		int i = 0;
+		
+		while(i < count)
+		{
+			int n = Math.min(count - i, fChunk.length);
+			
+			columns.copyColumn(valueIndex, i, i + n, fChunk, 0);
+			putDoubles(fChunk, n);
+			
+			i += n;
+		}
+	}
+	
+	private void getDoubles(double[] values,int count) throws IOException
+	{
+		int i = 0;
+		
+		while(i < count)
+		{
+			available(8);
+			
+			int n = Math.min(count - i, fBuffer.remaining() >> 3);
+			
+			fBuffer.asDoubleBuffer().get(values, i, n);
+			fBuffer.position(fBuffer.position() + (n << 3));
+			
+			i += n;
+		}
+	}
+	
+	private void putString(String s) throws IOException
+	{
+		byte[] bytes = s.getBytes(CHARSET);
+		
+		putInt(bytes.length);
+		
+		int i = 0;
+		
+		while(i < bytes.length)
+		{
+			require(1);
+			
+			int n = Math.min(bytes.length - i, fBuffer.remaining());
+			
+			fBuffer.put(bytes, i, n);
+			i += n;
+		}
+	}
+	
+	private String getString() throws IOException
+	{
+		int length = getInt();
+		
+		if(length < 0)
+			throw new IOException("Corrupted snapshot");
+		
+		byte[] bytes = new byte[length];
+		
+		int i = 0;
+		
+		while(i < length)
+		{
+			available(1);
+			
+			int n = Math.min(length - i, fBuffer.remaining());
+			
+			fBuffer.get(bytes, i, n);
+			i += n;
+		}
+		
+		return new String(bytes, CHARSET);
+	}
+	
+	private void putInt(int v) throws IOException
+	{
+		require(4);
+		fBuffer.putInt(v);
+	}
+	
+	private int getInt() throws IOException
+	{
+		available(4);
+		
+		return fBuffer.getInt();
+	}
+	
+	private void putByte(byte v) throws IOException
+	{
+		require(1);
+		fBuffer.put(v);
+	}
+	
+	private byte getByte() throws IOException
+	{
+		available(1);
+		
+		return fBuffer.get();
+	}
+	
+	/**
+	 * Makes room for <code>count</code> bytes in the write buffer.
+	 */
+	private void require(int count) throws IOException
+	{
+		if(fBuffer.remaining() < count)
+			flush();
+	}
+	
+	private void flush() throws IOException
+	{
+		fBuffer.flip();
+		
+		while(fBuffer.hasRemaining())
+			fChannel.write(fBuffer);
+		
+		fBuffer.clear();
+	}
+	
+	/**
+	 * Reads the channel until at least <code>count</code> bytes are available in the read buffer.
+	 */
+	private void available(int count) throws IOException
+	{
+		if(fBuffer.remaining() >= count) return;
+		
+		fBuffer.compact();
+		
+		while(fBuffer.position() < count)
+		{
+			if(fChannel.read(fBuffer) < 0)
+				throw new EOFException("Unexpected end of the snapshot");
+		}
+		
+		fBuffer.flip();
+	}
+}
@@ -16,6 +16,7 @@
 package org.stockchart.core;
 
 import org.stockchart.utils.CustomObjects;
+import org.stockchart.utils.DrawingCache.Layer;
 
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -59,6 +60,18 @@ public abstract class ChartElement
 	
 
 	
+	/**
+	 * Draws the part of the element which belongs to the given layer
+	 */
+	public void draw(Canvas c,CustomObjects customObjects,Layer layer)
+	{
+		preDraw(c);
+		
+		innerDraw(c,customObjects,layer);
+		
+		postDraw(c);
+	}
+	
 	private void preDraw(Canvas c)
 	{
 		c.save();
@@ -75,6 +88,14 @@ public abstract class ChartElement
 	
 	protected abstract void innerDraw(Canvas c,CustomObjects customObjects);
 	
+	/**
+	 * Elements spread over several layers override it, the others are drawn entirely
+	 */
+	protected void innerDraw(Canvas c,CustomObjects customObjects,Layer layer)
+	{
+		innerDraw(c,customObjects);
+	}
+	
 	protected void onBoundsChanged() { }
 	
 	public ChartElement getParent()
@@ -133,6 +154,23 @@ public abstract class ChartElement
 		return new RectF(ap.x,ap.y,ap.x+fRectF.width(),ap.y+fRectF.height());		
 	}
 	
+	/**
+	 * Gets the absolute bounds without allocating
+	 */
+	public void getAbsoluteBounds(RectF result)
+	{
+		float x = 0f;
+		float y = 0f;
+		
+		for(ChartElement e = this;e != null;e = e.getParent())
+		{
+			x+=e.fRectF.left;
+			y+=e.fRectF.top;
+		}
+		
+		result.set(x, y, x + fRectF.width(), y + fRectF.height());
+	}
+	
 	public PointF getRelativePosition(float x,float y)
 	{
 		RectF ab = getAbsoluteBounds();
@@ -0,0 +1,252 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.stockchart.indicators.AbstractIndicator;
+import org.stockchart.series.SeriesBase;
+
+/**
+ * Dependency graph of the indicators.
+ * <p>
+ * An indicator depends on the indicator whose Dst... series is its source.
+ * Since every indicator has a single source the graph is a forest, indicators
+ * depending on the same indicator are independent branches. Indicators caught in
+ * a cycle are chained one after another in the order they were added.
+ */
+class IndicatorGraph
+{
+	public interface ITask
+	{
+		public void run(AbstractIndicator a);
+	}
+
+	public interface IListener
+	{
+		/**
+		 * Called on the thread which has finished the last task.
+		 *
+		 * @param error first error thrown by the tasks or <code>null</code>
+		 */
+		public void onFinished(Throwable error);
+	}
+
+	private final ArrayList<AbstractIndicator> fOrder = new ArrayList<AbstractIndicator>();
+	private final HashMap<AbstractIndicator,AbstractIndicator> fProducers = new HashMap<AbstractIndicator,AbstractIndicator>();
+	private final HashMap<AbstractIndicator,ArrayList<AbstractIndicator>> fConsumers = new HashMap<AbstractIndicator,ArrayList<AbstractIndicator>>();
+
+	public IndicatorGraph(List<AbstractIndicator> indicators)
+	{
+		HashMap<SeriesBase,AbstractIndicator> producers = new HashMap<SeriesBase,AbstractIndicator>();
+
+		for(AbstractIndicator a: indicators)
+		{
+			fConsumers.put(a, new ArrayList<AbstractIndicator>());
+
+			for(SeriesBase dst: a.getAllDst())
+				producers.put(dst, a);
+		}
+
+		// Kahn's algorithm, independent indicators keep the order they were added in
+		ArrayList<AbstractIndicator> ready = new ArrayList<AbstractIndicator>();
+
+		for(AbstractIndicator a: indicators)
+		{
+			AbstractIndicator p = producers.get(a.getSrc());
+
+			if(null == p || p == a)
+				ready.add(a);
+			else
+				fConsumers.get(p).add(a);
+		}
+
+		HashSet<AbstractIndicator> ordered = new HashSet<AbstractIndicator>();
+
+		for(int i=0;i<ready.size();i++)
+		{
+			AbstractIndicator a = ready.get(i);
+
+			fOrder.add(a);
+			ordered.add(a);
+
+			AbstractIndicator p = producers.get(a.getSrc());
+			fProducers.put(a, p == a?null:p);
+
+			ready.addAll(fConsumers.get(a));
+		}
+
+		AbstractIndicator previous = null;
+
+		for(AbstractIndicator a: indicators)
+		{
+			if(ordered.contains(a)) continue;
+
+			fOrder.add(a);
+
+			// the edges of the cycle are replaced with the chain
+			fConsumers.get(a).clear();
+			fProducers.put(a, previous);
+
+			if(null != previous)
+				fConsumers.get(previous).add(a);
+
+			previous = a;
+		}
+	}
+
+	/**
+	 * Gets all indicators in topological order, producers go before consumers.
+	 */
+	public ArrayList<AbstractIndicator> getOrder()
+	{
+		return fOrder;
+	}
+
+	/**
+	 * Gets the indicator whose Dst... series is the source of the given indicator.
+	 */
+	public AbstractIndicator getProducer(AbstractIndicator a)
+	{
+		return fProducers.get(a);
+	}
+
+	/**
+	 * Gets indicators calculated from the Dst... series of the given indicator.
+	 */
+	public ArrayList<AbstractIndicator> getConsumers(AbstractIndicator a)
+	{
+		return fConsumers.get(a);
+	}
+
+	/**
+	 * Gets indicators which must be recalculated after the series has been changed,
+	 * in topological order.
+	 *
+	 * @param changed changed series, <code>null</code> means all indicators
+	 */
+	public ArrayList<AbstractIndicator> getDownstream(SeriesBase changed)
+	{
+		if(null == changed)
+			return new ArrayList<AbstractIndicator>(fOrder);
+
+		HashSet<AbstractIndicator> affected = new HashSet<AbstractIndicator>();
+		ArrayList<AbstractIndicator> result = new ArrayList<AbstractIndicator>();
+
+		for(AbstractIndicator a: fOrder)
+		{
+			if(a.getSrc() == changed || affected.contains(fProducers.get(a)))
+			{
+				affected.add(a);
+				result.add(a);
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Runs the task for every indicator of the collection. An indicator is started
+	 * as soon as its producer is finished, so independent branches run concurrently.
+	 *
+	 * @param indicators indicators to run, producers which are not in the collection are considered finished
+	 * @param executor executor running the tasks, tasks rejected by the executor run on the submitting thread
+	 * @param task task to run
+	 * @param listener notified when all tasks are finished
+	 */
+	public void execute(Collection<AbstractIndicator> indicators, Executor executor, ITask task, IListener listener)
+	{
+		if(indicators.isEmpty())
+		{
+			listener.onFinished(null);
+			return;
+		}
+
+		Execution e = new Execution(indicators, executor, task, listener);
+
+		for(AbstractIndicator a: indicators)
+		{
+			if(!indicators.contains(fProducers.get(a)))
+				e.submit(a);
+		}
+	}
+
+	private class Execution
+	{
+		private final HashSet<AbstractIndicator> fIndicators;
+		private final Executor fExecutor;
+		private final ITask fTask;
+		private final IListener fListener;
+
+		private final AtomicInteger fPendingCount;
+		private final AtomicReference<Throwable> fError = new AtomicReference<Throwable>();
+
+		public Execution(Collection<AbstractIndicator> indicators, Executor executor, ITask task, IListener listener)
+		{
+			fIndicators = new HashSet<AbstractIndicator>(indicators);
+			fExecutor = executor;
+			fTask = task;
+			fListener = listener;
+			fPendingCount = new AtomicInteger(fIndicators.size());
+		}
+
+		public void submit(final AbstractIndicator a)
+		{
+			Runnable r = new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						fTask.run(a);
+					}
+					catch(Throwable t)
+					{
+						fError.compareAndSet(null, t);
+					}
+
+					for(AbstractIndicator c: fConsumers.get(a))
+					{
+						if(fIndicators.contains(c))
+							submit(c);
+					}
+
+					if(0 == fPendingCount.decrementAndGet())
+						fListener.onFinished(fError.get());
+				}
+			};
+			
+			try
+			{
+				fExecutor.execute(r);
+			}
+			catch(RejectedExecutionException e)
+			{
+				// the executor has been shut down while the indicators were running
+				r.run();
+			}
+		}
+	}
+}
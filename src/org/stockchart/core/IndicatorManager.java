@@ -16,6 +16,13 @@
 package org.stockchart.core;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.json.JSONArray;
 import org.json.JSONException;
@@ -25,21 +32,181 @@ import org.stockchart.indicators.AbstractIndicator;
 import org.stockchart.indicators.BollingerBandsIndicator;
 import org.stockchart.indicators.EmaIndicator;
 import org.stockchart.indicators.EnvelopesIndicator;
+import org.stockchart.indicators.IndicatorCache;
+import org.stockchart.indicators.IndicatorGroup;
 import org.stockchart.indicators.MacdIndicator;
 import org.stockchart.indicators.RsiIndicator;
 import org.stockchart.indicators.SmaIndicator;
 import org.stockchart.indicators.StochasticIndicator;
+import org.stockchart.series.AbstractSeries;
 import org.stockchart.series.BarSeries;
 import org.stockchart.series.LinearSeries;
 import org.stockchart.series.RangeSeries;
 import org.stockchart.series.SeriesBase;
+import org.stockchart.utils.DrawingCache.Layer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
 
 
 public class IndicatorManager 
 {
+	/**
+	 * Receives the errors of the background recalcs on the UI thread
+	 */
+	public interface IRecalcErrorListener
+	{
+		public void onRecalcError(Throwable error);
+	}
+	
+	/**
+	 * Background calculation of the indicators. Indicators are copied to calculate
+	 * snapshots of the sources into back buffer series, which are swapped with 
+	 * the real Dst... series when the calculation is finished.
+	 */
+	private static class RecalcJob
+	{
+		private final ArrayList<AbstractIndicator> fIndicators;
+		private final ArrayList<AbstractIndicator> fCopies = new ArrayList<AbstractIndicator>();
+		
+		private final ArrayList<SeriesBase> fSources = new ArrayList<SeriesBase>();
+		private final ArrayList<Integer> fSourceCounts = new ArrayList<Integer>();
+		private final ArrayList<Integer> fSourceVersions = new ArrayList<Integer>();
+		
+		private RecalcJob(ArrayList<AbstractIndicator> indicators)
+		{
+			fIndicators = indicators;
+		}
+		
+		/**
+		 * Takes snapshots and creates copies of the indicators, must be called on the UI thread.
+		 * Every indicator calculated from a series which is not produced by the job gets 
+		 * its own snapshot, so the copies running concurrently share nothing but 
+		 * finished back buffers.
+		 * 
+		 * @param indicators indicators in topological order
+		 * @return new job or <code>null</code> if some indicator or series can't be copied 
+		 */
+		public static RecalcJob prepare(ArrayList<AbstractIndicator> indicators)
+		{
+			RecalcJob job = new RecalcJob(indicators);
+			
+			// real Dst... series -> back buffer
+			HashMap<SeriesBase,SeriesBase> buffers = new HashMap<SeriesBase,SeriesBase>();
+			
+			for(AbstractIndicator a: indicators)
+			{
+				SeriesBase src = buffers.get(a.getSrc());
+				
+				if(null == src)
+				{
+					if(!(a.getSrc() instanceof AbstractSeries)) return null;
+					
+					src = ((AbstractSeries<?>)a.getSrc()).createSnapshot();
+					
+					if(null == src) return null;
+					
+					job.fSources.add(a.getSrc());
+					job.fSourceCounts.add(src.getPointCount());
+					job.fSourceVersions.add(a.getSrc().getVersion());
+				}
+				
+				SeriesBase[] dst = new SeriesBase[a.getAllDst().length];
+				
+				for(int i=0;i<dst.length;i++)
+				{
+					if(!(a.getAllDst()[i] instanceof AbstractSeries)) return null;
+					
+					dst[i] = ((AbstractSeries<?>)a.getAllDst()[i]).createEmptyCopy();
+					
+					if(null == dst[i]) return null;
+					
+					buffers.put(a.getAllDst()[i], dst[i]);
+				}
+				
+				AbstractIndicator copy = a.copy(src, dst);
+				
+				if(null == copy) return null;
+				
+				job.fCopies.add(copy);
+			}
+			
+			return job;
+		}
+		
+		public ArrayList<AbstractIndicator> getCopies()
+		{
+			return fCopies;
+		}
+		
+		/**
+		 * Swaps calculated points into the real Dst... series, must be called on the UI thread.
+		 */
+		public void publish()
+		{
+			for(int i=0;i<fIndicators.size();i++)
+				fIndicators.get(i).swapDst(fCopies.get(i));
+		}
+		
+		/**
+		 * Whether the sources have got new points since the snapshots were taken.
+		 */
+		public boolean isOutdated()
+		{
+			for(int i=0;i<fSources.size();i++)
+			{
+				if(fSources.get(i).getPointCount() != fSourceCounts.get(i))
+					return true;
+			}
+			
+			return false;
+		}
+		
+		/**
+		 * Whether the sources have been changed in any way since the snapshots were taken.
+		 */
+		public boolean isModified()
+		{
+			for(int i=0;i<fSources.size();i++)
+			{
+				if(fSources.get(i).getVersion() != fSourceVersions.get(i))
+					return true;
+			}
+			
+			return false;
+		}
+	}
+	
+	private static final String TAG = "IndicatorManager";
+	
+	private static final IndicatorGraph.ITask RECALC_TASK = new IndicatorGraph.ITask()
+	{
+		@Override
+		public void run(AbstractIndicator a) 
+		{
+			a.recalc();
+		}
+	};
+	
 	private final StockChartView fView;	
 	private final ArrayList<AbstractIndicator> fIndicators = new ArrayList<AbstractIndicator>();
 	
+	// results are published on the main looper, posting to the detached view from a worker loses them before API 24
+	private final Handler fHandler = new Handler(Looper.getMainLooper());
+	
+	private ExecutorService fExecutor = null;
+	
+	private boolean fIsFusedEvaluation = true;
+	private int fParallelThreshold = IndicatorGroup.DEFAULT_PARALLEL_THRESHOLD;
+	
+	private final IndicatorCache fCache = new IndicatorCache();
+	
+	// results of the background calculations started before the last recalc are dropped
+	private int fRecalcGeneration = 0;
+	
+	private IRecalcErrorListener fRecalcErrorListener = null;
+	
 	public IndicatorManager(StockChartView view)
 	{
 		fView = view;
@@ -50,6 +217,60 @@ public class IndicatorManager
 		return fIndicators;
 	}
 	
+	public boolean isFusedEvaluation()
+	{
+		return fIsFusedEvaluation;
+	}
+	
+	/**
+	 * Sets whether the indicators calculated from the same value of the same series 
+	 * are recalculated together, taking the source values once and sharing inner 
+	 * moving averages (see {@link IndicatorGroup}). The indicators of the group are 
+	 * calculated on one thread, except for exponential averages of long series which 
+	 * are calculated on all cores. Enabled by default.
+	 */
+	public void setFusedEvaluation(boolean value)
+	{
+		fIsFusedEvaluation = value;
+	}
+	
+	public int getParallelThreshold()
+	{
+		return fParallelThreshold;
+	}
+	
+	/**
+	 * Sets the number of points from which the fused evaluation calculates indicators 
+	 * on all cores, shorter series are calculated sequentially.
+	 */
+	public void setParallelThreshold(int points)
+	{
+		fParallelThreshold = points;
+	}
+	
+	public IRecalcErrorListener getRecalcErrorListener()
+	{
+		return fRecalcErrorListener;
+	}
+	
+	/**
+	 * Sets the listener of the errors thrown by the indicators calculated in background. 
+	 * The errors are logged if there is no listener.
+	 */
+	public void setRecalcErrorListener(IRecalcErrorListener listener)
+	{
+		fRecalcErrorListener = listener;
+	}
+	
+	/**
+	 * Gets the cache of the calculated values, recalcs restore the indicators whose 
+	 * source and parameters haven't been changed since they were cached.
+	 */
+	public IndicatorCache getCache()
+	{
+		return fCache;
+	}
+	
 	public JSONArray toJSONArray() throws JSONException
 	{
 		JSONArray indicators = new JSONArray();
@@ -73,6 +294,320 @@ public class IndicatorManager
 
 	}
 	
+	/**
+	 * Recalcs all indicators on the calling thread, see {@link #recalc(SeriesBase)}.
+	 */
+	public void recalc()
+	{
+		recalc(null);
+	}
+	
+	/**
+	 * Recalcs indicators calculated from the changed series and the indicators consuming 
+	 * their Dst... series, producers go before consumers. Independent branches 
+	 * of the dependency graph are calculated concurrently, the method returns when 
+	 * all of them are finished. Background calculations which are still running are cancelled.
+	 * Indicators whose values are cached are restored instead (see {@link #getCache()}).
+	 * 
+	 * @param changed changed series, <code>null</code> to recalc all indicators
+	 */
+	public void recalc(SeriesBase changed)
+	{
+		fRecalcGeneration++;
+		
+		ArrayList<AbstractIndicator> indicators = restoreCached(new IndicatorGraph(fIndicators).getDownstream(changed));
+		ArrayList<AbstractIndicator> tasks = group(indicators);
+		
+		recalcAndWait(new IndicatorGraph(tasks), tasks);
+		
+		setCalculated(indicators, true);
+	}
+	
+	/**
+	 * Recalcs all indicators in background, see {@link #recalcAsync(SeriesBase)}.
+	 */
+	public void recalcAsync()
+	{
+		recalcAsync(null);
+	}
+	
+	/**
+	 * Recalcs indicators calculated from the changed series and the indicators consuming 
+	 * their Dst... series in background, must be called on the UI thread.
+	 * <p>
+	 * Indicators are calculated against snapshots of their sources, independent branches 
+	 * of the dependency graph run in parallel. When the calculation is finished, 
+	 * the calculated points are swapped into Dst... series on the UI thread and the view 
+	 * is invalidated. If some indicator doesn't support copying, the indicators are 
+	 * calculated synchronously. Indicators whose values are cached are restored at once.
+	 * If the calculation fails, the Dst... series keep their points and the error is passed 
+	 * to the listener (see {@link #setRecalcErrorListener(IRecalcErrorListener)}).
+	 * 
+	 * @param changed changed series, <code>null</code> to recalc all indicators
+	 */
+	public void recalcAsync(final SeriesBase changed)
+	{
+		final int generation = ++fRecalcGeneration;
+		
+		ArrayList<AbstractIndicator> downstream = new IndicatorGraph(fIndicators).getDownstream(changed);
+		final ArrayList<AbstractIndicator> indicators = restoreCached(downstream);
+		
+		if(indicators.size() < downstream.size())
+			fView.invalidate(Layer.SERIES);
+		
+		if(indicators.isEmpty()) return;
+		
+		ArrayList<AbstractIndicator> tasks = group(indicators);
+		
+		final RecalcJob job = RecalcJob.prepare(tasks);
+		
+		if(null == job)
+		{
+			recalcAndWait(new IndicatorGraph(tasks), tasks);
+			setCalculated(indicators, true);
+			return;
+		}
+		
+		// copies are linked through the back buffers the same way as the indicators
+		IndicatorGraph copies = new IndicatorGraph(job.getCopies());
+		
+		copies.execute(job.getCopies(), getExecutor(), RECALC_TASK, new IndicatorGraph.IListener()
+		{
+			@Override
+			public void onFinished(final Throwable error) 
+			{
+				fHandler.post(new Runnable()
+				{
+					@Override
+					public void run() 
+					{
+						if(generation != fRecalcGeneration) return;
+						
+						// back buffers of the failed job are dropped, Dst... series keep the published points
+						if(null != error)
+						{
+							onRecalcError(error);
+							return;
+						}
+						
+						job.publish();
+						fView.invalidate(Layer.SERIES);
+						
+						setCalculated(indicators, !job.isModified());
+						
+						if(job.isOutdated())
+							recalcAsync(changed);
+					}
+				});
+			}
+		});
+	}
+	
+	/**
+	 * Stops background threads, pending results are dropped. Tasks which have been 
+	 * already queued are finished, so recalcs waiting for them don't hang, tasks submitted 
+	 * after the shutdown run on the submitting thread.
+	 */
+	public void shutdown()
+	{
+		fRecalcGeneration++;
+		
+		if(null != fExecutor)
+		{
+			fExecutor.shutdown();
+			fExecutor = null;
+		}
+	}
+	
+	/**
+	 * Caches the values of the indicators whose parameters have been changed and restores 
+	 * the indicators whose values are cached, producers go before consumers. 
+	 * Consumers of the indicators which aren't restored are recalculated as well.
+	 * 
+	 * @return indicators to recalc in topological order
+	 */
+	private ArrayList<AbstractIndicator> restoreCached(ArrayList<AbstractIndicator> indicators)
+	{
+		// Dst... series of the indicators whose values are replaced
+		HashSet<SeriesBase> replaced = new HashSet<SeriesBase>();
+		
+		for(AbstractIndicator a: indicators)
+		{
+			if(fCache.putReplaced(a, replaced.contains(a.getSrc())))
+			{
+				for(SeriesBase s: a.getAllDst())
+					replaced.add(s);
+			}
+		}
+		
+		ArrayList<AbstractIndicator> result = new ArrayList<AbstractIndicator>();
+		
+		// Dst... series of the indicators to recalc
+		HashSet<SeriesBase> recalculated = new HashSet<SeriesBase>();
+		
+		for(AbstractIndicator a: indicators)
+		{
+			if(recalculated.contains(a.getSrc()) || !fCache.restore(a, fCache.getKey(a)))
+			{
+				result.add(a);
+				
+				for(SeriesBase s: a.getAllDst())
+					recalculated.add(s);
+			}
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Sets the keys of the values of the recalculated indicators, producers go before consumers, 
+	 * so the consumers are keyed by the values of the producers.
+	 * 
+	 * @param isValid whether the values match the current sources
+	 */
+	private void setCalculated(ArrayList<AbstractIndicator> indicators,boolean isValid)
+	{
+		for(AbstractIndicator a: indicators)
+			fCache.setCalculated(a, isValid?fCache.getKey(a):null);
+	}
+	
+	/**
+	 * Groups the indicators to recalc if the fused evaluation is enabled.
+	 */
+	private ArrayList<AbstractIndicator> group(ArrayList<AbstractIndicator> indicators)
+	{
+		if(!fIsFusedEvaluation) return indicators;
+		
+		return IndicatorGroup.group(indicators, Runtime.getRuntime().availableProcessors() > 1?getExecutor():null, fParallelThreshold);
+	}
+	
+	private void recalcAndWait(IndicatorGraph graph,ArrayList<AbstractIndicator> indicators)
+	{
+		if(indicators.size() < 2 || Runtime.getRuntime().availableProcessors() < 2)
+		{
+			for(AbstractIndicator a: indicators)
+				a.recalc();
+			
+			return;
+		}
+		
+		final CountDownLatch done = new CountDownLatch(1);
+		final AtomicReference<Throwable> result = new AtomicReference<Throwable>();
+		
+		graph.execute(indicators, getExecutor(), RECALC_TASK, new IndicatorGraph.IListener()
+		{
+			@Override
+			public void onFinished(Throwable error) 
+			{
+				result.set(error);
+				done.countDown();
+			}
+		});
+		
+		boolean isInterrupted = false;
+		
+		while(true)
+		{
+			try
+			{
+				done.await();
+				break;
+			}
+			catch(InterruptedException e)
+			{
+				isInterrupted = true;
+			}
+		}
+		
+		if(isInterrupted)
+			Thread.currentThread().interrupt();
+		
+		if(null != result.get())
+			rethrow(result.get());
+	}
+	
+	private void onRecalcError(Throwable error)
+	{
+		if(null != fRecalcErrorListener)
+			fRecalcErrorListener.onRecalcError(error);
+		else
+			Log.e(TAG, "Background recalc of the indicators failed", error);
+	}
+	
+	private static void rethrow(Throwable t)
+	{
+		if(t instanceof RuntimeException)
+			throw (RuntimeException)t;
+		
+		if(t instanceof Error)
+			throw (Error)t;
+		
+		throw new RuntimeException(t);
+	}
+	
+	private ExecutorService getExecutor()
+	{
+		if(null == fExecutor)
+		{
+			fExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory()
+			{
+				private int fCount = 0;
+				
+				@Override
+				public Thread newThread(Runnable r) 
+				{
+					Thread t = new Thread(r, "IndicatorManager-" + (++fCount));
+					t.setDaemon(true);
+					
+					return t;
+				}
+			});
+		}
+		
+		return fExecutor;
+	}
+	
+	/**
+	 * Notifies indicators calculated from the given series that new points were appended to it.
+	 * Indicators which use Dst... series of the notified indicators as the source are notified too.
+	 * 
+	 * @param src series the points were appended to
+	 * @param fromIndex index of the first appended point
+	 */
+	public void onPointsAppended(SeriesBase src, int fromIndex)
+	{
+		IndicatorGraph graph = new IndicatorGraph(fIndicators);
+		
+		// series -> index of the first appended point
+		HashMap<SeriesBase,Integer> fromIndexes = new HashMap<SeriesBase,Integer>();
+		fromIndexes.put(src, fromIndex);
+		
+		for(AbstractIndicator a: graph.getDownstream(src))
+		{
+			Integer from = fromIndexes.get(a.getSrc());
+			
+			SeriesBase[] dst = a.getAllDst();
+			
+			for(SeriesBase s: dst)
+				fromIndexes.put(s, s.getPointCount());
+			
+			a.onPointsAppended(null == from?0:from);
+		}
+	}
+	
+	/**
+	 * Notifies indicators calculated from the given series that its last point has been changed.
+	 * Indicators which use Dst... series of the notified indicators as the source are notified too,
+	 * producers go before consumers.
+	 * 
+	 * @param src series which last point has been changed
+	 */
+	public void onLastPointUpdated(SeriesBase src)
+	{
+		for(AbstractIndicator a: new IndicatorGraph(fIndicators).getDownstream(src))
+			a.onLastPointUpdated();
+	}
+	
 	public void removeIndicator(AbstractIndicator i)
 	{
 		for(SeriesBase s:i.getDst())
@@ -89,6 +624,11 @@ public class IndicatorManager
 		}
 		
 		fIndicators.remove(i);
+		
+		fCache.remove(i.getSrc());
+		
+		for(SeriesBase s:i.getAllDst())
+			fCache.remove(s);
 	}
 	
 	public StochasticIndicator addStochastic(SeriesBase src, int valueIndex)
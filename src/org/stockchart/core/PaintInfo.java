@@ -55,6 +55,20 @@ public class PaintInfo
 		return IsX?getCoordinate(v,min,factor):getCoordinate(max,v,factor);
 	}
 			
+	/**
+	 * Inverse of {@link #get(double)}
+	 */
+	public double getValue(float coordinate)
+	{
+		double max = IsLogarithmic?Math.log10(Max):Max;
+		double min = IsLogarithmic?Math.log10(Min):Min;		
+		double length = max - min;
+		
+		double v = IsX?min + coordinate * length / Size:max - coordinate * length / Size;
+		
+		return IsLogarithmic?Math.pow(10.0, v):v;
+	}
+			
 	private static float getCoordinate(double value, double min, double factor)
 	{
 		if(DoubleUtils.equals(value, min)) return 0.0f;
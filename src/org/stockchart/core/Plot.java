@@ -18,13 +18,18 @@ package org.stockchart.core;
 import org.stockchart.StockChartView.StickerInfo;
 import org.stockchart.series.SeriesBase;
 import org.stockchart.stickers.AbstractSticker;
+import org.stockchart.utils.AllocationCounter;
 import org.stockchart.utils.CustomObjects;
+import org.stockchart.utils.DrawingCache.Layer;
+import org.stockchart.utils.DrawingInputs;
 import org.stockchart.utils.GridPainter;
 import org.stockchart.utils.PaintUtils;
 import org.stockchart.utils.GridPainter.GridType;
 
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
+import android.graphics.RectF;
 
 
 public class Plot extends ChartElement
@@ -35,6 +40,11 @@ public class Plot extends ChartElement
 	
 	private final PaintInfo fPaintInfo = new PaintInfo();
 	
+	// state of the series layer, see scrollSeries()
+	private final DrawingInputs fSeriesInputs = new DrawingInputs();
+	private final DrawingInputs fNewSeriesInputs = new DrawingInputs();
+	private double fSeriesOrigin = Double.NaN;
+	
 	Plot(Area parent)
 	{
 		super(parent);
@@ -54,6 +64,37 @@ public class Plot extends ChartElement
 	
 	@Override
 	protected void innerDraw(Canvas c,CustomObjects customObjects) 
+	{
+		drawBackground(c);
+		drawSeries(c);
+		drawLines(c);
+		drawOverlay(c, customObjects);
+		drawTitleAndBorder(c);
+	}
+	
+	@Override
+	protected void innerDraw(Canvas c,CustomObjects customObjects,Layer layer) 
+	{
+		switch(layer)
+		{
+		case BACKGROUND:
+			drawBackground(c);
+			break;
+		case SERIES:
+			if(!scrollSeries(c, (Bitmap)customObjects.get(CustomObjects.PREVIOUS_SERIES)))
+				drawSeries(c);
+			break;
+		case OVERLAY:
+			drawLines(c);
+			drawOverlay(c, customObjects);
+			drawTitleAndBorder(c);
+			break;
+		default:
+			break;
+		}
+	}
+	
+	private void drawBackground(Canvas c)
 	{
 		c.getClipBounds(this.TempRect());
 		
@@ -81,16 +122,186 @@ public class Plot extends ChartElement
 			if(null != values)
 				GridPainter.drawGrid(values, this.TempRect(), c, a.getAppearance(), this.Paint(), fPaintInfo, GridType.HORIZONTAL);
 		}
-
+	}
+	
+	private void drawSeries(Canvas c)
+	{
 		this.fSeriesPaintInfo.reset();
 		for(SeriesBase s: this.getArea().getSeries())
 		{				
 			fSeriesPaintInfo.loadFrom(this.getArea().getAxis(s.getXAxisSide()), this.getArea().getAxis(s.getYAxisSide()));
 
 			c.save();
+			AllocationCounter.begin();
 			s.draw(c, fSeriesPaintInfo);
+			AllocationCounter.end();
 			c.restore();							
 		}
+	}
+	
+	/**
+	 * Shifts the previous drawing of the series if only the horizontal view values 
+	 * have been changed since the last call, the exposed strip is drawn by the series.
+	 * The shift is rounded to whole pixels, the next strips are drawn in the same 
+	 * coordinates, so the drawing is up to half a pixel off until it is redrawn entirely.
+	 * 
+	 * @param previous previous bitmap of the series layer or <code>null</code> if it is invalid
+	 * @return <code>false</code> if the series must be drawn entirely
+	 */
+	private boolean scrollSeries(Canvas c,Bitmap previous)
+	{
+		Axis xAxis = getScrollableAxis();
+		
+		boolean isChanged = updateSeriesInputs();
+		
+		double origin = fSeriesOrigin;
+		fSeriesOrigin = Double.NaN;
+		
+		if(null == xAxis) return false;
+		
+		fPaintInfo.loadFrom(xAxis);
+		fSeriesOrigin = fPaintInfo.Min;
+		
+		if(null == previous || isChanged || Double.isNaN(origin)) return false;
+		
+		double factor = fPaintInfo.Size / (fPaintInfo.Max - fPaintInfo.Min);
+		
+		// positive when the drawing moves right
+		float shift = Math.round((origin - fPaintInfo.Min) * factor);
+		
+		float width = width();
+		float height = height();
+		
+		if(Math.abs(shift) >= width) return false;
+		
+		fSeriesOrigin = origin - shift / factor;
+		
+		// the strip and the shifted drawing share the boundary, so they are rounded the same way
+		float boundary = shift > 0?shift:width + shift;
+		
+		c.save();
+		
+		if(shift > 0)
+			c.clipRect(boundary, 0f, width, height);
+		else
+			c.clipRect(0f, 0f, boundary, height);
+		
+		RectF areaBounds = getArea().getBounds();
+		c.drawBitmap(previous, shift - areaBounds.left - getBounds().left, -areaBounds.top - getBounds().top, null);
+		
+		c.restore();
+		
+		if(shift > 0)
+			drawSeriesStrip(c, xAxis, factor, 0f, boundary);
+		else if(shift < 0)
+			drawSeriesStrip(c, xAxis, factor, boundary, width);
+		
+		return true;
+	}
+	
+	/**
+	 * Draws the series between the given coordinates in the coordinates of the previous drawing.
+	 * The series are drawn in the narrowed range of the same scale on the translated canvas, 
+	 * so the points straddling the strip continue their parts drawn before.
+	 */
+	private void drawSeriesStrip(Canvas c,Axis xAxis,double factor,float left,float right)
+	{
+		// the neighbor points are included to continue the lines crossing the edges
+		int margin = (int)Math.ceil(factor) + 1;
+		
+		float from = (float)Math.floor(left) - margin;
+		float to = (float)Math.ceil(right) + margin;
+		
+		c.save();
+		c.clipRect(left, 0f, right, height());
+		c.translate(from, 0f);
+		
+		this.fSeriesPaintInfo.reset();
+		for(SeriesBase s: this.getArea().getSeries())
+		{
+			fSeriesPaintInfo.loadFrom(xAxis, this.getArea().getAxis(s.getYAxisSide()));
+			
+			fSeriesPaintInfo.X.Min = fSeriesOrigin + from / factor;
+			fSeriesPaintInfo.X.Max = fSeriesOrigin + to / factor;
+			fSeriesPaintInfo.X.Size = to - from;
+			
+			c.save();
+			s.draw(c, fSeriesPaintInfo);
+			c.restore();
+		}
+		
+		c.restore();
+	}
+	
+	/**
+	 * Gets the horizontal axis of the series if they can be scrolled
+	 */
+	private Axis getScrollableAxis()
+	{
+		Axis.Side side = null;
+		
+		for(SeriesBase s: this.getArea().getSeries())
+		{
+			if(!s.isPartialDrawingSupported()) return null;
+			
+			if(null == side)
+				side = s.getXAxisSide();
+			else if(side != s.getXAxisSide())
+				return null;
+		}
+		
+		if(null == side) return null;
+		
+		Axis a = getArea().getAxis(side);
+		
+		return a.isLogarithmic()?null:a;
+	}
+	
+	/**
+	 * Updates everything the drawing of the series depends on except the horizontal view values.
+	 * 
+	 * @return <code>true</code> if anything has been changed since the last call
+	 */
+	private boolean updateSeriesInputs()
+	{
+		fNewSeriesInputs.clear();
+		
+		RectF areaBounds = getArea().getBounds();
+		
+		fNewSeriesInputs.add(areaBounds.left + getBounds().left);
+		fNewSeriesInputs.add(areaBounds.top + getBounds().top);
+		fNewSeriesInputs.add(width());
+		fNewSeriesInputs.add(height());
+		
+		for(Axis a: getArea().getAxes())
+		{
+			fPaintInfo.loadFrom(a);
+			
+			if(a.isVertical())
+			{
+				fNewSeriesInputs.add(fPaintInfo.Max);
+				fNewSeriesInputs.add(fPaintInfo.Min);
+			}
+			else
+			{
+				fNewSeriesInputs.add(fPaintInfo.Max - fPaintInfo.Min);
+			}
+			
+			fNewSeriesInputs.add(fPaintInfo.IsLogarithmic?1:0);
+		}
+		
+		for(SeriesBase s: this.getArea().getSeries())
+		{
+			fNewSeriesInputs.add(s.getVersion());
+			fNewSeriesInputs.add(s.getPointCount());
+		}
+		
+		return fSeriesInputs.update(fNewSeriesInputs);
+	}
+	
+	private void drawLines(Canvas c)
+	{
+		c.getClipBounds(this.TempRect());
 		
 		for(Line l: this.getArea().getLines())
 		{
@@ -98,7 +309,10 @@ public class Plot extends ChartElement
 			fPaintInfo.loadFrom(a);
 			l.draw(this.TempRect(), c, fPaintInfo);
 		}
-		
+	}
+	
+	private void drawOverlay(Canvas c,CustomObjects customObjects)
+	{
 		fSeriesPaintInfo.reset();
 		for(AbstractSticker s: this.getArea().getStickers())
 		{
@@ -126,7 +340,10 @@ public class Plot extends ChartElement
 			c.getClipBounds(this.TempRect());
 			ch.draw(this, c, this.TempRect());
 		}
-		
+	}
+	
+	private void drawTitleAndBorder(Canvas c)
+	{
 		fPlotAppearance.applyText(this.Paint());
 		
 		String title = this.getArea().getTitle();
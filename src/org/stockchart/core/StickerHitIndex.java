@@ -0,0 +1,205 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.stockchart.stickers.AbstractSticker;
+
+import android.graphics.RectF;
+
+/**
+ * Grid of the sticker handles of the area in plot coordinates.
+ * <p>
+ * Cells are twice the handle radius, so the handles hit by the point are found
+ * in at most four cells. Cells are hashed into the fixed table, the handles of colliding
+ * cells share the chain. The index is rebuilt when the chart is invalidated
+ * or the stickers are added or removed, hit testing doesn't allocate.
+ */
+public class StickerHitIndex
+{
+	public static final int MID_POINT = 0;
+	public static final int FIRST_POINT = 1;
+	public static final int SECOND_POINT = 2;
+
+	private static final int HANDLES_COUNT = 3;
+
+	private final SeriesPaintInfo fPaintInfo = new SeriesPaintInfo();
+
+	private AbstractSticker[] fStickers = new AbstractSticker[4];
+
+	// handle h belongs to the sticker h / HANDLES_COUNT, so the lower handles win as before
+	private float[] fX = new float[4 * HANDLES_COUNT];
+	private float[] fY = new float[4 * HANDLES_COUNT];
+	private int[] fNext = new int[4 * HANDLES_COUNT];
+
+	// the length must be a power of two
+	private int[] fHeads = new int[32];
+
+	private int fCount = 0;
+	private float fRadius;
+	private float fCellSize;
+
+	private int fStamp = -1;
+	private int fStickersVersion = -1;
+	private float fWidth;
+	private float fHeight;
+
+	/**
+	 * Whether the index has been built with the given stamp for the current size of the plot
+	 * and the current stickers of the area
+	 */
+	public boolean isBuilt(Area a,int stamp)
+	{
+		RectF plot = a.getPlot().getBounds();
+
+		return fStamp == stamp && fStickersVersion == a.getStickersVersion() && 
+			   fWidth == plot.width() && fHeight == plot.height();
+	}
+
+	/**
+	 * Rebuilds the index from the stickers of the area, the positions of the area
+	 * must be up to date.
+	 *
+	 * @param stamp value identifying the state of the chart the index is built for
+	 */
+	public void build(Area a,int stamp)
+	{
+		ArrayList<AbstractSticker> stickers = a.getStickers();
+
+		ensureCapacity(stickers.size());
+
+		fRadius = AbstractSticker.RADIUS;
+		fCellSize = Math.max(2f * fRadius, 1f);
+		fCount = 0;
+
+		Arrays.fill(fHeads, -1);
+
+		for(int i=0;i<stickers.size();i++)
+		{
+			AbstractSticker s = stickers.get(i);
+
+			fStickers[i] = s;
+
+			fPaintInfo.loadFrom(a.getAxis(s.getHorizontalAxis()), a.getAxis(s.getVerticalAxis()));
+
+			add(fPaintInfo.getX(s.getMidX()), fPaintInfo.getY(s.getMidY()));
+			add(fPaintInfo.getX(s.getX1()), fPaintInfo.getY(s.getY1()));
+			add(fPaintInfo.getX(s.getX2()), fPaintInfo.getY(s.getY2()));
+		}
+
+		Arrays.fill(fStickers, stickers.size(), fStickers.length, null);
+
+		fStamp = stamp;
+		fStickersVersion = a.getStickersVersion();
+		fWidth = a.getPlot().getBounds().width();
+		fHeight = a.getPlot().getBounds().height();
+	}
+
+	/**
+	 * Finds the handle containing the point, the first sticker wins if the handles overlap.
+	 *
+	 * @param x coordinate relative to the plot
+	 * @param y coordinate relative to the plot
+	 * @return the handle or -1 if there is no handle at the point
+	 */
+	public int hitTest(float x,float y)
+	{
+		int result = -1;
+
+		if(0 == fCount) return result;
+
+		int right = getCell(x + fRadius);
+		int bottom = getCell(y + fRadius);
+
+		for(int cx=getCell(x - fRadius);cx<=right;cx++)
+		{
+			for(int cy=getCell(y - fRadius);cy<=bottom;cy++)
+			{
+				for(int h=fHeads[getBucket(cx, cy)];h>=0;h=fNext[h])
+				{
+					if((result < 0 || h < result) &&
+					   fX[h] - fRadius <= x && x < fX[h] + fRadius &&
+					   fY[h] - fRadius <= y && y < fY[h] + fRadius)
+						result = h;
+				}
+			}
+		}
+
+		return result;
+	}
+
+	public AbstractSticker getSticker(int handle)
+	{
+		return fStickers[handle / HANDLES_COUNT];
+	}
+
+	/**
+	 * Gets the point of the sticker the handle belongs to
+	 * ({@link #MID_POINT}, {@link #FIRST_POINT} or {@link #SECOND_POINT})
+	 */
+	public int getStickerPoint(int handle)
+	{
+		return handle % HANDLES_COUNT;
+	}
+
+	private void add(float x,float y)
+	{
+		int h = fCount++;
+
+		fX[h] = x;
+		fY[h] = y;
+
+		int bucket = getBucket(getCell(x), getCell(y));
+
+		fNext[h] = fHeads[bucket];
+		fHeads[bucket] = h;
+	}
+
+	private int getCell(float v)
+	{
+		// NaN and the coordinates far beyond the plot fall into the border cells
+		return (int)Math.floor(v / fCellSize);
+	}
+
+	private int getBucket(int cx,int cy)
+	{
+		return (cx * 73856093 ^ cy * 19349663) & (fHeads.length - 1);
+	}
+
+	private void ensureCapacity(int stickersCount)
+	{
+		if(stickersCount <= fStickers.length) return;
+
+		int capacity = fStickers.length;
+
+		while(capacity < stickersCount)
+			capacity *= 2;
+
+		fStickers = new AbstractSticker[capacity];
+		fX = new float[capacity * HANDLES_COUNT];
+		fY = new float[capacity * HANDLES_COUNT];
+		fNext = new int[capacity * HANDLES_COUNT];
+
+		int buckets = fHeads.length;
+
+		while(buckets < capacity * HANDLES_COUNT * 2)
+			buckets *= 2;
+
+		fHeads = new int[buckets];
+	}
+}
@@ -0,0 +1,450 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.core;
+
+import java.util.ArrayList;
+
+import org.stockchart.StockChartView;
+import org.stockchart.points.PointColumns;
+import org.stockchart.series.AbstractSeries;
+import org.stockchart.series.SeriesBase;
+import org.stockchart.utils.DrawingCache.Layer;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+/**
+ * Collects updates of the series from any thread and applies them on the UI thread
+ * once per frame.
+ * <p>
+ * The first update of the frame posts the drain to the main looper, updates arriving before
+ * it runs are applied in the same batch. Indicators are notified once per changed series
+ * and the view is invalidated once, so the chart is recalculated and redrawn at most
+ * once per frame however many updates have arrived.
+ * Producers must not change the series directly while the scheduler is used.
+ */
+public class UpdateScheduler
+{
+	public interface IFrameListener
+	{
+		/**
+		 * Called on the UI thread after the batch has been applied.
+		 *
+		 * @param updatesCount number of updates applied in the frame
+		 */
+		public void onFrame(int updatesCount);
+	}
+
+	/**
+	 * Default interval between the frames in milliseconds (60 frames per second)
+	 */
+	public static final long DEFAULT_FRAME_INTERVAL = 16;
+
+	private enum UpdateType
+	{
+		APPEND,
+		UPDATE_LAST,
+		SET_LAST_VALUE,
+		CUSTOM
+	}
+
+	private static class Update
+	{
+		public UpdateType fType;
+		public SeriesBase fSeries;
+		public Object fID;
+		public double[] fValues;
+		public Runnable fRunnable;
+	}
+
+	/**
+	 * Changes made to the series by the current batch
+	 */
+	private static class Changes
+	{
+		public SeriesBase fSeries;
+		public int fFirstAppended;
+		public boolean fIsLastUpdated;
+		public boolean fIsChanged;
+	}
+
+	private final StockChartView fView;
+	
+	// posting to the view from another thread while it is detached loses the runnable before API 24
+	private final Handler fHandler = new Handler(Looper.getMainLooper());
+
+	private final Object fLock = new Object();
+
+	// guarded by fLock
+	private ArrayList<Update> fPending = new ArrayList<Update>();
+	private final ArrayList<Update> fPool = new ArrayList<Update>();
+	private boolean fIsScheduled = false;
+	private long fLastFrameTime = 0;
+	private long fFrameInterval = DEFAULT_FRAME_INTERVAL;
+
+	// accessed on the UI thread only
+	private ArrayList<Update> fBatch = new ArrayList<Update>();
+	private final ArrayList<Changes> fChanges = new ArrayList<Changes>();
+	private int fChangesCount = 0;
+	private int fLastFrameUpdatesCount = 0;
+	private IFrameListener fFrameListener;
+
+	private final Runnable fDrain = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			drain();
+		}
+	};
+
+	public UpdateScheduler(StockChartView view)
+	{
+		fView = view;
+	}
+
+	public IFrameListener getFrameListener()
+	{
+		return fFrameListener;
+	}
+
+	public void setFrameListener(IFrameListener listener)
+	{
+		fFrameListener = listener;
+	}
+
+	public long getFrameInterval()
+	{
+		synchronized(fLock)
+		{
+			return fFrameInterval;
+		}
+	}
+
+	/**
+	 * Sets the minimum interval between the frames in milliseconds
+	 */
+	public void setFrameInterval(long value)
+	{
+		synchronized(fLock)
+		{
+			fFrameInterval = value;
+		}
+	}
+
+	/**
+	 * Gets the number of updates applied in the last frame
+	 */
+	public int getLastFrameUpdatesCount()
+	{
+		return fLastFrameUpdatesCount;
+	}
+
+	/**
+	 * Gets the number of updates waiting for the next frame
+	 */
+	public int getPendingCount()
+	{
+		synchronized(fLock)
+		{
+			return fPending.size();
+		}
+	}
+
+	/**
+	 * Appends the point to the series. Can be called from any thread.
+	 *
+	 * @param id ID of the new point, may be <code>null</code>
+	 * @param values values of the new point, the array is copied
+	 */
+	public void appendPoint(AbstractSeries<?> series, Object id, double... values)
+	{
+		checkValuesCount(series, values);
+
+		Update u = obtain(UpdateType.APPEND, series, values.length);
+		u.fID = id;
+		System.arraycopy(values, 0, u.fValues, 0, values.length);
+
+		enqueue(u);
+	}
+
+	/**
+	 * Replaces values of the last point of the series, the point is appended if the series is empty.
+	 * Can be called from any thread.
+	 *
+	 * @param values new values of the point, the array is copied
+	 */
+	public void updateLastPoint(AbstractSeries<?> series, double... values)
+	{
+		checkValuesCount(series, values);
+
+		Update u = obtain(UpdateType.UPDATE_LAST, series, values.length);
+		System.arraycopy(values, 0, u.fValues, 0, values.length);
+
+		enqueue(u);
+	}
+
+	/**
+	 * Sets the last value of the series (see {@link SeriesBase#setLastValue(double)}).
+	 * Can be called from any thread.
+	 */
+	public void setLastValue(SeriesBase series, double value)
+	{
+		Update u = obtain(UpdateType.SET_LAST_VALUE, series, 1);
+		u.fValues[0] = value;
+
+		enqueue(u);
+	}
+
+	/**
+	 * Runs the arbitrary change of the series on the UI thread with the next batch.
+	 * Indicators calculated from the series are recalculated rather than updated incrementally.
+	 * Can be called from any thread.
+	 *
+	 * @param changed series changed by the runnable, <code>null</code> to recalc all indicators
+	 */
+	public void post(SeriesBase changed, Runnable r)
+	{
+		Update u = obtain(UpdateType.CUSTOM, changed, 0);
+		u.fRunnable = r;
+
+		enqueue(u);
+	}
+
+	/**
+	 * Applies pending updates immediately. Must be called on the UI thread.
+	 */
+	public void flush()
+	{
+		fHandler.removeCallbacks(fDrain);
+		drain();
+	}
+
+	/**
+	 * Drops pending updates
+	 */
+	public void clear()
+	{
+		fHandler.removeCallbacks(fDrain);
+
+		synchronized(fLock)
+		{
+			fPool.addAll(fPending);
+			fPending.clear();
+			fIsScheduled = false;
+		}
+	}
+
+	private static void checkValuesCount(AbstractSeries<?> series, double[] values)
+	{
+		// fails on the producer's thread rather than in the middle of the batch
+		int valuesCount = series.getColumns().getValuesCount();
+
+		if(values.length != valuesCount)
+			throw new IllegalArgumentException("Expected "+valuesCount+" values, got "+values.length);
+	}
+
+	private Update obtain(UpdateType type, SeriesBase series, int valuesCount)
+	{
+		Update u = null;
+
+		synchronized(fLock)
+		{
+			if(!fPool.isEmpty())
+				u = fPool.remove(fPool.size() - 1);
+		}
+
+		if(null == u)
+			u = new Update();
+
+		if(null == u.fValues || u.fValues.length != valuesCount)
+			u.fValues = new double[valuesCount];
+
+		u.fType = type;
+		u.fSeries = series;
+
+		return u;
+	}
+
+	private void enqueue(Update u)
+	{
+		synchronized(fLock)
+		{
+			fPending.add(u);
+
+			if(fIsScheduled) return;
+
+			fIsScheduled = true;
+
+			long delay = fLastFrameTime + fFrameInterval - SystemClock.uptimeMillis();
+
+			fHandler.postDelayed(fDrain, Math.max(0, delay));
+		}
+	}
+
+	private void drain()
+	{
+		synchronized(fLock)
+		{
+			ArrayList<Update> batch = fPending;
+			fPending = fBatch;
+			fBatch = batch;
+
+			fIsScheduled = false;
+			fLastFrameTime = SystemClock.uptimeMillis();
+		}
+
+		int count = fBatch.size();
+
+		if(0 == count) return;
+
+		IndicatorManager indicators = fView.getIndicatorManager();
+
+		boolean recalcAll = false;
+		boolean hasCustom = false;
+
+		for(int i=0;i<count;i++)
+		{
+			Update u = fBatch.get(i);
+
+			if(UpdateType.CUSTOM == u.fType)
+			{
+				u.fRunnable.run();
+				hasCustom = true;
+
+				if(null == u.fSeries)
+					recalcAll = true;
+				else
+					getChanges(u.fSeries).fIsChanged = true;
+			}
+			else if(UpdateType.SET_LAST_VALUE == u.fType)
+			{
+				u.fSeries.setLastValue(u.fValues[0]);
+			}
+			else
+			{
+				apply(u, getChanges(u.fSeries), indicators);
+			}
+		}
+
+		if(recalcAll)
+		{
+			fView.recalcIndicators();
+		}
+		else
+		{
+			for(int i=0;i<fChangesCount;i++)
+			{
+				Changes c = fChanges.get(i);
+
+				if(c.fIsChanged)
+					fView.recalcIndicators(c.fSeries);
+				else if(c.fFirstAppended >= 0)
+					indicators.onPointsAppended(c.fSeries, c.fFirstAppended);
+				else if(c.fIsLastUpdated)
+					indicators.onLastPointUpdated(c.fSeries);
+			}
+		}
+
+		for(int i=0;i<fChangesCount;i++)
+			fChanges.get(i).fSeries = null;
+
+		fChangesCount = 0;
+
+		for(int i=0;i<count;i++)
+		{
+			Update u = fBatch.get(i);
+			u.fSeries = null;
+			u.fID = null;
+			u.fRunnable = null;
+		}
+
+		synchronized(fLock)
+		{
+			fPool.addAll(fBatch);
+		}
+
+		fBatch.clear();
+
+		fLastFrameUpdatesCount = count;
+
+		// arbitrary changes may affect any layer
+		if(recalcAll || hasCustom)
+			fView.invalidate();
+		else
+			fView.invalidate(Layer.SERIES);
+
+		if(null != fFrameListener)
+			fFrameListener.onFrame(count);
+	}
+
+	private void apply(Update u, Changes c, IndicatorManager indicators)
+	{
+		PointColumns columns = ((AbstractSeries<?>)u.fSeries).getColumns();
+
+		int last = columns.size() - 1;
+
+		if(UpdateType.UPDATE_LAST == u.fType && last >= 0)
+		{
+			for(int vi=0;vi<u.fValues.length;vi++)
+				columns.setValue(last, vi, u.fValues[vi]);
+
+			// appended points are calculated from scratch anyway
+			if(c.fFirstAppended < 0)
+				c.fIsLastUpdated = true;
+		}
+		else
+		{
+			// the old last point must get its final values before the new one is appended
+			if(c.fIsLastUpdated && c.fFirstAppended < 0 && !c.fIsChanged)
+			{
+				indicators.onLastPointUpdated(c.fSeries);
+				c.fIsLastUpdated = false;
+			}
+
+			int i = columns.add(u.fValues);
+
+			if(null != u.fID)
+				columns.setID(i, u.fID);
+
+			if(c.fFirstAppended < 0)
+				c.fFirstAppended = i;
+		}
+	}
+
+	private Changes getChanges(SeriesBase series)
+	{
+		for(int i=0;i<fChangesCount;i++)
+		{
+			Changes c = fChanges.get(i);
+
+			if(c.fSeries == series)
+				return c;
+		}
+
+		if(fChangesCount == fChanges.size())
+			fChanges.add(new Changes());
+
+		Changes c = fChanges.get(fChangesCount++);
+		c.fSeries = series;
+		c.fFirstAppended = -1;
+		c.fIsLastUpdated = false;
+		c.fIsChanged = false;
+
+		return c;
+	}
+}
@@ -15,9 +15,13 @@
  */
 package org.stockchart.indicators;
 
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.concurrent.Executor;
+
 import org.stockchart.core.SeriesPaintInfo;
-import org.stockchart.points.AbstractPoint;
 import org.stockchart.points.LinePoint;
+import org.stockchart.points.PointColumns;
 import org.stockchart.series.AbstractSeries;
 import org.stockchart.series.SeriesBase;
 
@@ -30,13 +34,30 @@ import android.graphics.Canvas;
 public abstract class AbstractIndicator 
 {	
 	private final SeriesBase[] fDst;
+	private SeriesBase[] fAllDst;
 	private final SeriesBase fSrc;
 	private int fValueIndex;
 	
+	private SourceColumn fSrcColumn = null;
+	
+	// Dst... series -> state of the source their positions have been copied from
+	private final IdentityHashMap<SeriesBase,CopiedPositions> fCopiedPositions = new IdentityHashMap<SeriesBase,CopiedPositions>();
+	
+	private static class CopiedPositions
+	{
+		SeriesBase src;
+		int srcVersion;
+		int srcCount;
+		int dstVersion;
+	}
+	
 	protected class DummySeries extends AbstractSeries<LinePoint>
 	{
 		@Override
 		protected void drawPoint(Canvas c, SeriesPaintInfo pinfo, float x1,	float x2, LinePoint p) { } 		
+		
+		@Override
+		protected LinePoint createPoint() { return new LinePoint(); }
 	}
 	
 	public AbstractIndicator(SeriesBase src,int valueIndex,SeriesBase... dstSeries)
@@ -44,6 +65,7 @@ public abstract class AbstractIndicator
 		fSrc = src;
 		fValueIndex = valueIndex;
 		fDst = dstSeries;
+		fAllDst = dstSeries;
 	}
 	
 	public int getValueIndex()
@@ -54,6 +76,7 @@ public abstract class AbstractIndicator
 	public void setValueIndex(int v)
 	{
 		fValueIndex = v;
+		invalidate();
 	}
 	
 	public SeriesBase[] getDst()
@@ -61,11 +84,82 @@ public abstract class AbstractIndicator
 		return fDst;
 	}
 	
+	/**
+	 * Gets all series calculated by the indicator: the Dst... series followed by the series 
+	 * the indicator fills but doesn't own (i.e. the SMA of Bollinger bands). Indicators are 
+	 * scheduled, copied for the background calculation and cached by these series, 
+	 * while only the Dst... series are removed together with the indicator.
+	 */
+	public SeriesBase[] getAllDst()
+	{
+		return fAllDst;
+	}
+	
+	/**
+	 * Sets the series returned by {@link #getAllDst()}, the Dst... series must go first.
+	 */
+	protected void setAllDst(SeriesBase... dstSeries)
+	{
+		fAllDst = dstSeries;
+	}
+	
 	public SeriesBase getSrc() 
 	{
 		return fSrc;
 	}
 	
+	/**
+	 * Creates the indicator of the same type and parameters calculated from the given source
+	 * into the given series, which must be of the same types as {@link #getAllDst()}.
+	 * Used to calculate the indicator over a snapshot of the source in background.
+	 * 
+	 * @return new indicator or <code>null</code> if the indicator doesn't support copying
+	 */
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		return null;
+	}
+	
+	/**
+	 * Gets the parameters the values of the indicator depend on besides the source 
+	 * and the value index, used to cache the values (see {@link IndicatorCache}).
+	 * 
+	 * @return parameters or <code>null</code> if the indicator can't be cached
+	 */
+	protected double[] getParameters()
+	{
+		return null;
+	}
+	
+	/**
+	 * Takes Dst... points calculated by the copy of the indicator (see {@link #copy(SeriesBase, SeriesBase...)}), 
+	 * the copy gets the old points. The rolling state is taken as well, so the incremental updates 
+	 * continue from the snapshot the copy has been calculated from (see {@link #takeState(AbstractIndicator)}).
+	 */
+	public void swapDst(AbstractIndicator computed)
+	{
+		SeriesBase[] dst = computed.getAllDst();
+		
+		for(int i=0;i<fAllDst.length;i++)
+			((AbstractSeries<?>)fAllDst[i]).swapPoints((AbstractSeries<?>)dst[i]);
+		
+		// parameters may have been changed while the copy was calculated
+		if(fValueIndex == computed.fValueIndex && Arrays.equals(getParameters(), computed.getParameters()))
+			takeState(computed);
+		else
+			invalidate();
+	}
+	
+	/**
+	 * Takes the rolling state of the copy of the indicator with the same parameters, 
+	 * which has been calculated from a snapshot of the source. Indicators keeping no state 
+	 * or unable to take it drop the state, so the next incremental update recalculates them.
+	 */
+	protected void takeState(AbstractIndicator computed)
+	{
+		invalidate();
+	}
+	
 	/**
 	 * Recalcs the indicator using given parameters
 	 * <p>
@@ -75,18 +169,164 @@ public abstract class AbstractIndicator
 	 * */
 	public abstract void recalc();
 	
+	/**
+	 * Extends Dst... series after new points were appended to the source series.
+	 * <p>
+	 * Indicators keep rolling state between the calls, so only the new points are 
+	 * calculated. If <code>fromIndex</code> points to the data which has been already 
+	 * processed, or the indicator has no state yet, the indicator is fully recalculated.
+	 * 
+	 * @param fromIndex index of the first appended point in the source series
+	 */
+	public void onPointsAppended(int fromIndex)
+	{
+		int processed = getProcessedCount();
+		
+		if(processed < 0 || fromIndex < processed || processed > getSrcPointCount())
+			recalc();
+		else
+			appendValues();
+	}
+	
+	/**
+	 * Patches the last values of Dst... series after the last point of the source
+	 * series has been changed (i.e. the forming bar got a new tick).
+	 * <p>
+	 * If the source series has grown since the last call, the missing values are appended.
+	 */
+	public void onLastPointUpdated()
+	{
+		int processed = getProcessedCount();
+		int count = getSrcPointCount();
+		
+		if(processed < 0 || processed > count)
+			recalc();
+		else if(processed < count)
+			appendValues();
+		else if(processed > 0)
+			updateLastValues();
+	}
+	
+	/**
+	 * Gets the number of source points folded into the rolling state of the indicator 
+	 * 
+	 * @return number of processed points, or -1 if the indicator has no state 
+	 * 		   and must be recalculated
+	 */
+	protected int getProcessedCount()
+	{
+		return -1;
+	}
+	
+	/**
+	 * Drops the rolling state, so the next incremental update recalcs the indicator.
+	 * Called whenever the parameters of the indicator are changed.
+	 */
+	protected void invalidate() { }
+	
+	/**
+	 * Calculates values for the source points which are not processed yet. 
+	 */
+	protected void appendValues() { }
+	
+	/**
+	 * Recalculates values for the last processed source point.
+	 */
+	protected void updateLastValues() { }
+	
 	protected int getSrcPointCount()
 	{
-		return fSrc.getPointCount();
+		return null == fSrcColumn?fSrc.getPointCount():fSrcColumn.getCount();
 	}
 	
 	protected double getSrcPointAt(int i)
 	{		
-		return ((AbstractPoint)fSrc.getPointAt(i)).getValues()[fValueIndex];
+		return null == fSrcColumn?fSrc.getValueAt(i, fValueIndex):fSrcColumn.getValueAt(i);
+	}
+	
+	/**
+	 * Makes the indicator read the source values taken by the group it is recalculated in
+	 * (see {@link IndicatorGroup}), <code>null</code> makes it read the source series again.
+	 * Indicators calculated by the inner indicators from the same source pass the column to them.
+	 */
+	void setSourceColumn(SourceColumn column)
+	{
+		fSrcColumn = column;
+	}
+	
+	protected SourceColumn getSourceColumn()
+	{
+		return fSrcColumn;
+	}
+	
+	/**
+	 * Gets the executor the source points are calculated on in parallel, 
+	 * if the indicator is recalculated by the group and the source is long enough.
+	 * 
+	 * @return the executor or <code>null</code> if the points are calculated one by one
+	 */
+	protected Executor getParallelExecutor()
+	{
+		return null == fSrcColumn?null:fSrcColumn.getExecutor(fSrcColumn.getCount());
+	}
+	
+	protected static void setLastDstValue(AbstractSeries<?> dst,int valueIndex,double value)
+	{
+		dst.setValueAt(dst.getPointCount() - 1, valueIndex, value);
 	}
 	
 	protected void resetDstIndexOffset(SeriesBase src, SeriesBase dst)	
 	{
-		dst.setIndexOffset(src.getIndexOffset() + (src.getPointCount() - dst.getPointCount()));		
+		int shift = src.getPointCount() - dst.getPointCount();
+		
+		dst.setIndexOffset(src.getIndexOffset() + shift);
+		
+		if(src.hasSparsePositions() && dst instanceof AbstractSeries)
+			copyPositions(src, ((AbstractSeries<?>)dst).getColumns(), dst, shift);
+	}
+	
+	/**
+	 * Places the points of the destination at the positions of the corresponding source points. 
+	 * If the positions of neither series have been changed since the last copy except the last points 
+	 * (see {@link PointColumns#getPositionsVersion()}), only the points from the last copied one are copied, 
+	 * so the appended points take O(1) each. Otherwise the positions of all points are compared.
+	 */
+	private void copyPositions(SeriesBase src, PointColumns dst, SeriesBase dstSeries, int shift)
+	{
+		CopiedPositions last = fCopiedPositions.get(dstSeries);
+		
+		if(null == last)
+		{
+			last = new CopiedPositions();
+			fCopiedPositions.put(dstSeries, last);
+		}
+		
+		int from = 0;
+		
+		if(last.src == src && last.srcVersion == src.getPositionsVersion() && last.dstVersion == dst.getPositionsVersion())
+			from = Math.max(0, last.srcCount - 1 - shift);
+		
+		// points moved forward are placed from the end and points moved back from the start, 
+		// so the points never come closer than one to their neighbors
+		for(int i=dst.size() - 1;i>=from;i--)
+		{
+			double position = src.getPositionAt(i + shift) - shift;
+			
+			if(dst.getPosition(i) < position)
+				dst.setPosition(i, position);
+		}
+		
+		for(int i=from;i<dst.size();i++)
+		{
+			double position = src.getPositionAt(i + shift) - shift;
+			
+			if(dst.getPosition(i) > position)
+				dst.setPosition(i, position);
+		}
+		
+		last.src = src;
+		last.srcVersion = src.getPositionsVersion();
+		last.srcCount = src.getPointCount();
+		last.dstVersion = dst.getPositionsVersion();
 	}
 }
@@ -15,6 +15,8 @@
  */
 package org.stockchart.indicators;
 
+import java.util.concurrent.Executor;
+
 import org.stockchart.indicators.SmaIndicator.SmaIterator;
 import org.stockchart.series.LinearSeries;
 import org.stockchart.series.RangeSeries;
@@ -35,12 +37,20 @@ public class BollingerBandsIndicator extends AbstractIndicator
 	private final LinearSeries fDstSma;
 	private final RangeSeries fDstSeries;
 	
+	private SmaIterator fIterator;
+	
+	private RollingStatistics fStats;
+	private int fStatsLastIndex;
+	
 	public BollingerBandsIndicator(SeriesBase src, int valueIndex, LinearSeries dstSma,RangeSeries bbSeries)
 	{
 		super(src,valueIndex,bbSeries);
 		
 		fDstSma = dstSma;
 		fDstSeries = bbSeries;
+		
+		// the SMA series is calculated, but it isn't removed with the indicator
+		setAllDst(bbSeries, dstSma);
 	
 		fSma = new SmaIndicator(src,valueIndex,null);
 	}
@@ -61,6 +71,7 @@ public class BollingerBandsIndicator extends AbstractIndicator
 	public void setPeriodsCount(int v) 
 	{
 		this.fPeriodsCount = v;
+		invalidate();
 	}
 
 	public double getUpperCoeff() 
@@ -71,6 +82,7 @@ public class BollingerBandsIndicator extends AbstractIndicator
 	public void setUpperCoeff(double v) 
 	{
 		this.fUpperCoeff = v;
+		invalidate();
 	}
 
 
@@ -84,10 +96,28 @@ public class BollingerBandsIndicator extends AbstractIndicator
 	public void setLowerCoeff(double v) 
 	{
 		this.fLowerCoeff = v;
+		invalidate();
 	}
 
 
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fPeriodsCount, fUpperCoeff, fLowerCoeff };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		BollingerBandsIndicator copy = new BollingerBandsIndicator(src, getValueIndex(), (LinearSeries)dst[1], (RangeSeries)dst[0]);
+		copy.setPeriodsCount(fPeriodsCount);
+		copy.setUpperCoeff(fUpperCoeff);
+		copy.setLowerCoeff(fLowerCoeff);
+		
+		return copy;
+	}
+	
 	@Override
 	public void recalc() 
 	{
@@ -96,31 +126,149 @@ public class BollingerBandsIndicator extends AbstractIndicator
 				
 		fSma.setPeriodsCount(fPeriodsCount);
 		
-		SmaIterator smaIterator = fSma.iterator();
-				
-		int i = fPeriodsCount - 1;
-		while(smaIterator.hasNext())
+		fIterator = fSma.iterator();
+		
+		Executor executor = getParallelExecutor();
+		double[] summs = null == executor?null:fIterator.getSharedSumms();
+		
+		if(null == summs)
 		{
-			double sma = smaIterator.getNext();
+			fStats = new RollingStatistics(fPeriodsCount);
+			fStatsLastIndex = -1;
 			
-			double summ = 0.0;
-			
-			for(int j=0;j<fPeriodsCount;j++)
+			appendValues();
+		}
+		else
+		{
+			recalcInChunks(summs, executor);
+		}
+	}
+	
+	/**
+	 * Writes the bands into the preallocated points in parallel. Every chunk slides its own statistics 
+	 * starting one period before the chunk, the statistics of the last chunk are kept for the updates.
+	 */
+	private void recalcInChunks(final double[] summs,Executor executor)
+	{
+		final int pk = fPeriodsCount;
+		final double upperCoeff = fUpperCoeff;
+		final double lowerCoeff = fLowerCoeff;
+		
+		int count = getSrcPointCount();
+		
+		fDstSma.getColumns().reset(count - pk + 1);
+		fDstSeries.getColumns().reset(count - pk + 1);
+		
+		final double[] smas = fDstSma.getColumns().getColumn(0);
+		final double[] uppers = fDstSeries.getColumns().getColumn(0);
+		final double[] lowers = fDstSeries.getColumns().getColumn(1);
+		
+		final RollingStatistics[] stats = new RollingStatistics[ChunkedLoop.getChunksCount(pk - 1, count, executor)];
+		
+		ChunkedLoop.run(pk - 1, count, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int fromIndex, int toIndex) 
 			{
-				double p = this.getSrcPointAt(i-j);
+				RollingStatistics s = new RollingStatistics(pk);
+				
+				for(int i=fromIndex - pk + 1;i<toIndex;i++)
+				{
+					s.push(getSrcPointAt(i));
+					
+					if(i < fromIndex) continue;
+					
+					double sma = summs[i]/pk;
+					double stDev = s.getStDev();
+					
+					smas[i - pk + 1] = sma;
+					uppers[i - pk + 1] = sma + upperCoeff * stDev;
+					lowers[i - pk + 1] = sma - lowerCoeff * stDev;
+				}
 				
-				summ+=(p - sma)*(p-sma);
+				stats[chunk] = s;
 			}
+		});
+		
+		fStats = stats[stats.length - 1];
+		fStatsLastIndex = count - 1;
+		
+		fIterator.skipShared();
+		
+		this.resetDstIndexOffset(getSrc(), fDstSma);
+		this.resetDstIndexOffset(getSrc(), fDstSeries);
+	}
+	
+	@Override
+	void setSourceColumn(SourceColumn column)
+	{
+		super.setSourceColumn(column);
+		fSma.setSourceColumn(column);
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return null == fIterator?-1:fIterator.getProcessedCount();
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fIterator = null;
+		fStats = null;
+	}
+	
+	@Override
+	protected void takeState(AbstractIndicator computed)
+	{
+		BollingerBandsIndicator bb = (BollingerBandsIndicator)computed;
+		
+		fSma.setPeriodsCount(fPeriodsCount);
+		
+		fIterator = fSma.takeIterator(bb.fIterator);
+		fStats = null == bb.fStats?null:bb.fStats.copy();
+		fStatsLastIndex = bb.fStatsLastIndex;
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		while(fIterator.hasNext())
+		{
+			double sma = fIterator.getNext();
+			double stDev = getStDev(fIterator.index - 1);
 			
-			double stDev = Math.sqrt(summ / fPeriodsCount);
-			
-			fDstSma.addPoint(sma);
-			fDstSeries.addPoint(sma + fUpperCoeff * stDev, sma - fLowerCoeff * stDev);
-			i++;
+			fDstSma.getColumns().add(sma);
+			fDstSeries.getColumns().add(sma + fUpperCoeff * stDev, sma - fLowerCoeff * stDev);
 		}
 		
 		this.resetDstIndexOffset(getSrc(), fDstSma);
 		this.resetDstIndexOffset(getSrc(), fDstSeries);
 	}
-
+	
+	@Override
+	protected void updateLastValues()
+	{
+		double sma = fIterator.updateLast();
+		
+		fStats.updateLast(this.getSrcPointAt(fIterator.index - 1));
+		double stDev = fStats.getStDev();
+		
+		setLastDstValue(fDstSma, 0, sma);
+		setLastDstValue(fDstSeries, 0, sma + fUpperCoeff * stDev);
+		setLastDstValue(fDstSeries, 1, sma - fLowerCoeff * stDev);
+	}
+	
+	/**
+	 * Gets the standard deviation of the window ending at the given point, 
+	 * the window is moved forward by the rolling statistics in O(1) per point
+	 */
+	private double getStDev(int i)
+	{
+		while(fStatsLastIndex < i)
+			fStats.push(this.getSrcPointAt(++fStatsLastIndex));
+		
+		return fStats.getStDev();
+	}
 }
@@ -0,0 +1,149 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Loop over the range of points split into chunks which are processed in parallel.
+ * <p>
+ * The calling thread processes chunks too and waits only for the chunks taken by other threads, 
+ * so the loop may run in a task of the same executor without exhausting it. 
+ * If the executor rejects the helpers (i.e. it has been shut down), the calling thread processes all chunks.
+ */
+class ChunkedLoop 
+{
+	private static final int MIN_CHUNK_SIZE = 1 << 14;
+	
+	public interface IChunkTask
+	{
+		/**
+		 * Processes points from <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive.
+		 * 
+		 * @param chunk index of the chunk, chunks go in the order of the points 
+		 */
+		public void run(int chunk,int fromIndex,int toIndex);
+	}
+	
+	/**
+	 * Gets the number of chunks the range is split into by {@link #run(int, int, Executor, IChunkTask)}
+	 */
+	public static int getChunksCount(int fromIndex,int toIndex,Executor executor)
+	{
+		if(null == executor || toIndex <= fromIndex) return 1;
+		
+		int count = 4 * Runtime.getRuntime().availableProcessors();
+		
+		return Math.max(1, Math.min(count, (toIndex - fromIndex) / MIN_CHUNK_SIZE));
+	}
+	
+	/**
+	 * Runs the task for the chunks of the range and returns when all of them are finished. 
+	 * Chunks are never empty unless the range is, the same range is always split the same way.
+	 * 
+	 * @param executor executor running the chunks, <code>null</code> to run the range as one chunk
+	 */
+	public static void run(final int fromIndex, final int toIndex, Executor executor, final IChunkTask task)
+	{
+		final int chunksCount = getChunksCount(fromIndex, toIndex, executor);
+		
+		if(1 == chunksCount)
+		{
+			task.run(0, fromIndex, toIndex);
+			return;
+		}
+		
+		final AtomicInteger next = new AtomicInteger(0);
+		final CountDownLatch done = new CountDownLatch(chunksCount);
+		final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		
+		Runnable worker = new Runnable()
+		{
+			@Override
+			public void run() 
+			{
+				int chunk;
+				
+				while((chunk = next.getAndIncrement()) < chunksCount)
+				{
+					try
+					{
+						task.run(chunk, getBound(chunk), getBound(chunk + 1));
+					}
+					catch(Throwable t)
+					{
+						error.compareAndSet(null, t);
+					}
+					
+					done.countDown();
+				}
+			}
+			
+			private int getBound(int chunk)
+			{
+				return fromIndex + (int)((long)(toIndex - fromIndex) * chunk / chunksCount);
+			}
+		};
+		
+		int helpersCount = Math.min(chunksCount, Runtime.getRuntime().availableProcessors()) - 1;
+		
+		for(int i=0;i<helpersCount;i++)
+		{
+			try
+			{
+				executor.execute(worker);
+			}
+			catch(RejectedExecutionException e)
+			{
+				// the executor has been shut down, the calling thread processes the rest of the chunks
+				break;
+			}
+		}
+		
+		worker.run();
+		
+		// the rest of the chunks are being processed by the helpers
+		boolean isInterrupted = false;
+		
+		while(true)
+		{
+			try
+			{
+				done.await();
+				break;
+			}
+			catch(InterruptedException e)
+			{
+				isInterrupted = true;
+			}
+		}
+		
+		if(isInterrupted)
+			Thread.currentThread().interrupt();
+		
+		Throwable t = error.get();
+		
+		if(t instanceof RuntimeException)
+			throw (RuntimeException)t;
+		
+		if(t instanceof Error)
+			throw (Error)t;
+	}
+}
@@ -15,7 +15,6 @@
  */
 package org.stockchart.indicators;
 
-import org.stockchart.points.LinePoint;
 import org.stockchart.series.LinearSeries;
 import org.stockchart.series.SeriesBase;
 
@@ -30,8 +29,14 @@ public class EmaIndicator extends AbstractIndicator
 		public double ema = Double.NaN;
 		public int index = EmaIndicator.this.fPeriodsCount - 1;
 		
+		private final int fPk = EmaIndicator.this.fPeriodsCount;
 		private final double K =  2.0/(1.0 + EmaIndicator.this.fPeriodsCount);
 		
+		private double fPrevEma = Double.NaN;
+		
+		// averages calculated by the group the indicator is recalculated in
+		private double[] fSharedEmas = EmaIndicator.this.getSharedEmas(fPk);
+		
 		public boolean hasNext()
 		{
 			return index < EmaIndicator.this.getSrcPointCount();
@@ -39,30 +44,92 @@ public class EmaIndicator extends AbstractIndicator
 		
 		public double getNext()
 		{
-			if(Double.isNaN(ema))
+			if(null != fSharedEmas)
 			{
-				double sma = 0.0;
-				
-				for(int i=0;i<EmaIndicator.this.fPeriodsCount;i++)
+				// the averages are valid while the group is recalculated
+				if(index < fSharedEmas.length && null != EmaIndicator.this.getSourceColumn())
 				{
-					sma += EmaIndicator.this.getSrcPointAt(i);
+					if(!Double.isNaN(ema))
+						fPrevEma = ema;
+					
+					ema = fSharedEmas[index];
+					index++;
+					
+					// the rest is incremental, the averages of the source column aren't kept
+					if(index == fSharedEmas.length)
+						fSharedEmas = null;
+					
+					return ema;
 				}
 				
-				ema = sma / EmaIndicator.this.fPeriodsCount;	
+				fSharedEmas = null;
+			}
+			
+			if(Double.isNaN(ema))
+			{
+				ema = getSeed();	
 				index++;
 				return ema;
 			}
 
+			fPrevEma = ema;
 			ema = EmaIndicator.this.getSrcPointAt(index) * K + ema * (1.0 - K);
 			index++;
 			
 			return ema;
 		}		
+		
+		/**
+		 * Recalculates the value returned by the last <code>getNext()</code> call,
+		 * taking into account the new value of the last processed point.
+		 */
+		public double updateLast()
+		{
+			if(Double.isNaN(fPrevEma))
+				ema = getSeed();
+			else
+				ema = EmaIndicator.this.getSrcPointAt(index - 1) * K + fPrevEma * (1.0 - K);
+			
+			return ema;
+		}
+		
+		/**
+		 * Gets the number of source points processed by the iterator 
+		 */
+		public int getProcessedCount()
+		{
+			return Double.isNaN(ema)?0:index;
+		}
+		
+		/**
+		 * Takes the state of the iterator of another indicator with the same periods count
+		 */
+		void assign(EmaIterator other)
+		{
+			ema = other.ema;
+			index = other.index;
+			fPrevEma = other.fPrevEma;
+			fSharedEmas = null;
+		}
+		
+		private double getSeed()
+		{
+			double sma = 0.0;
+			
+			for(int i=0;i<fPk;i++)
+			{
+				sma += EmaIndicator.this.getSrcPointAt(i);
+			}
+			
+			return sma / fPk;
+		}
 	}
 		
 	private int fPeriodsCount = 20;
 	private final LinearSeries fDstEma;
 	
+	private EmaIterator fIterator;
+	
 	public EmaIndicator(SeriesBase src,int valueIndex, LinearSeries dst)
 	{
 		super(src,valueIndex, dst);
@@ -74,6 +141,13 @@ public class EmaIndicator extends AbstractIndicator
 	{
 		return new EmaIterator();
 	}
+	
+	private double[] getSharedEmas(int pk)
+	{
+		SourceColumn column = getSourceColumn();
+		
+		return null == column?null:column.getEmas(pk);
+	}
 
 	
 	public int getPeriodsCount() {
@@ -82,26 +156,87 @@ public class EmaIndicator extends AbstractIndicator
 
 	public void setPeriodsCount(int v) {
 		this.fPeriodsCount = v;
+		invalidate();
 	}
 
 	public LinearSeries getDstEma() {
 		return fDstEma;
 	}
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fPeriodsCount };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		EmaIndicator copy = new EmaIndicator(src, getValueIndex(), (LinearSeries)dst[0]);
+		copy.setPeriodsCount(fPeriodsCount);
+		
+		return copy;
+	}
+	
 	@Override
 	public void recalc()
 	{
 		fDstEma.getPoints().clear();
 		
-		EmaIterator i = this.iterator();
-		while(i.hasNext())
+		fIterator = this.iterator();
+		
+		appendValues();
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return null == fIterator?-1:fIterator.getProcessedCount();
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fIterator = null;
+	}
+	
+	@Override
+	protected void takeState(AbstractIndicator computed)
+	{
+		fIterator = takeIterator(((EmaIndicator)computed).fIterator);
+	}
+	
+	/**
+	 * Creates the iterator having the state of the given one, 
+	 * <code>null</code> if there is no state
+	 */
+	EmaIterator takeIterator(EmaIterator state)
+	{
+		if(null == state) return null;
+		
+		EmaIterator iterator = iterator();
+		iterator.assign(state);
+		
+		return iterator;
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		while(fIterator.hasNext())
 		{
-			fDstEma.getPoints().add(new LinePoint(i.getNext()));
+			fDstEma.getColumns().add(fIterator.getNext());
 		}
 		
 		this.resetDstIndexOffset(getSrc(), fDstEma);
 	}
 	
+	@Override
+	protected void updateLastValues()
+	{
+		setLastDstValue(fDstEma, 0, fIterator.updateLast());
+	}
+	
 	public static double getK(int periodsCount)
 	{
 		return 2.0/(1.0 + periodsCount);
@@ -31,6 +31,8 @@ public class EnvelopesIndicator extends AbstractIndicator
 	private int fPeriodsCount = 26;
 	private final RangeSeries fDstEnvelopes;
 	
+	private EmaIterator fIterator;
+	
 	public EnvelopesIndicator(SeriesBase src, int valueIndex, RangeSeries dstEnvelopes)
 	{
 		super(src,valueIndex, dstEnvelopes);
@@ -48,6 +50,7 @@ public class EnvelopesIndicator extends AbstractIndicator
 
 	public void setPercent(double percent) {
 		fPercent = percent;
+		invalidate();
 	}
 
 
@@ -58,6 +61,7 @@ public class EnvelopesIndicator extends AbstractIndicator
 
 	public void setPeriodsCount(int periodsCount) {
 		fPeriodsCount = periodsCount;
+		invalidate();
 	}
 
 
@@ -66,22 +70,87 @@ public class EnvelopesIndicator extends AbstractIndicator
 	}
 
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fPeriodsCount, fPercent };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		EnvelopesIndicator copy = new EnvelopesIndicator(src, getValueIndex(), (RangeSeries)dst[0]);
+		copy.setPeriodsCount(fPeriodsCount);
+		copy.setPercent(fPercent);
+		
+		return copy;
+	}
+	
 	public void recalc()
 	{
 		fDstEnvelopes.getPoints().clear();
 	
 		fEma.setPeriodsCount(fPeriodsCount);
-		EmaIterator i = fEma.iterator();
+		fIterator = fEma.iterator();
 		
-		while(i.hasNext())
+		appendValues();
+	}
+	
+	@Override
+	void setSourceColumn(SourceColumn column)
+	{
+		super.setSourceColumn(column);
+		fEma.setSourceColumn(column);
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return null == fIterator?-1:fIterator.getProcessedCount();
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fIterator = null;
+	}
+	
+	@Override
+	protected void takeState(AbstractIndicator computed)
+	{
+		fEma.setPeriodsCount(fPeriodsCount);
+		fIterator = fEma.takeIterator(((EnvelopesIndicator)computed).fIterator);
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		while(fIterator.hasNext())
 		{
-			double value = i.getNext();
-			double lower = value*(1.0 - fPercent/100.0);
-			double upper = value*(1.0 + fPercent/100.0);
+			double value = fIterator.getNext();
 			
-			fDstEnvelopes.addPoint(lower, upper);
+			fDstEnvelopes.getColumns().add(getLower(value), getUpper(value));
 		}
 		
 		this.resetDstIndexOffset(getSrc(), fDstEnvelopes);
 	}
+	
+	@Override
+	protected void updateLastValues()
+	{
+		double value = fIterator.updateLast();
+		
+		setLastDstValue(fDstEnvelopes, 0, getLower(value));
+		setLastDstValue(fDstEnvelopes, 1, getUpper(value));
+	}
+	
+	private double getLower(double value)
+	{
+		return value*(1.0 - fPercent/100.0);
+	}
+	
+	private double getUpper(double value)
+	{
+		return value*(1.0 + fPercent/100.0);
+	}
 }
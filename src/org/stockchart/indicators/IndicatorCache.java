@@ -0,0 +1,455 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.stockchart.points.PointColumns;
+import org.stockchart.series.AbstractSeries;
+import org.stockchart.series.SeriesBase;
+
+/**
+ * Values of the indicators calculated before, so switching the indicators or their parameters 
+ * back doesn't recalc them. Dst... points are copied only when they are about to be replaced 
+ * (see {@link #putReplaced(AbstractIndicator, boolean)}), recalcs of the unchanged indicators copy nothing.
+ * <p>
+ * Values are looked up by the source series, its state, the value index, the type of the indicator 
+ * and its parameters (see {@link AbstractIndicator#getParameters()}). The state of the source is its version 
+ * (see {@link SeriesBase#getVersion()}), or the key of the values if the source is the Dst... series 
+ * of another indicator, so the consumers of the restored indicators are restored as well.
+ * The source is weakly referenced, values of the removed sources are evicted by {@link #remove(SeriesBase)}.
+ * Least recently used values are evicted when the copies of the Dst... points exceed the memory budget.
+ * <p>
+ * The rolling state is cached together with the values in the copy of the indicator 
+ * (see {@link AbstractIndicator#copy(SeriesBase, SeriesBase...)}), so incremental updates 
+ * continue from the restored values. Indicators which can't be copied are recalculated 
+ * by the next incremental update.
+ */
+public class IndicatorCache 
+{
+	/**
+	 * 1/16 of the heap limit but no more than 8 MB
+	 */
+	public static final long DEFAULT_BUDGET = Math.min(8L << 20, Runtime.getRuntime().maxMemory() >> 4);
+	
+	public static final class Key
+	{
+		private final WeakReference<SeriesBase> fSrc;
+		private final int fSrcHash;
+		// Integer version of the source or the Key of the values it holds
+		private final Object fSrcState;
+		private final int fValueIndex;
+		private final Class<?> fType;
+		private final double[] fParameters;
+		
+		private Key(AbstractIndicator a,Object srcState,double[] parameters)
+		{
+			fSrc = new WeakReference<SeriesBase>(a.getSrc());
+			fSrcHash = System.identityHashCode(a.getSrc());
+			fSrcState = srcState;
+			fValueIndex = a.getValueIndex();
+			fType = a.getClass();
+			fParameters = parameters;
+		}
+		
+		@Override
+		public boolean equals(Object o)
+		{
+			if(!(o instanceof Key)) return false;
+			
+			Key k = (Key)o;
+			
+			SeriesBase src = fSrc.get();
+			
+			return null != src && src == k.fSrc.get() && fSrcState.equals(k.fSrcState) && fValueIndex == k.fValueIndex && 
+				   fType == k.fType && Arrays.equals(fParameters, k.fParameters);
+		}
+		
+		@Override
+		public int hashCode()
+		{
+			int h = fSrcHash;
+			
+			h = 31*h + fSrcState.hashCode();
+			h = 31*h + fValueIndex;
+			h = 31*h + fType.hashCode();
+			h = 31*h + Arrays.hashCode(fParameters);
+			
+			return h;
+		}
+	}
+	
+	private static class Entry
+	{
+		private final PointColumns[] fColumns;
+		private final int[] fIndexOffsets;
+		private final long fSize;
+		
+		// copy of the indicator holding the rolling state, null if the indicator can't be copied
+		private final AbstractIndicator fState;
+		
+		private Entry(AbstractIndicator a,AbstractIndicator state)
+		{
+			SeriesBase[] dst = a.getAllDst();
+			
+			fColumns = new PointColumns[dst.length];
+			fIndexOffsets = new int[dst.length];
+			
+			long size = 0;
+			
+			for(int i=0;i<dst.length;i++)
+			{
+				PointColumns c = ((AbstractSeries<?>)dst[i]).getColumns();
+				
+				fColumns[i] = new PointColumns(c.getValuesCount());
+				fColumns[i].assign(c);
+				fIndexOffsets[i] = dst[i].getIndexOffset();
+				
+				size += getSize(c);
+			}
+			
+			fSize = size;
+			fState = state;
+		}
+	}
+	
+	/**
+	 * Key of the values the indicator has been calculated for and its rolling state at that moment, 
+	 * the parameters may be changed before the values are cached.
+	 */
+	private static class Calculated
+	{
+		private final Key fKey;
+		private final AbstractIndicator fState;
+		
+		private Calculated(Key key,AbstractIndicator state)
+		{
+			fKey = key;
+			fState = state;
+		}
+	}
+	
+	/**
+	 * Key of the values the Dst... series holds and the version of the series
+	 */
+	private static class DstKey
+	{
+		private final Key fKey;
+		private final int fVersion;
+		
+		private DstKey(Key key,int version)
+		{
+			fKey = key;
+			fVersion = version;
+		}
+	}
+	
+	// in the access order, the eldest entry is evicted first
+	private final LinkedHashMap<Key,Entry> fEntries = new LinkedHashMap<Key,Entry>(16, 0.75f, true);
+	
+	// indicator -> key of the values its Dst... series hold
+	private final WeakHashMap<AbstractIndicator,Calculated> fCalculated = new WeakHashMap<AbstractIndicator,Calculated>();
+	private final WeakHashMap<SeriesBase,DstKey> fDstKeys = new WeakHashMap<SeriesBase,DstKey>();
+	
+	private long fBudget;
+	private long fSize = 0;
+	
+	public IndicatorCache()
+	{
+		this(DEFAULT_BUDGET);
+	}
+	
+	/**
+	 * @param budget maximal size of the cached values in bytes, 0 disables the cache
+	 */
+	public IndicatorCache(long budget)
+	{
+		fBudget = budget;
+	}
+	
+	public long getBudget()
+	{
+		return fBudget;
+	}
+	
+	public void setBudget(long budget)
+	{
+		fBudget = budget;
+		trim(budget);
+	}
+	
+	/**
+	 * Gets the size of the cached values in bytes
+	 */
+	public long getSize()
+	{
+		return fSize;
+	}
+	
+	public void clear()
+	{
+		fEntries.clear();
+		fCalculated.clear();
+		fDstKeys.clear();
+		fSize = 0;
+	}
+	
+	/**
+	 * Evicts the values calculated from the series, i.e. when the indicator or the series is removed.
+	 * Values of the collected sources are evicted as well.
+	 */
+	public void remove(SeriesBase src)
+	{
+		Iterator<Map.Entry<Key,Entry>> i = fEntries.entrySet().iterator();
+		
+		while(i.hasNext())
+		{
+			Map.Entry<Key,Entry> e = i.next();
+			SeriesBase s = e.getKey().fSrc.get();
+			
+			if(null == s || s == src)
+			{
+				fSize -= e.getValue().fSize;
+				i.remove();
+			}
+		}
+	}
+	
+	/**
+	 * Gets the key of the values the indicator has for the current version of its source
+	 * 
+	 * @return the key or <code>null</code> if the indicator can't be cached
+	 */
+	public Key getKey(AbstractIndicator a)
+	{
+		if(fBudget <= 0) return null;
+		
+		double[] parameters = a.getParameters();
+		
+		if(null == parameters) return null;
+		
+		for(SeriesBase dst: a.getAllDst())
+		{
+			if(!(dst instanceof AbstractSeries)) return null;
+		}
+		
+		return new Key(a, getSrcState(a.getSrc()), parameters);
+	}
+	
+	/**
+	 * Sets the key of the values the indicator has been calculated or restored for, 
+	 * the consumers of its Dst... series are keyed by it until the series are changed.
+	 * 
+	 * @param key the key or <code>null</code> if the values don't match the current sources
+	 */
+	public void setCalculated(AbstractIndicator a,Key key)
+	{
+		if(null == key)
+			fCalculated.remove(a);
+		else
+			fCalculated.put(a, new Calculated(key, createState(a)));
+		
+		for(SeriesBase dst: a.getAllDst())
+		{
+			if(null == key)
+				fDstKeys.remove(dst);
+			else
+				fDstKeys.put(dst, new DstKey(key, dst.getVersion()));
+		}
+	}
+	
+	/**
+	 * Caches Dst... points of the indicator before they are replaced, i.e. if the parameters 
+	 * of the indicator have been changed since they were calculated, or its source is replaced. 
+	 * Must be called for the indicators in topological order before they are restored or recalculated, 
+	 * the points are copied only if their key is still valid.
+	 * 
+	 * @param isSrcReplaced whether the source is the Dst... series of the replaced indicator
+	 * @return whether the points of the indicator are replaced
+	 */
+	public boolean putReplaced(AbstractIndicator a,boolean isSrcReplaced)
+	{
+		Calculated last = fCalculated.get(a);
+		
+		if(!isSrcReplaced && null != last && last.fKey.equals(getKey(a))) return false;
+		
+		if(null != last && !fEntries.containsKey(last.fKey))
+			put(a, last);
+		
+		return true;
+	}
+	
+	/**
+	 * Replaces Dst... points and the rolling state of the indicator with the cached ones. 
+	 * 
+	 * @return <code>false</code> if there are no values for the key
+	 */
+	public boolean restore(AbstractIndicator a,Key key)
+	{
+		if(isCalculated(a, key)) return true;
+		
+		Entry e = null == key?null:fEntries.get(key);
+		
+		if(null == e) return false;
+		
+		SeriesBase[] dst = a.getAllDst();
+		
+		for(int i=0;i<dst.length;i++)
+		{
+			((AbstractSeries<?>)dst[i]).getColumns().assign(e.fColumns[i]);
+			dst[i].setIndexOffset(e.fIndexOffsets[i]);
+		}
+		
+		if(null == e.fState)
+			a.invalidate();
+		else
+			a.takeState(e.fState);
+		
+		setCalculated(a, key);
+		
+		return true;
+	}
+	
+	/**
+	 * Caches Dst... points of the indicator calculated for the key.
+	 * Values are not cached if the sources have been changed since they were calculated, 
+	 * or if they don't fit into the budget.
+	 */
+	private void put(AbstractIndicator a,Calculated calculated)
+	{
+		Key key = calculated.fKey;
+		
+		if(!isValid(key)) return;
+		
+		long size = 0;
+		
+		for(SeriesBase dst: a.getAllDst())
+			size += getSize(((AbstractSeries<?>)dst).getColumns());
+		
+		if(size > fBudget) return;
+		
+		remove(key);
+		trim(fBudget - size);
+		
+		Entry e = new Entry(a, calculated.fState);
+		
+		fEntries.put(key, e);
+		fSize += e.fSize;
+	}
+	
+	/**
+	 * Whether Dst... series of the indicator still hold the values calculated for the key
+	 */
+	private boolean isCalculated(AbstractIndicator a,Key key)
+	{
+		Calculated c = null == key?null:fCalculated.get(a);
+		
+		if(null == c || !key.equals(c.fKey)) return false;
+		
+		for(SeriesBase dst: a.getAllDst())
+		{
+			DstKey d = fDstKeys.get(dst);
+			
+			if(null == d || d.fVersion != dst.getVersion()) return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Gets the key of the values the series holds or its version
+	 */
+	private Object getSrcState(SeriesBase src)
+	{
+		DstKey c = fDstKeys.get(src);
+		
+		if(null != c && c.fVersion == src.getVersion())
+			return c.fKey;
+		
+		return src.getVersion();
+	}
+	
+	/**
+	 * Whether the source of the key and the sources it has been calculated from haven't been changed
+	 */
+	private boolean isValid(Key key)
+	{
+		SeriesBase src = key.fSrc.get();
+		
+		if(null == src || !key.fSrcState.equals(getSrcState(src))) return false;
+		
+		return !(key.fSrcState instanceof Key) || isValid((Key)key.fSrcState);
+	}
+	
+	private void remove(Key key)
+	{
+		Entry e = fEntries.remove(key);
+		
+		if(null != e)
+			fSize -= e.fSize;
+	}
+	
+	private void trim(long size)
+	{
+		Iterator<Map.Entry<Key,Entry>> i = fEntries.entrySet().iterator();
+		
+		while(fSize > size && i.hasNext())
+		{
+			fSize -= i.next().getValue().fSize;
+			i.remove();
+		}
+	}
+	
+	/**
+	 * Copies the indicator into empty series and moves the rolling state into the copy,
+	 * so the state doesn't reference the source and the Dst... series.
+	 */
+	private static AbstractIndicator createState(AbstractIndicator a)
+	{
+		SeriesBase[] dst = a.getAllDst();
+		SeriesBase[] dstCopies = new SeriesBase[dst.length];
+		
+		for(int i=0;i<dst.length;i++)
+		{
+			dstCopies[i] = ((AbstractSeries<?>)dst[i]).createEmptyCopy();
+			
+			if(null == dstCopies[i]) return null;
+		}
+		
+		SeriesBase src = a.getSrc() instanceof AbstractSeries?((AbstractSeries<?>)a.getSrc()).createEmptyCopy():null;
+		
+		if(null == src) return null;
+		
+		AbstractIndicator state = a.copy(src, dstCopies);
+		
+		if(null != state)
+			state.takeState(a);
+		
+		return state;
+	}
+	
+	private static long getSize(PointColumns c)
+	{
+		int valuesCount = c.getValuesCount() + (c.hasPositions()?1:0);
+		
+		return 8L * valuesCount * c.size();
+	}
+}
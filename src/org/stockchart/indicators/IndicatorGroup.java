@@ -0,0 +1,193 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.stockchart.series.SeriesBase;
+
+/**
+ * Indicators calculated from the same value of the same source series, recalculated together.
+ * <p>
+ * All indicators of the group read the source values from one column: the backing array of the series 
+ * (see {@link SeriesBase#getColumn(int)}) or, if the series doesn't keep the values in memory and the group 
+ * has several indicators, their copy (see {@link SeriesBase#copyColumn(int, int, int, double[], int)}), 
+ * instead of every indicator getting the points of the series. Inner moving averages of the same 
+ * period are shared, i.e. the SMA of Bollinger bands and the standalone SMA, 
+ * the EMA of envelopes and the standalone EMA. Long columns get exponential averages 
+ * of EMA, MACD, RSI and Stochastic, and the windows of SMA, Bollinger bands and Stochastic 
+ * calculated in parallel. Dst... series of the group are 
+ * the Dst... series of its indicators.
+ */
+public class IndicatorGroup extends AbstractIndicator
+{
+	/**
+	 * Default number of points from which the indicators are calculated in parallel 
+	 */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 16;
+	
+	private final ArrayList<AbstractIndicator> fIndicators;
+	private final Executor fExecutor;
+	private final int fParallelThreshold;
+	
+	private IndicatorGroup(ArrayList<AbstractIndicator> indicators,Executor executor,int parallelThreshold)
+	{
+		super(indicators.get(0).getSrc(), indicators.get(0).getValueIndex(), getDst(indicators));
+		
+		fIndicators = indicators;
+		fExecutor = executor;
+		fParallelThreshold = parallelThreshold;
+	}
+	
+	/**
+	 * Groups the indicators by the source series and the value index. 
+	 * Groups are placed where their first indicators were, so producers stay before consumers.
+	 * 
+	 * @param executor executor calculating long columns in parallel, may be <code>null</code>.
+	 * 		  The groups wait for the chunks taken by other threads only, so it may run the groups as well. 
+	 * @param parallelThreshold minimal number of points calculated in parallel, shorter series 
+	 * 		  are calculated sequentially
+	 * @return the groups and the indicators calculated from their own Dst... series
+	 */
+	public static ArrayList<AbstractIndicator> group(List<AbstractIndicator> indicators,Executor executor,int parallelThreshold)
+	{
+		ArrayList<ArrayList<AbstractIndicator>> groups = new ArrayList<ArrayList<AbstractIndicator>>();
+		
+		for(AbstractIndicator a: indicators)
+		{
+			ArrayList<AbstractIndicator> group = null;
+			
+			// indicators calculated from their own Dst... series are left alone
+			if(!isOwnSource(a))
+			{
+				for(ArrayList<AbstractIndicator> g: groups)
+				{
+					AbstractIndicator first = g.get(0);
+					
+					if(first.getSrc() == a.getSrc() && first.getValueIndex() == a.getValueIndex() && !isOwnSource(first))
+					{
+						group = g;
+						break;
+					}
+				}
+			}
+			
+			if(null == group)
+			{
+				group = new ArrayList<AbstractIndicator>();
+				groups.add(group);
+			}
+			
+			group.add(a);
+		}
+		
+		ArrayList<AbstractIndicator> result = new ArrayList<AbstractIndicator>();
+		
+		for(ArrayList<AbstractIndicator> g: groups)
+			result.add(isOwnSource(g.get(0))?g.get(0):new IndicatorGroup(g, executor, parallelThreshold));
+		
+		return result;
+	}
+	
+	public ArrayList<AbstractIndicator> getIndicators()
+	{
+		return fIndicators;
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		ArrayList<AbstractIndicator> copies = new ArrayList<AbstractIndicator>();
+		
+		int offset = 0;
+		
+		for(AbstractIndicator a: fIndicators)
+		{
+			SeriesBase[] d = new SeriesBase[a.getAllDst().length];
+			System.arraycopy(dst, offset, d, 0, d.length);
+			offset += d.length;
+			
+			AbstractIndicator copy = a.copy(src, d);
+			
+			if(null == copy) return null;
+			
+			copies.add(copy);
+		}
+		
+		return new IndicatorGroup(copies, fExecutor, fParallelThreshold);
+	}
+	
+	@Override
+	public void swapDst(AbstractIndicator computed)
+	{
+		ArrayList<AbstractIndicator> indicators = ((IndicatorGroup)computed).getIndicators();
+		
+		for(int i=0;i<fIndicators.size();i++)
+			fIndicators.get(i).swapDst(indicators.get(i));
+	}
+	
+	@Override
+	public void recalc()
+	{
+		// the only indicator reads the series which doesn't keep the values in memory itself
+		if(1 == fIndicators.size() && null == getSrc().getColumn(getValueIndex()))
+		{
+			fIndicators.get(0).recalc();
+			return;
+		}
+		
+		SourceColumn column = new SourceColumn(getSrc(), getValueIndex(), fIndicators.size() > 1, fExecutor, fParallelThreshold);
+		
+		for(AbstractIndicator a: fIndicators)
+			a.setSourceColumn(column);
+		
+		try
+		{
+			for(AbstractIndicator a: fIndicators)
+				a.recalc();
+		}
+		finally
+		{
+			for(AbstractIndicator a: fIndicators)
+				a.setSourceColumn(null);
+		}
+	}
+	
+	private static boolean isOwnSource(AbstractIndicator a)
+	{
+		for(SeriesBase s: a.getAllDst())
+		{
+			if(s == a.getSrc()) return true;
+		}
+		
+		return false;
+	}
+	
+	private static SeriesBase[] getDst(ArrayList<AbstractIndicator> indicators)
+	{
+		ArrayList<SeriesBase> result = new ArrayList<SeriesBase>();
+		
+		for(AbstractIndicator a: indicators)
+		{
+			for(SeriesBase s: a.getAllDst())
+				result.add(s);
+		}
+		
+		return result.toArray(new SeriesBase[result.size()]);
+	}
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel solution of the first order linear recurrence <code>y[i] = x[i]*a + y[i-1]*b</code>,
+ * which exponential moving averages and Wilder's smoothing are.
+ * <p>
+ * The values are split into chunks. Every chunk is solved from zero in parallel, which gives 
+ * the affine map of the value entering the chunk to the value leaving it:
+ * <code>out = z + b^length * in</code>. Maps are combined sequentially over the chunks, 
+ * then the chunks are solved again in parallel from the values entering them. 
+ * Values differ from the sequential solution by the rounding of the carried values only.
+ */
+class LinearRecurrence 
+{
+	/**
+	 * Calculates <code>y[i] = x[i]*a + y[i-1]*b</code> from <code>fromIndex</code>, inclusive, 
+	 * to <code>toIndex</code>, exclusive, <code>y[fromIndex - 1]</code> must be set.
+	 * 
+	 * @param executor executor running the chunks, <code>null</code> to solve on the calling thread
+	 * @return <code>false</code> if there is NaN among the values, then <code>y</code> is undefined
+	 */
+	public static boolean solve(final double[] x, final double[] y, final int fromIndex, final int toIndex, 
+								final double a, final double b, Executor executor)
+	{
+		final int chunksCount = ChunkedLoop.getChunksCount(fromIndex, toIndex, executor);
+		
+		if(1 == chunksCount)
+			return solve(x, y, fromIndex, toIndex, a, b, y[fromIndex - 1]);
+		
+		// value leaving the chunk solved from zero and the factor of the value entering it
+		final double[] outs = new double[chunksCount];
+		final double[] powers = new double[chunksCount];
+		final AtomicInteger nanCount = new AtomicInteger(0);
+		
+		ChunkedLoop.run(fromIndex, toIndex, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int from, int to) 
+			{
+				double v = 0.0;
+				
+				for(int i=from;i<to;i++)
+					v = x[i]*a + v*b;
+				
+				// NaN propagates from the values to the result
+				if(Double.isNaN(v))
+					nanCount.incrementAndGet();
+				
+				outs[chunk] = v;
+				powers[chunk] = Math.pow(b, to - from);
+			}
+		});
+		
+		if(nanCount.get() > 0) return false;
+		
+		// values entering the chunks
+		final double[] ins = new double[chunksCount];
+		ins[0] = y[fromIndex - 1];
+		
+		for(int chunk=1;chunk<chunksCount;chunk++)
+			ins[chunk] = outs[chunk - 1] + powers[chunk - 1] * ins[chunk - 1];
+		
+		ChunkedLoop.run(fromIndex, toIndex, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int from, int to) 
+			{
+				solve(x, y, from, to, a, b, ins[chunk]);
+			}
+		});
+		
+		return !Double.isNaN(y[toIndex - 1]);
+	}
+	
+	private static boolean solve(double[] x, double[] y, int fromIndex, int toIndex, double a, double b, double in)
+	{
+		double v = in;
+		
+		for(int i=fromIndex;i<toIndex;i++)
+		{
+			v = x[i]*a + v*b;
+			y[i] = v;
+		}
+		
+		return !Double.isNaN(v);
+	}
+}
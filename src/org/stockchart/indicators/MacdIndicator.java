@@ -38,6 +38,10 @@ public class MacdIndicator extends AbstractIndicator
 	private int fShortMacdPeriod = 12;
 	private int fSignalPeriod = 9;
 	
+	private EmaIterator fLongIterator;
+	private EmaIterator fShortIterator;
+	private EmaIterator fSignalIterator;
+	
 	public MacdIndicator(SeriesBase src, int valueIndex, LinearSeries dstMacd,LinearSeries dstSignal,BarSeries dstHistogram)
 	{
 		super(src,valueIndex,dstMacd,dstSignal,dstHistogram);
@@ -60,6 +64,7 @@ public class MacdIndicator extends AbstractIndicator
 
 	public void setLongMacdPeriod(int longMacdPeriod) {
 		fLongMacdPeriod = longMacdPeriod;
+		invalidate();
 	}
 
 
@@ -70,6 +75,7 @@ public class MacdIndicator extends AbstractIndicator
 
 	public void setShortMacdPeriod(int shortMacdPeriod) {
 		fShortMacdPeriod = shortMacdPeriod;
+		invalidate();
 	}
 
 
@@ -80,6 +86,7 @@ public class MacdIndicator extends AbstractIndicator
 
 	public void setSignalPeriod(int signalPeriod) {
 		fSignalPeriod = signalPeriod;
+		invalidate();
 	}
 
 
@@ -98,6 +105,23 @@ public class MacdIndicator extends AbstractIndicator
 	}
 
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fLongMacdPeriod, fShortMacdPeriod, fSignalPeriod };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		MacdIndicator copy = new MacdIndicator(src, getValueIndex(), (LinearSeries)dst[0], (LinearSeries)dst[1], (BarSeries)dst[2]);
+		copy.setLongMacdPeriod(fLongMacdPeriod);
+		copy.setShortMacdPeriod(fShortMacdPeriod);
+		copy.setSignalPeriod(fSignalPeriod);
+		
+		return copy;
+	}
+	
 	@Override
 	public void recalc() 
 	{	
@@ -106,46 +130,107 @@ public class MacdIndicator extends AbstractIndicator
 		fDstHistogram.getPoints().clear();
 
 		fLongEma.setPeriodsCount(fLongMacdPeriod);
-		EmaIterator longIterator  = fLongEma.iterator();
+		fLongIterator  = fLongEma.iterator();
 				
 		fShortEma.setPeriodsCount(fShortMacdPeriod);
-		EmaIterator shortIterator = fShortEma.iterator();
+		fShortIterator = fShortEma.iterator();
 		
-
-		int i = fShortMacdPeriod;
-		while(shortIterator.hasNext())
+		fSignalEma.setPeriodsCount(fSignalPeriod);
+		fSignalIterator = fSignalEma.iterator();
+		
+		appendValues();
+	}
+	
+	@Override
+	void setSourceColumn(SourceColumn column)
+	{
+		super.setSourceColumn(column);
+		
+		// the signal is calculated from the MACD series
+		fLongEma.setSourceColumn(column);
+		fShortEma.setSourceColumn(column);
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return null == fShortIterator?-1:fShortIterator.getProcessedCount();
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fShortIterator = null;
+	}
+	
+	@Override
+	protected void takeState(AbstractIndicator computed)
+	{
+		MacdIndicator macd = (MacdIndicator)computed;
+		
+		if(null == macd.fShortIterator)
 		{
-			double shortMacd = shortIterator.getNext();
+			invalidate();
+			return;
+		}
+		
+		fLongEma.setPeriodsCount(fLongMacdPeriod);
+		fLongIterator = fLongEma.takeIterator(macd.fLongIterator);
+		
+		fShortEma.setPeriodsCount(fShortMacdPeriod);
+		fShortIterator = fShortEma.takeIterator(macd.fShortIterator);
+		
+		// the signal reads the MACD series, whose points have been swapped
+		fSignalEma.setPeriodsCount(fSignalPeriod);
+		fSignalIterator = fSignalEma.takeIterator(macd.fSignalIterator);
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		while(fShortIterator.hasNext())
+		{
+			double shortMacd = fShortIterator.getNext();
 			
-			if(i >= fLongMacdPeriod)
+			if(fShortIterator.index >= fLongMacdPeriod)
 			{
-				if(!longIterator.hasNext()) return;
+				if(!fLongIterator.hasNext()) break;
 				
-				double longMacd = longIterator.getNext();
+				double longMacd = fLongIterator.getNext();
 				
-				fDstMacd.addPoint(shortMacd - longMacd);
+				fDstMacd.getColumns().add(shortMacd - longMacd);
 			}
-			
-			i++;
 		}
 		
-		fSignalEma.setPeriodsCount(fSignalPeriod);
-		EmaIterator signalIterator = fSignalEma.iterator();
-		
-		int k = fSignalPeriod - 1;
-		while(signalIterator.hasNext())
+		while(fSignalIterator.hasNext())
 		{
-			double signal = signalIterator.getNext();
+			double signal = fSignalIterator.getNext();
 			
-			double macd = fDstMacd.getPoints().get(k).getValue();
+			double macd = fDstMacd.getValueAt(fSignalIterator.index - 1, 0);
 			
-			fDstSignal.addPoint(signal);
-			fDstHistogram.addPoint(0.0, macd - signal);
-			k++;
+			fDstSignal.getColumns().add(signal);
+			fDstHistogram.getColumns().add(0.0, macd - signal);
 		}
 		
 		this.resetDstIndexOffset(getSrc(), fDstMacd);
 		this.resetDstIndexOffset(fDstMacd, fDstSignal);
 		this.resetDstIndexOffset(fDstMacd, fDstHistogram);
+	}
 	
-	}}
+	@Override
+	protected void updateLastValues()
+	{
+		double shortMacd = fShortIterator.updateLast();
+		
+		if(fLongIterator.getProcessedCount() != getSrcPointCount()) return;
+		
+		double macd = shortMacd - fLongIterator.updateLast();
+		setLastDstValue(fDstMacd, 0, macd);
+		
+		if(fSignalIterator.getProcessedCount() != fDstMacd.getPointCount()) return;
+		
+		double signal = fSignalIterator.updateLast();
+		setLastDstValue(fDstSignal, 0, signal);
+		setLastDstValue(fDstHistogram, 1, macd - signal);
+	}
+}
@@ -0,0 +1,255 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+/**
+ * Rolling mean and variance of the last values over a window of fixed size.
+ * <p>
+ * Values entering and leaving the window update the mean and the sum of squared deviations
+ * by Welford's method, so sliding over the whole series takes O(n) time. The sums are
+ * recalculated from the window once per window length of removals, so rounding errors
+ * don't accumulate. If the window contains NaN, all statistics are NaN until it leaves the window.
+ * <p>
+ * Intended for Bollinger bands, standard deviation, z-score, Keltner-style bands and similar indicators.
+ */
+public class RollingStatistics
+{
+	private final int fWindowSize;
+
+	// ring buffer of the window, the oldest value is at fHead
+	private final double[] fValues;
+	private int fHead = 0;
+	private int fCount = 0;
+
+	// over the values which are not NaN
+	private int fValuesCount = 0;
+	private double fMean = 0.0;
+	private double fM2 = 0.0;
+
+	private int fNaNCount = 0;
+	private int fRemovedCount = 0;
+
+	/**
+	 * @param windowSize number of the last values the statistics are calculated over
+	 */
+	public RollingStatistics(int windowSize)
+	{
+		if(windowSize < 1)
+			throw new IllegalArgumentException("Window size must be positive: "+windowSize);
+
+		fWindowSize = windowSize;
+		fValues = new double[windowSize];
+	}
+
+	public int getWindowSize()
+	{
+		return fWindowSize;
+	}
+
+	/**
+	 * Number of values in the window, it is less than the window size until the window is filled.
+	 */
+	public int getCount()
+	{
+		return fCount;
+	}
+
+	public boolean isFull()
+	{
+		return fCount == fWindowSize;
+	}
+
+	/**
+	 * Creates the statistics with the same window and values
+	 */
+	public RollingStatistics copy()
+	{
+		RollingStatistics copy = new RollingStatistics(fWindowSize);
+
+		System.arraycopy(fValues, 0, copy.fValues, 0, fWindowSize);
+		copy.fHead = fHead;
+		copy.fCount = fCount;
+		copy.fValuesCount = fValuesCount;
+		copy.fMean = fMean;
+		copy.fM2 = fM2;
+		copy.fNaNCount = fNaNCount;
+		copy.fRemovedCount = fRemovedCount;
+
+		return copy;
+	}
+
+	public void reset()
+	{
+		fHead = fCount = 0;
+		fValuesCount = fNaNCount = fRemovedCount = 0;
+		fMean = fM2 = 0.0;
+	}
+
+	/**
+	 * Appends the value to the window, the oldest value leaves the full window.
+	 */
+	public void push(double v)
+	{
+		if(fCount == fWindowSize)
+		{
+			remove(fValues[fHead]);
+
+			fValues[fHead] = v;
+			fHead = next(fHead);
+			fRemovedCount++;
+		}
+		else
+		{
+			fValues[(fHead + fCount) % fWindowSize] = v;
+			fCount++;
+		}
+
+		add(v);
+
+		if(fRemovedCount >= fWindowSize)
+			reanchor();
+	}
+
+	/**
+	 * Replaces the most recent value of the window, i.e. when the last bar is updated.
+	 */
+	public void updateLast(double v)
+	{
+		if(0 == fCount)
+			throw new IllegalStateException("The window is empty");
+
+		int last = (fHead + fCount - 1) % fWindowSize;
+
+		remove(fValues[last]);
+		fValues[last] = v;
+		add(v);
+	}
+
+	public double getMean()
+	{
+		return 0 == fValuesCount || fNaNCount > 0?Double.NaN:fMean;
+	}
+
+	/**
+	 * Population variance of the window (the sum of squared deviations divided by the count)
+	 */
+	public double getVariance()
+	{
+		if(0 == fValuesCount || fNaNCount > 0) return Double.NaN;
+
+		// rounding may give a tiny negative sum for equal values
+		return Math.max(0.0, fM2) / fValuesCount;
+	}
+
+	/**
+	 * Sample variance of the window (the sum of squared deviations divided by the count minus one)
+	 */
+	public double getSampleVariance()
+	{
+		if(fValuesCount < 2 || fNaNCount > 0) return Double.NaN;
+
+		return Math.max(0.0, fM2) / (fValuesCount - 1);
+	}
+
+	/**
+	 * Population standard deviation of the window
+	 */
+	public double getStDev()
+	{
+		return Math.sqrt(getVariance());
+	}
+
+	/**
+	 * Gets the number of population standard deviations the value lies from the mean
+	 */
+	public double getZScore(double v)
+	{
+		return (v - getMean()) / getStDev();
+	}
+
+	private void add(double v)
+	{
+		if(Double.isNaN(v))
+		{
+			fNaNCount++;
+			return;
+		}
+
+		fValuesCount++;
+
+		double d = v - fMean;
+		fMean += d / fValuesCount;
+		fM2 += d * (v - fMean);
+	}
+
+	private void remove(double v)
+	{
+		if(Double.isNaN(v))
+		{
+			fNaNCount--;
+			return;
+		}
+
+		if(--fValuesCount == 0)
+		{
+			fMean = fM2 = 0.0;
+			return;
+		}
+
+		double d = v - fMean;
+		fMean -= d / fValuesCount;
+		fM2 -= d * (v - fMean);
+	}
+
+	/**
+	 * Recalculates the sums from the values of the window in two passes
+	 */
+	private void reanchor()
+	{
+		fRemovedCount = 0;
+
+		if(0 == fValuesCount) return;
+
+		double summ = 0.0;
+
+		for(int i=0;i<fCount;i++)
+		{
+			double v = fValues[i];
+
+			if(!Double.isNaN(v))
+				summ += v;
+		}
+
+		double mean = summ / fValuesCount;
+		double m2 = 0.0;
+
+		for(int i=0;i<fCount;i++)
+		{
+			double v = fValues[i];
+
+			if(!Double.isNaN(v))
+				m2 += (v - mean)*(v - mean);
+		}
+
+		fMean = mean;
+		fM2 = m2;
+	}
+
+	private int next(int i)
+	{
+		return (i + 1) % fWindowSize;
+	}
+}
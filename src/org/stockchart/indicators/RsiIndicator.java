@@ -27,6 +27,124 @@ public class RsiIndicator extends AbstractIndicator
 	private int fPeriodsCount = 14;
 	private final LinearSeries fDstRsi;
 	
+	private RsiIterator fIterator;
+	
+	public class RsiIterator
+	{
+		public double uSma = 0.0;
+		public double dSma = 0.0;
+		
+		public double uEma = Double.NaN;
+		public double dEma = Double.NaN;
+		
+		public int index = 1;
+		
+		private final int fPk = RsiIndicator.this.fPeriodsCount;
+		private final double K = EmaIndicator.getK(RsiIndicator.this.fPeriodsCount);
+		
+		private double fPrevUEma = Double.NaN;
+		private double fPrevDEma = Double.NaN;
+		
+		// averages calculated in parallel by the group the indicator is recalculated in
+		private double[][] fSharedEmas = RsiIndicator.this.getSharedEmas(fPk);
+		
+		public boolean hasNext()
+		{
+			return Math.max(index, fPk) < RsiIndicator.this.getSrcPointCount();
+		}
+		
+		public double getNext()
+		{
+			while(index < fPk)
+			{
+				uSma += getU(index);
+				dSma += getD(index);
+				index++;
+			}
+			
+			if(null != fSharedEmas)
+			{
+				// the averages are valid while the group is recalculated
+				if(index < fSharedEmas[0].length && null != RsiIndicator.this.getSourceColumn())
+				{
+					if(!Double.isNaN(uEma) || !Double.isNaN(dEma))
+					{
+						fPrevUEma = uEma;
+						fPrevDEma = dEma;
+					}
+					
+					uEma = fSharedEmas[0][index];
+					dEma = fSharedEmas[1][index];
+					index++;
+					
+					// the rest is incremental, the averages of the source column aren't kept
+					if(index == fSharedEmas[0].length)
+						fSharedEmas = null;
+					
+					return getRsi(uEma, dEma);
+				}
+				
+				fSharedEmas = null;
+			}
+			
+			if(Double.isNaN(uEma) && Double.isNaN(dEma))
+			{
+				uEma = uSma / fPk;
+				dEma = dSma / fPk;
+			}
+			else
+			{
+				fPrevUEma = uEma;
+				fPrevDEma = dEma;
+				
+				uEma = getU(index) * K + uEma * (1.0 - K);
+				dEma = getD(index) * K + dEma * (1.0 - K);
+			}
+			
+			index++;
+			
+			return getRsi(uEma, dEma);
+		}
+		
+		/**
+		 * Recalculates the value returned by the last <code>getNext()</code> call,
+		 * taking into account the new value of the last processed point.
+		 */
+		public double updateLast()
+		{
+			if(!Double.isNaN(fPrevUEma) || !Double.isNaN(fPrevDEma))
+			{
+				uEma = getU(index - 1) * K + fPrevUEma * (1.0 - K);
+				dEma = getD(index - 1) * K + fPrevDEma * (1.0 - K);
+			}
+			
+			return getRsi(uEma, dEma);
+		}
+		
+		/**
+		 * Gets the number of source points processed by the iterator 
+		 */
+		public int getProcessedCount()
+		{
+			return (Double.isNaN(uEma) && Double.isNaN(dEma))?0:index;
+		}
+		
+		/**
+		 * Takes the state of the iterator of another indicator with the same periods count
+		 */
+		void assign(RsiIterator other)
+		{
+			uSma = other.uSma;
+			dSma = other.dSma;
+			uEma = other.uEma;
+			dEma = other.dEma;
+			index = other.index;
+			fPrevUEma = other.fPrevUEma;
+			fPrevDEma = other.fPrevDEma;
+			fSharedEmas = null;
+		}
+	}
+	
 	public RsiIndicator(SeriesBase src, int valueIndex, LinearSeries dst)
 	{
 		super(src,valueIndex, dst);
@@ -47,67 +165,116 @@ public class RsiIndicator extends AbstractIndicator
 	public void setPeriodsCount(int v) 
 	{
 		this.fPeriodsCount = v;
+		invalidate();
 	}
 
+	public RsiIterator iterator()
+	{
+		return new RsiIterator();
+	}
+	
+	private double[][] getSharedEmas(int pk)
+	{
+		SourceColumn column = getSourceColumn();
+		
+		return null == column?null:column.getRsiEmas(pk);
+	}
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fPeriodsCount };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		RsiIndicator copy = new RsiIndicator(src, getValueIndex(), (LinearSeries)dst[0]);
+		copy.setPeriodsCount(fPeriodsCount);
+		
+		return copy;
+	}
+	
 	@Override
 	public void recalc() 
 	{		
 		fDstRsi.getPoints().clear();
 		
-		double k = EmaIndicator.getK(fPeriodsCount);
+		fIterator = iterator();
 		
-		double uSma = 0.0;
-		double dSma = 0.0;
+		appendValues();
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return null == fIterator?-1:fIterator.getProcessedCount();
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fIterator = null;
+	}
+	
+	@Override
+	protected void takeState(AbstractIndicator computed)
+	{
+		RsiIterator state = ((RsiIndicator)computed).fIterator;
 		
-		double uEma = Double.NaN;
-		double dEma = Double.NaN;
+		if(null == state)
+		{
+			fIterator = null;
+			return;
+		}
 		
-		for(int i=1;i<getSrc().getPointCount();i++)
+		fIterator = iterator();
+		fIterator.assign(state);
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		while(fIterator.hasNext())
 		{
-			double[] ud = getUD(i);
-			
-			if(i >= fPeriodsCount)
-			{
-				if(Double.isNaN(uEma) && Double.isNaN(dEma))
-				{
-					uEma = uSma / fPeriodsCount;
-					dEma = dSma / fPeriodsCount;
-				}
-				else
-				{
-					uEma = ud[0] * k + uEma * (1.0 - k);
-					dEma = ud[1] * k + dEma * (1.0 - k);
-				}
-				
-				double rsi = 100.0;
-				
-				if(dEma != 0.0)
-				{
-					double rs = uEma / dEma;
-					rsi = 100.0 - 100/(1.0 + rs);
-				}
-				
-				fDstRsi.addPoint(rsi);
-			}
-			else
-			{
-				uSma += ud[0];
-				dSma += ud[1];
-			}
+			fDstRsi.getColumns().add(fIterator.getNext());
 		}
 		
 		this.resetDstIndexOffset(getSrc(), fDstRsi);
 	}
 	
-	private double[] getUD(int i)
+	@Override
+	protected void updateLastValues()
+	{
+		setLastDstValue(fDstRsi, 0, fIterator.updateLast());
+	}
+	
+	private static double getRsi(double uEma,double dEma)
 	{
-		double value =this.getSrcPointAt(i);
+		double rsi = 100.0;
+		
+		if(dEma != 0.0)
+		{
+			double rs = uEma / dEma;
+			rsi = 100.0 - 100/(1.0 + rs);
+		}
+		
+		return rsi;
+	}
+	
+	private double getU(int i)
+	{
+		double value = this.getSrcPointAt(i);
 		double prevValue = this.getSrcPointAt(i-1);
 
-		double u = value > prevValue?value-prevValue:0.0;
-		double d = value < prevValue?prevValue - value:0.0;
-		
-		return new double[] { u, d };
+		return value > prevValue?value-prevValue:0.0;
+	}
+	
+	private double getD(int i)
+	{
+		double value = this.getSrcPointAt(i);
+		double prevValue = this.getSrcPointAt(i-1);
+
+		return value < prevValue?prevValue - value:0.0;
 	}
 }
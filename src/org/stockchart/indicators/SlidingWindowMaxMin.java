@@ -0,0 +1,199 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+import org.stockchart.series.SeriesBase;
+
+/**
+ * Rolling highest high and lowest low of the series over a window of fixed size.
+ * <p>
+ * The window is moved forward point by point, the extremums are kept in two monotonic
+ * deques so sliding over the whole series takes O(n) time. Point maximum and minimum are taken from
+ * {@link SeriesBase#getMaxValueAt(int)} and {@link SeriesBase#getMinValueAt(int)},
+ * i.e. high and low for stock series. NaN values are skipped.
+ * <p>
+ * Intended for Stochastic, Donchian channels, Williams %R, Aroon and similar indicators.
+ */
+public class SlidingWindowMaxMin
+{
+	private final SeriesBase fSrc;
+	private final int fWindowSize;
+
+	// ring buffers of the deques, indexes and values of the candidates
+	private final int[] fMaxIndexes;
+	private final double[] fMaxValues;
+	private final int[] fMinIndexes;
+	private final double[] fMinValues;
+
+	private int fMaxHead = 0;
+	private int fMaxSize = 0;
+	private int fMinHead = 0;
+	private int fMinSize = 0;
+
+	private int fLastIndex = -1;
+	private boolean fIsLastChanged = false;
+
+	/**
+	 * @param src 			source series
+	 * @param windowSize	number of points in the window, the window ending at <code>i</code>
+	 * 						covers points from <code>i - windowSize + 1</code> to <code>i</code>
+	 */
+	public SlidingWindowMaxMin(SeriesBase src,int windowSize)
+	{
+		if(windowSize < 1)
+			throw new IllegalArgumentException("Window size must be positive: "+windowSize);
+
+		fSrc = src;
+		fWindowSize = windowSize;
+
+		fMaxIndexes = new int[windowSize];
+		fMaxValues = new double[windowSize];
+		fMinIndexes = new int[windowSize];
+		fMinValues = new double[windowSize];
+	}
+
+	public int getWindowSize()
+	{
+		return fWindowSize;
+	}
+
+	/**
+	 * Index of the last point of the window, -1 if the window has not been moved yet.
+	 */
+	public int getLastIndex()
+	{
+		return fLastIndex;
+	}
+
+	public void reset()
+	{
+		fMaxHead = fMaxSize = 0;
+		fMinHead = fMinSize = 0;
+		fLastIndex = -1;
+		fIsLastChanged = false;
+	}
+
+	/**
+	 * Tells that values of the last point of the window have been changed.
+	 * The window is rebuilt on the next move.
+	 */
+	public void onLastPointChanged()
+	{
+		fIsLastChanged = true;
+	}
+
+	/**
+	 * Moves the window so it ends at the given index. Moving forward costs amortized O(1) per point,
+	 * moving backward rebuilds the window.
+	 */
+	public void moveTo(int index)
+	{
+		if(fIsLastChanged || index < fLastIndex)
+			reset();
+
+		int from = Math.max(fLastIndex + 1, index - fWindowSize + 1);
+
+		for(int i=Math.max(0, from);i<=index;i++)
+			push(i);
+
+		fLastIndex = index;
+	}
+
+	/**
+	 * Highest value in the window, <code>Double.NEGATIVE_INFINITY</code> if there are no values.
+	 */
+	public double getMax()
+	{
+		return 0 == fMaxSize?Double.NEGATIVE_INFINITY:fMaxValues[fMaxHead];
+	}
+
+	/**
+	 * Lowest value in the window, <code>Double.POSITIVE_INFINITY</code> if there are no values.
+	 */
+	public double getMin()
+	{
+		return 0 == fMinSize?Double.POSITIVE_INFINITY:fMinValues[fMinHead];
+	}
+
+	/**
+	 * Index of the most recent point having the highest value, -1 if there are no values.
+	 */
+	public int getMaxIndex()
+	{
+		return 0 == fMaxSize?-1:fMaxIndexes[fMaxHead];
+	}
+
+	/**
+	 * Index of the most recent point having the lowest value, -1 if there are no values.
+	 */
+	public int getMinIndex()
+	{
+		return 0 == fMinSize?-1:fMinIndexes[fMinHead];
+	}
+
+	private void push(int index)
+	{
+		int expired = index - fWindowSize;
+
+		while(fMaxSize > 0 && fMaxIndexes[fMaxHead] <= expired)
+		{
+			fMaxHead = next(fMaxHead);
+			fMaxSize--;
+		}
+
+		while(fMinSize > 0 && fMinIndexes[fMinHead] <= expired)
+		{
+			fMinHead = next(fMinHead);
+			fMinSize--;
+		}
+
+		double max = fSrc.getMaxValueAt(index);
+
+		if(!Double.isNaN(max))
+		{
+			while(fMaxSize > 0 && fMaxValues[tail(fMaxHead, fMaxSize)] <= max)
+				fMaxSize--;
+
+			int t = (fMaxHead + fMaxSize) % fWindowSize;
+			fMaxIndexes[t] = index;
+			fMaxValues[t] = max;
+			fMaxSize++;
+		}
+
+		double min = fSrc.getMinValueAt(index);
+
+		if(!Double.isNaN(min))
+		{
+			while(fMinSize > 0 && fMinValues[tail(fMinHead, fMinSize)] >= min)
+				fMinSize--;
+
+			int t = (fMinHead + fMinSize) % fWindowSize;
+			fMinIndexes[t] = index;
+			fMinValues[t] = min;
+			fMinSize++;
+		}
+	}
+
+	private int next(int i)
+	{
+		return (i + 1) % fWindowSize;
+	}
+
+	private int tail(int head,int size)
+	{
+		return (head + size - 1) % fWindowSize;
+	}
+}
@@ -15,6 +15,8 @@
  */
 package org.stockchart.indicators;
 
+import java.util.concurrent.Executor;
+
 import org.stockchart.series.LinearSeries;
 import org.stockchart.series.SeriesBase;
 
@@ -27,10 +29,18 @@ public class SmaIndicator extends AbstractIndicator
 	private int fPeriodsCount = 26;
 	private final LinearSeries fDstSma;
 	
+	private SmaIterator fIterator;
+	
 	public class SmaIterator
 	{
 		public double smaSumm = Double.NaN;
 		public int index = SmaIndicator.this.fPeriodsCount - 1;
+		
+		private final int fPk = SmaIndicator.this.fPeriodsCount;
+		private double fLastValue = Double.NaN;
+		
+		// sums calculated by the group the indicator is recalculated in
+		private double[] fSharedSumms = SmaIndicator.this.getSharedSumms(fPk);
 				
 		public boolean hasNext()
 		{
@@ -39,7 +49,26 @@ public class SmaIndicator extends AbstractIndicator
 		
 		public double getNext()
 		{
-			int pk = SmaIndicator.this.fPeriodsCount;
+			int pk = fPk;
+			
+			if(null != fSharedSumms)
+			{
+				// the sums are valid while the group is recalculated
+				if(index < fSharedSumms.length && null != SmaIndicator.this.getSourceColumn())
+				{
+					fLastValue = SmaIndicator.this.getSrcPointAt(Double.isNaN(smaSumm)?pk - 1:index);
+					smaSumm = fSharedSumms[index];
+					index++;
+					
+					// the rest is incremental, the sums of the source column aren't kept
+					if(index == fSharedSumms.length)
+						fSharedSumms = null;
+					
+					return smaSumm/pk;
+				}
+				
+				fSharedSumms = null;
+			}
 			
 			if(Double.isNaN(smaSumm))
 			{
@@ -50,13 +79,17 @@ public class SmaIndicator extends AbstractIndicator
 					smaSumm += SmaIndicator.this.getSrcPointAt(i);
 				}				
 				
+				fLastValue = SmaIndicator.this.getSrcPointAt(pk - 1);
+				
 				double result = smaSumm / pk;
 				index++;
 				
 				return result;
 			}
 			
-			smaSumm+=SmaIndicator.this.getSrcPointAt(index);
+			fLastValue = SmaIndicator.this.getSrcPointAt(index);
+			
+			smaSumm+=fLastValue;
 			smaSumm-=SmaIndicator.this.getSrcPointAt(index - pk);
 			
 			index++;
@@ -64,6 +97,72 @@ public class SmaIndicator extends AbstractIndicator
 			return smaSumm/pk;			
 		}
 		
+		/**
+		 * Recalculates the value returned by the last <code>getNext()</code> call,
+		 * taking into account the new value of the last processed point.
+		 */
+		public double updateLast()
+		{
+			double value = SmaIndicator.this.getSrcPointAt(index - 1);
+			
+			smaSumm += value - fLastValue;
+			fLastValue = value;
+			
+			return smaSumm/fPk;
+		}
+		
+		/**
+		 * Gets the number of source points processed by the iterator 
+		 */
+		public int getProcessedCount()
+		{
+			return Double.isNaN(smaSumm)?0:index;
+		}
+		
+		/**
+		 * Takes the state of the iterator of another indicator with the same periods count
+		 */
+		void assign(SmaIterator other)
+		{
+			smaSumm = other.smaSumm;
+			index = other.index;
+			fLastValue = other.fLastValue;
+			fSharedSumms = null;
+		}
+		
+		/**
+		 * Gets the sums calculated by the group the indicator is recalculated in, so the caller 
+		 * can take the values in bulk and move the iterator past them by {@link #skipShared()}
+		 * 
+		 * @return the sums indexed as the source points, or <code>null</code> if there are no sums
+		 */
+		double[] getSharedSumms()
+		{
+			return null == SmaIndicator.this.getSourceColumn()?null:fSharedSumms;
+		}
+		
+		/**
+		 * Moves the fresh iterator to the end of the shared sums, 
+		 * leaving the state <code>getNext()</code> would leave.
+		 * The sums are released, the iterator continues incrementally.
+		 */
+		void skipShared()
+		{
+			double[] summs = fSharedSumms;
+			
+			fSharedSumms = null;
+			
+			int last = summs.length - 1;
+			
+			if(last < index) return;
+			
+			// the last sum is the first window if the previous one is NaN
+			boolean isFirst = last == fPk - 1 || Double.isNaN(summs[last - 1]);
+			
+			fLastValue = SmaIndicator.this.getSrcPointAt(isFirst?fPk - 1:last);
+			smaSumm = summs[last];
+			index = last + 1;
+		}
 	}
 	
 	public SmaIndicator(SeriesBase src, int valueIndex, LinearSeries dst)
@@ -79,6 +178,7 @@ public class SmaIndicator extends AbstractIndicator
 
 	public void setPeriodsCount(int periodsCount) {
 		fPeriodsCount = periodsCount;
+		invalidate();
 	}
 
 	public LinearSeries getDstSma() {
@@ -89,20 +189,122 @@ public class SmaIndicator extends AbstractIndicator
 	{
 		return new SmaIterator();
 	}
+	
+	private double[] getSharedSumms(int pk)
+	{
+		SourceColumn column = getSourceColumn();
+		
+		return null == column?null:column.getSmaSumms(pk);
+	}
 
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fPeriodsCount };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		SmaIndicator copy = new SmaIndicator(src, getValueIndex(), (LinearSeries)dst[0]);
+		copy.setPeriodsCount(fPeriodsCount);
+		
+		return copy;
+	}
+	
 	@Override
 	public void recalc() 
 	{
-		fDstSma.getPoints().clear();
+		fIterator = iterator();
+		
+		Executor executor = getParallelExecutor();
+		double[] summs = null == executor?null:fIterator.getSharedSumms();
 		
-		SmaIterator i = iterator();
-		while(i.hasNext())
+		if(null == summs)
+		{
+			fDstSma.getPoints().clear();
+			appendValues();
+		}
+		else
 		{
-			fDstSma.addPoint(i.getNext());
+			recalcInChunks(summs, executor);
 		}
+	}
+	
+	/**
+	 * Writes averages calculated from the shared sums into the preallocated points in parallel
+	 */
+	private void recalcInChunks(final double[] summs,Executor executor)
+	{
+		final int pk = fPeriodsCount;
+		int count = getSrcPointCount();
+		
+		fDstSma.getColumns().reset(count - pk + 1);
+		
+		final double[] values = fDstSma.getColumns().getColumn(0);
+		
+		ChunkedLoop.run(pk - 1, count, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int fromIndex, int toIndex) 
+			{
+				for(int i=fromIndex;i<toIndex;i++)
+					values[i - pk + 1] = summs[i]/pk;
+			}
+		});
+		
+		fIterator.skipShared();
 		
 		this.resetDstIndexOffset(getSrc(), fDstSma);
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return null == fIterator?-1:fIterator.getProcessedCount();
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fIterator = null;
+	}
+	
+	@Override
+	protected void takeState(AbstractIndicator computed)
+	{
+		fIterator = takeIterator(((SmaIndicator)computed).fIterator);
+	}
+	
+	/**
+	 * Creates the iterator having the state of the given one, 
+	 * <code>null</code> if there is no state
+	 */
+	SmaIterator takeIterator(SmaIterator state)
+	{
+		if(null == state) return null;
+		
+		SmaIterator iterator = iterator();
+		iterator.assign(state);
 		
-	}	
+		return iterator;
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		while(fIterator.hasNext())
+		{
+			fDstSma.getColumns().add(fIterator.getNext());
+		}
+		
+		this.resetDstIndexOffset(getSrc(), fDstSma);
+	}
+	
+	@Override
+	protected void updateLastValues()
+	{
+		setLastDstValue(fDstSma, 0, fIterator.updateLast());
+	}
 }
@@ -0,0 +1,318 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.indicators;
+
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.stockchart.series.SeriesBase;
+
+/**
+ * Values of the source series taken once for all indicators of the group 
+ * (see {@link IndicatorGroup}), along with the results the indicators may share:
+ * moving sums and exponential averages of the same period are calculated once.
+ * <p>
+ * Shared results are calculated exactly the way {@link SmaIndicator.SmaIterator} and 
+ * {@link EmaIndicator.EmaIterator} calculate them, so the indicators get the same values 
+ * as if they were calculated separately. The column is used by one thread at a time.
+ * <p>
+ * Columns not shorter than the parallel threshold get moving sums and exponential averages even if 
+ * there is nothing to share: they are calculated on all cores ({@link ChunkedLoop}, {@link LinearRecurrence}), 
+ * the values differ from the sequential ones by rounding. Windowed indicators fill their Dst... series 
+ * from such columns in parallel as well (see {@link #getExecutor(int)}).
+ */
+class SourceColumn 
+{
+	// the backing column of the source or its copy, only the first fCount values are meaningful
+	private final double[] fValues;
+	private final int fCount;
+	private final boolean fIsSharing;
+	private final Executor fExecutor;
+	private final int fParallelThreshold;
+	
+	// periods count -> values indexed as the source points
+	private final HashMap<Integer,double[]> fSmaSumms = new HashMap<Integer,double[]>();
+	private final HashMap<Integer,double[]> fEmas = new HashMap<Integer,double[]>();
+	private final HashMap<Integer,double[][]> fRsiEmas = new HashMap<Integer,double[][]>();
+	
+	/**
+	 * @param isSharing whether there are several indicators which may share the results
+	 * @param executor executor calculating long columns in parallel, may be <code>null</code>
+	 * @param parallelThreshold minimal number of points calculated in parallel
+	 */
+	public SourceColumn(SeriesBase src,int valueIndex,boolean isSharing,Executor executor,int parallelThreshold)
+	{
+		fCount = src.getPointCount();
+		fIsSharing = isSharing;
+		fExecutor = executor;
+		fParallelThreshold = parallelThreshold;
+		
+		double[] values = src.getColumn(valueIndex);
+		
+		// series which don't keep the values in memory are copied
+		if(null == values)
+		{
+			values = new double[fCount];
+			src.copyColumn(valueIndex, 0, fCount, values, 0);
+		}
+		
+		fValues = values;
+	}
+	
+	/**
+	 * Creates the column of another series calculated the same way, 
+	 * i.e. for the inner indicators calculated from the Dst... series. 
+	 */
+	public SourceColumn derive(SeriesBase src,int valueIndex)
+	{
+		return new SourceColumn(src, valueIndex, false, fExecutor, fParallelThreshold);
+	}
+	
+	/**
+	 * Gets the executor the given number of points is calculated on in parallel
+	 * 
+	 * @return the executor or <code>null</code> if the points are calculated sequentially
+	 */
+	public Executor getExecutor(int pointsCount)
+	{
+		if(pointsCount < fParallelThreshold || Runtime.getRuntime().availableProcessors() < 2)
+			return null;
+		
+		return fExecutor;
+	}
+	
+	public int getCount()
+	{
+		return fCount;
+	}
+	
+	public double getValueAt(int i)
+	{
+		return fValues[i];
+	}
+	
+	/**
+	 * Gets sums of the windows ending at each point, the values before 
+	 * the first full window are undefined
+	 * 
+	 * @return the sums or <code>null</code> if the column is neither shared nor long, or the period is less than one
+	 */
+	public double[] getSmaSumms(int periodsCount)
+	{
+		Executor executor = getExecutor(fCount - periodsCount);
+		
+		if(periodsCount < 1 || (!fIsSharing && null == executor)) return null;
+		
+		double[] result = fSmaSumms.get(periodsCount);
+		
+		if(null == result)
+		{
+			result = new double[fCount];
+			
+			int start = periodsCount - 1;
+			
+			if(null != executor && getSmaSumms(result, periodsCount, executor))
+				start = fCount;
+			
+			double summ = Double.NaN;
+			
+			// NaN restarts the sum from the first window, which the chunks can't do
+			for(int i=start;i<fCount;i++)
+			{
+				if(Double.isNaN(summ))
+				{
+					summ = 0.0;
+					
+					for(int j=0;j<periodsCount;j++)
+						summ += fValues[j];
+				}
+				else
+				{
+					summ += fValues[i];
+					summ -= fValues[i - periodsCount];
+				}
+				
+				result[i] = summ;
+			}
+			
+			fSmaSumms.put(periodsCount, result);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Gets exponential moving averages at each point, the values before
+	 * the first full period are undefined
+	 * 
+	 * @return the averages or <code>null</code> if the column is neither shared nor long, or the period is less than one
+	 */
+	public double[] getEmas(int periodsCount)
+	{
+		Executor executor = getExecutor(fCount - periodsCount);
+		
+		if(periodsCount < 1 || (!fIsSharing && null == executor)) return null;
+		
+		double[] result = fEmas.get(periodsCount);
+		
+		if(null == result)
+		{
+			result = new double[fCount];
+			
+			double k = EmaIndicator.getK(periodsCount);
+			double ema = Double.NaN;
+			
+			int start = periodsCount - 1;
+			
+			if(null != executor)
+			{
+				result[start] = getSma(periodsCount);
+				
+				if(LinearRecurrence.solve(fValues, result, start + 1, fCount, k, 1.0 - k, executor))
+					start = fCount;
+			}
+			
+			// NaN restarts the average from the seed, which the scan can't do
+			for(int i=start;i<fCount;i++)
+			{
+				if(Double.isNaN(ema))
+				{
+					ema = getSma(periodsCount);
+				}
+				else
+				{
+					ema = fValues[i] * k + ema * (1.0 - k);
+				}
+				
+				result[i] = ema;
+			}
+			
+			fEmas.put(periodsCount, result);
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Gets exponential averages of the gains and the losses {@link RsiIndicator.RsiIterator} 
+	 * calculates at each point, the values before the first full period are undefined. 
+	 * Only long columns get them, in parallel.
+	 * 
+	 * @return arrays of the averages of the gains and the losses, or <code>null</code> if the column 
+	 * 		   isn't long or contains NaN
+	 */
+	public double[][] getRsiEmas(int periodsCount)
+	{
+		int length = fCount;
+		Executor executor = getExecutor(length - periodsCount);
+		
+		if(periodsCount < 1 || null == executor) return null;
+		
+		if(fRsiEmas.containsKey(periodsCount)) return fRsiEmas.get(periodsCount);
+		
+		final double[] gains = new double[length];
+		final double[] losses = new double[length];
+		
+		ChunkedLoop.run(1, length, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int fromIndex, int toIndex) 
+			{
+				for(int i=fromIndex;i<toIndex;i++)
+				{
+					double value = fValues[i];
+					double prevValue = fValues[i - 1];
+					
+					gains[i] = value > prevValue?value - prevValue:0.0;
+					losses[i] = value < prevValue?prevValue - value:0.0;
+				}
+			}
+		});
+		
+		double gainsSumm = 0.0;
+		double lossesSumm = 0.0;
+		
+		for(int i=1;i<periodsCount;i++)
+		{
+			gainsSumm += gains[i];
+			lossesSumm += losses[i];
+		}
+		
+		double k = EmaIndicator.getK(periodsCount);
+		
+		double[][] result = new double[][] { new double[length], new double[length] };
+		
+		result[0][periodsCount] = gainsSumm / periodsCount;
+		result[1][periodsCount] = lossesSumm / periodsCount;
+		
+		if(!LinearRecurrence.solve(gains, result[0], periodsCount + 1, length, k, 1.0 - k, executor) ||
+		   !LinearRecurrence.solve(losses, result[1], periodsCount + 1, length, k, 1.0 - k, executor))
+			result = null;
+		
+		fRsiEmas.put(periodsCount, result);
+		
+		return result;
+	}
+	
+	/**
+	 * Calculates window sums in chunks, every chunk starts from the sum 
+	 * of its first window, so the chunks overlap by the window length.
+	 * 
+	 * @return <code>false</code> if there is NaN among the values
+	 */
+	private boolean getSmaSumms(final double[] result,final int periodsCount,Executor executor)
+	{
+		final AtomicInteger nanCount = new AtomicInteger(0);
+		
+		ChunkedLoop.run(periodsCount - 1, fCount, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int fromIndex, int toIndex) 
+			{
+				double summ = 0.0;
+				
+				for(int j=fromIndex - periodsCount + 1;j<=fromIndex;j++)
+					summ += fValues[j];
+				
+				result[fromIndex] = summ;
+				
+				for(int i=fromIndex + 1;i<toIndex;i++)
+				{
+					summ += fValues[i];
+					summ -= fValues[i - periodsCount];
+					
+					result[i] = summ;
+				}
+				
+				if(Double.isNaN(summ))
+					nanCount.incrementAndGet();
+			}
+		});
+		
+		return 0 == nanCount.get();
+	}
+	
+	private double getSma(int periodsCount)
+	{
+		double sma = 0.0;
+		
+		for(int j=0;j<periodsCount;j++)
+			sma += fValues[j];
+		
+		return sma / periodsCount;
+	}
+}
@@ -15,7 +15,8 @@
  */
 package org.stockchart.indicators;
 
-import org.stockchart.points.LinePoint;
+import java.util.concurrent.Executor;
+
 import org.stockchart.series.LinearSeries;
 import org.stockchart.series.SeriesBase;
 
@@ -37,6 +38,10 @@ public class StochasticIndicator extends AbstractIndicator
 	private final DummySeries fDstFastK = new DummySeries();
 	private final EmaIndicator fSlowKEma;
 	private final EmaIndicator fSlowDEma;
+	
+	private int fProcessedCount = -1;
+	
+	private SlidingWindowMaxMin fWindow = null;
 	/** 
      * Creates new Stochastic indicator with given parameters
      * @param src       	source series
@@ -63,6 +68,7 @@ public class StochasticIndicator extends AbstractIndicator
 
 	public void setPeriodsCount(int v) {
 		this.fPeriodsCount = v;
+		invalidate();
 	}
 
 
@@ -75,6 +81,7 @@ public class StochasticIndicator extends AbstractIndicator
 
 	public void setSlowK(int v) {
 		this.fSlowK = v;
+		invalidate();
 	}
 
 
@@ -87,6 +94,7 @@ public class StochasticIndicator extends AbstractIndicator
 
 	public void setSlowD(int v) {
 		this.fSlowD = v;
+		invalidate();
 	}
 
 
@@ -102,29 +110,186 @@ public class StochasticIndicator extends AbstractIndicator
 	}
 
 
+	@Override
+	protected double[] getParameters()
+	{
+		return new double[] { fPeriodsCount, fSlowK, fSlowD };
+	}
+	
+	@Override
+	public AbstractIndicator copy(SeriesBase src, SeriesBase... dst)
+	{
+		StochasticIndicator copy = new StochasticIndicator(src, getValueIndex(), (LinearSeries)dst[0], (LinearSeries)dst[1]);
+		copy.setPeriodsCount(fPeriodsCount);
+		copy.setSlowK(fSlowK);
+		copy.setSlowD(fSlowD);
+		
+		return copy;
+	}
+	
 	@Override
 	public void recalc() 
 	{		
 		fDstFastK.getPoints().clear();
 		fDstSlowK.getPoints().clear();
 		fDstSlowD.getPoints().clear();
-						
-		for(int i=fPeriodsCount;i < getSrc().getPointCount();i++)
-		{			
-			double[] maxMin = getSrc().getMaxMinPrice2(i-fPeriodsCount, i);
-			double v = this.getSrcPointAt(i);
-			double k = 100.0 * (v - maxMin[1])/(maxMin[0] - maxMin[1]);
-			fDstFastK.getPoints().add(new LinePoint(k));
+		
+		fProcessedCount = 0;
+		
+		Executor executor = getParallelExecutor();
+		
+		if(null == executor || getSrcPointCount() <= fPeriodsCount)
+		{
+			fWindow = new SlidingWindowMaxMin(getSrc(), fPeriodsCount + 1);
+			appendFastK();
+		}
+		else
+		{
+			appendFastKInChunks(executor);
 		}
 				
 		fSlowKEma.setPeriodsCount(fSlowK);		
-		fSlowKEma.recalc();				
+		recalc(fSlowKEma);
 				
 		fSlowDEma.setPeriodsCount(fSlowD);
-		fSlowDEma.recalc();
+		recalc(fSlowDEma);
+		
+		resetDstIndexOffsets();
+	}
+	
+	/**
+	 * Recalcs the smoothing, which is calculated in parallel from the column of its source 
+	 * if the indicator is recalculated by the group
+	 */
+	private void recalc(EmaIndicator ema)
+	{
+		SourceColumn column = getSourceColumn();
+		
+		if(null != column)
+			ema.setSourceColumn(column.derive(ema.getSrc(), 0));
+		
+		try
+		{
+			ema.recalc();
+		}
+		finally
+		{
+			ema.setSourceColumn(null);
+		}
+	}
+	
+	@Override
+	protected int getProcessedCount()
+	{
+		return fProcessedCount;
+	}
+	
+	@Override
+	protected void invalidate()
+	{
+		fProcessedCount = -1;
+	}
+	
+	@Override
+	protected void appendValues()
+	{
+		int fastKCount = fDstFastK.getPointCount();
+		int slowKCount = fDstSlowK.getPointCount();
 		
+		appendFastK();
+		
+		fSlowKEma.onPointsAppended(fastKCount);
+		fSlowDEma.onPointsAppended(slowKCount);
+		
+		resetDstIndexOffsets();
+	}
+	
+	@Override
+	protected void updateLastValues()
+	{
+		int last = fProcessedCount - 1;
+		
+		if(last < fPeriodsCount) return;
+		
+		// the window is rebuilt on the next append, the tree of the source answers the tick
+		fWindow.onLastPointChanged();
+		
+		double[] maxMin = getSrc().getMaxMinPrice2(last-fPeriodsCount, last);
+		
+		setLastDstValue(fDstFastK, 0, getFastK(last, maxMin[0], maxMin[1]));
+		
+		fSlowKEma.onLastPointUpdated();
+		fSlowDEma.onLastPointUpdated();
+	}
+	
+	private void appendFastK()
+	{
+		int count = getSrc().getPointCount();
+		
+		for(int i=Math.max(fPeriodsCount, fProcessedCount);i < count;i++)
+		{			
+			fWindow.moveTo(i);
+			
+			// clamped the same way getMaxMinPrice2 does
+			double max = Math.max(Double.MIN_VALUE, fWindow.getMax());
+			double min = Math.min(Double.MAX_VALUE, fWindow.getMin());
+			
+			fDstFastK.getColumns().add(getFastK(i, max, min));
+		}
+		
+		fProcessedCount = count;
+	}
+	
+	/**
+	 * Writes fast %K into the preallocated points in parallel. Every chunk slides its own window
+	 * starting one period before the chunk, the window of the last chunk is kept for the updates.
+	 */
+	private void appendFastKInChunks(Executor executor)
+	{
+		final int pk = fPeriodsCount;
+		int count = getSrcPointCount();
+		
+		fDstFastK.getColumns().reset(count - pk);
+		
+		final double[] values = fDstFastK.getColumns().getColumn(0);
+		final SlidingWindowMaxMin[] windows = new SlidingWindowMaxMin[ChunkedLoop.getChunksCount(pk, count, executor)];
+		
+		ChunkedLoop.run(pk, count, executor, new ChunkedLoop.IChunkTask()
+		{
+			@Override
+			public void run(int chunk, int fromIndex, int toIndex) 
+			{
+				SlidingWindowMaxMin window = new SlidingWindowMaxMin(getSrc(), pk + 1);
+				
+				for(int i=fromIndex;i<toIndex;i++)
+				{
+					window.moveTo(i);
+					
+					double max = Math.max(Double.MIN_VALUE, window.getMax());
+					double min = Math.min(Double.MAX_VALUE, window.getMin());
+					
+					values[i - pk] = getFastK(i, max, min);
+				}
+				
+				windows[chunk] = window;
+			}
+		});
+		
+		fWindow = windows[windows.length - 1];
+		fProcessedCount = count;
+	}
+	
+	private double getFastK(int i,double max,double min)
+	{
+		double v = this.getSrcPointAt(i);
+		
+		return 100.0 * (v - min)/(max - min);
+	}
+	
+	private void resetDstIndexOffsets()
+	{
 		resetDstIndexOffset(getSrc(),fDstFastK);
 		resetDstIndexOffset(fDstFastK,fDstSlowK);
 		resetDstIndexOffset(fDstSlowK,fDstSlowD);
-	}	
+	}
 }
@@ -17,17 +17,17 @@ package org.stockchart.misc;
 
 import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.Date;
 
 import org.stockchart.core.Axis.IScaleValuesProvider;
 import org.stockchart.core.PaintInfo;
+import org.stockchart.points.PointColumns;
 import org.stockchart.series.SeriesBase;
 
 public class DateTimeScaleValuesProvider  implements IScaleValuesProvider 
 {	
 	private interface IDateComparer
 	{
-		public boolean compare (Date prevDate, Date date);
+		public boolean compare (long prevTime, long time);
 	}
 	
 	private class ComparerListPair 
@@ -62,7 +62,7 @@ public class DateTimeScaleValuesProvider  implements IScaleValuesProvider
 			return fScaleValues.toArray(new Double[fScaleValues.size()]);
 		}
 		
-		public boolean add(Date prev,Date curr, Double value)
+		public boolean add(long prev,long curr, Double value)
 		{
 			if(fComparer.compare(prev, curr))
 			{
@@ -95,9 +95,9 @@ public class DateTimeScaleValuesProvider  implements IScaleValuesProvider
 		}
 		
 		
-		public boolean compare(Date prevDate, Date date) 
+		public boolean compare(long prevTime, long time) 
 		{
-			return (0 ==  date.getTime() % fInterval);
+			return (0 ==  time % fInterval);
 		}
 		
 	}
@@ -113,12 +113,12 @@ public class DateTimeScaleValuesProvider  implements IScaleValuesProvider
 		}
 		
 		@Override
-		public boolean compare(Date prevDate, Date date) 
+		public boolean compare(long prevTime, long time) 
 		{
-			fCalendar.setTime(prevDate);
+			fCalendar.setTimeInMillis(prevTime);
 			int prev = fCalendar.get(fField);
 			
-			fCalendar.setTime(date);
+			fCalendar.setTimeInMillis(time);
 			int curr = fCalendar.get(fField);
 			
 			return prev != curr;
@@ -170,14 +170,18 @@ public class DateTimeScaleValuesProvider  implements IScaleValuesProvider
 				
 		for(int i=startIndex + 1;i<fSeries.getPointCount();i++)
 		{
-			Date prev = (Date)fSeries.getPointAt(i-1).getID();
-			Date curr = (Date)fSeries.getPointAt(i).getID();
+			// times are read without creating Date IDs, this runs for every visible point
+			long prev = fSeries.getTimeAt(i-1);
+			long curr = fSeries.getTimeAt(i);
 			
-			double scaleIndex = (double)fSeries.convertToScaleIndex(i);
+			double scaleIndex = fSeries.getScalePosition(i);
 			
-			for(ComparerListPair p:fPairs)
+			if(PointColumns.NO_TIME != prev && PointColumns.NO_TIME != curr)
 			{
-				p.add(prev, curr, scaleIndex - 0.5);
+				for(ComparerListPair p:fPairs)
+				{
+					p.add(prev, curr, scaleIndex - 0.5);
+				}
 			}
 			
 		
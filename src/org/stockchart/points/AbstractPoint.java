@@ -23,18 +23,28 @@ public abstract class AbstractPoint
 {
 	private Object fID = null;
 	private boolean fVisible = true;	
-	private final double[] fValues; 
+	
+	// allocated on the first access, so points created to be attached don't need it
+	private double[] fValues = null; 
+	private int fValuesCount;
+	
+	private PointColumns fColumns = null;
+	private int fIndex = -1;
 	
 	public double[] getMaxMin()
 	{
-		double[] maxMin = new double[] { fValues[0], fValues[0] };
+		if(null != fColumns)
+			return new double[] { fColumns.getMax(fIndex), fColumns.getMin(fIndex) };
 		
-		for(int i=1;i < fValues.length;i++)
+		double[] values = getValues();
+		double[] maxMin = new double[] { values[0], values[0] };
+		
+		for(int i=1;i < values.length;i++)
 		{
-			if(fValues[i] > maxMin[0]) 
-				maxMin[0] = fValues[i];
-			else if(fValues[i] < maxMin[1])
-				maxMin[1] = fValues[i];
+			if(values[i] > maxMin[0]) 
+				maxMin[0] = values[i];
+			else if(values[i] < maxMin[1])
+				maxMin[1] = values[i];
 		}
 		
 		return maxMin;
@@ -42,52 +52,126 @@ public abstract class AbstractPoint
 		
 	public AbstractPoint(int valuesCount)
 	{
-		fValues = new double[valuesCount];
+		fValuesCount = valuesCount;
 	}
 	
 	public AbstractPoint(double[] values)
 	{
 		fValues = values;
+		fValuesCount = values.length;
+	}
+	
+	public int getValuesCount()
+	{
+		return null != fColumns?fColumns.getValuesCount():fValuesCount;
 	}
 	
 	public double getValueAt(int i)
 	{
-		return fValues[i];
+		if(null != fColumns)
+			return fColumns.getValue(fIndex, i);
+		
+		return getValues()[i];
 	}
 	
 	public void setValueAt(int i,double v)
 	{
-		fValues[i] = v;
+		if(null != fColumns)
+			fColumns.setValue(fIndex, i, v);
+		else
+			getValues()[i] = v;
 	}
 	
+	/**
+	 * Gets point values. If the point is a view of {@link PointColumns} 
+	 * the copy of the values is returned, so changes of the array are not reflected
+	 * in the point. Use <code>setValueAt</code> or <code>setValues</code> instead.
+	 */
 	public double[] getValues()
 	{
+		if(null != fColumns)
+		{
+			double[] values = new double[fColumns.getValuesCount()];
+			
+			for(int i=0;i<values.length;i++)
+				values[i] = fColumns.getValue(fIndex, i);
+			
+			return values;
+		}
+		
+		if(null == fValues)
+			fValues = new double[fValuesCount];
+		
 		return fValues;		
 	}
 	
 	public void setValues(double[] v)
 	{
 		for(int i=0;i<v.length;i++)
-			fValues[i] = v[i];
+			setValueAt(i, v[i]);
 	}
 	
 	public Object getID()
 	{
+		if(null != fColumns)
+			return fColumns.getID(fIndex);
+		
 		return fID;
 	}	
 	
 	public void setID(Object id)
 	{
-		fID = id;
+		if(null != fColumns)
+			fColumns.setID(fIndex, id);
+		else
+			fID = id;
 	}
 	
 	public boolean isVisible()
 	{
+		if(null != fColumns)
+			return fColumns.isVisible(fIndex);
+		
 		return fVisible;
 	}
 	
 	public void setVisible(boolean value)
 	{
-		fVisible = value;
+		if(null != fColumns)
+			fColumns.setVisible(fIndex, value);
+		else
+			fVisible = value;
+	}
+	
+	/**
+	 * Returns <code>true</code> if the point is a view of the row in {@link PointColumns}
+	 */
+	public boolean isAttached()
+	{
+		return null != fColumns;
+	}
+	
+	/**
+	 * Gets the index of the row the point is attached to, -1 if it isn't a view of the columns
+	 */
+	int getIndexIn(PointColumns columns)
+	{
+		return fColumns == columns?fIndex:-1;
+	}
+	
+	void attach(PointColumns columns,int index)
+	{
+		fColumns = columns;
+		fIndex = index;
+		fValues = null;
+		fValuesCount = columns.getValuesCount();
+	}
+	
+	void detach()
+	{
+		if(null == fColumns) return;
+		
+		fColumns = null;
+		fIndex = -1;
 	}
 }
@@ -0,0 +1,655 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.points;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Date;
+
+/**
+ * Storage of the points in the memory-mapped file.
+ * <p>
+ * The file starts with the header (magic number, version, values count, points count) 
+ * followed by fixed size records, one per point: the ID as epoch milliseconds 
+ * (<code>Long.MIN_VALUE</code> for no ID) and the values, all little-endian. 
+ * Records are read directly from the mapping, so only the pages of the accessed 
+ * points are loaded and opening the file takes constant time regardless of its length.
+ * <p>
+ * Points can be appended, changed in place and removed from the tail. IDs must be
+ * <code>Date</code>s, all points are visible and placed at their indexes. 
+ * {@link #getID(int)} creates a new <code>Date</code> on every call, loops over the points 
+ * should read {@link #getTime(int)} instead.
+ */
+public class MappedPointColumns extends PointColumns
+{
+	public static final int VERSION = 1;
+	
+	// "SCPM"
+	private static final int MAGIC = 0x4D504353;
+	
+	private static final int HEADER_SIZE = 32;
+	private static final int VALUES_COUNT_OFFSET = 8;
+	private static final int SIZE_OFFSET = 16;
+	
+	private static final int MIN_CAPACITY = 1024;
+	
+	private static final long NULL_ID = NO_TIME;
+	
+	private final int fRecordSize;
+	
+	private RandomAccessFile fFile = null;
+	private FileChannel fChannel = null;
+	private MappedByteBuffer fBuffer = null;
+	private boolean fIsReadOnly = false;
+	
+	private int fSize = 0;
+	private int fCapacity = 0;
+	
+	public MappedPointColumns(int valuesCount)
+	{
+		super(valuesCount);
+		
+		fRecordSize = 8*(valuesCount + 1);
+	}
+	
+	/**
+	 * Opens the file, the file is created if it doesn't exist and isn't opened read-only.
+	 * Only the header is read, the points are loaded by the system when they are accessed.
+	 */
+	public void open(File file,boolean readOnly) throws IOException
+	{
+		close();
+		
+		boolean exists = file.exists() && file.length() > 0;
+		
+		if(readOnly && !exists)
+			throw new FileNotFoundException(file.getPath());
+		
+		RandomAccessFile f = new RandomAccessFile(file, readOnly?"r":"rw");
+		
+		try
+		{
+			FileChannel channel = f.getChannel();
+			int size = exists?readHeader(channel):0;
+			
+			fFile = f;
+			fChannel = channel;
+			fIsReadOnly = readOnly;
+			
+			map(readOnly?size:Math.max(size, MIN_CAPACITY));
+			
+			fSize = size;
+			
+			if(!exists)
+				writeHeader();
+		}
+		catch(IOException e)
+		{
+			f.close();
+			
+			fFile = null;
+			fChannel = null;
+			fBuffer = null;
+			
+			throw e;
+		}
+		
+		fireValuesChanged(0, fSize);
+	}
+	
+	/**
+	 * Writes changes to the disk and closes the file. The storage becomes empty.
+	 */
+	public void close() throws IOException
+	{
+		if(null == fFile) return;
+		
+		int oldSize = fSize;
+		
+		try
+		{
+			if(!fIsReadOnly)
+			{
+				fBuffer.force();
+				fChannel.truncate(HEADER_SIZE + (long)fSize*fRecordSize);
+			}
+		}
+		finally
+		{
+			fFile.close();
+			
+			fFile = null;
+			fChannel = null;
+			fBuffer = null;
+			fSize = 0;
+			fCapacity = 0;
+		}
+		
+		fireValuesChanged(0, oldSize);
+	}
+	
+	public boolean isOpen()
+	{
+		return null != fFile;
+	}
+	
+	public boolean isReadOnly()
+	{
+		return fIsReadOnly;
+	}
+	
+	/**
+	 * Writes changes to the disk.
+	 */
+	public void flush()
+	{
+		if(null != fBuffer && !fIsReadOnly)
+			fBuffer.force();
+	}
+	
+	@Override
+	public int size()
+	{
+		return fSize;
+	}
+	
+	@Override
+	public boolean isInMemory()
+	{
+		return false;
+	}
+	
+	@Override
+	public double[] getColumn(int valueIndex)
+	{
+		throw new UnsupportedOperationException("Mapped points are not kept in memory");
+	}
+	
+	@Override
+	public void ensureCapacity(int capacity)
+	{
+		if(capacity <= fCapacity) return;
+		
+		checkWritable();
+		
+		try
+		{
+			map(Math.max(capacity, fCapacity + (fCapacity >> 1)));
+		}
+		catch(IOException e)
+		{
+			throw new IllegalStateException("Can't grow the mapping", e);
+		}
+	}
+	
+	@Override
+	public int add(double v)
+	{
+		checkValuesCount(1);
+		
+		int i = newRecord();
+		putValue(i, 0, v);
+		
+		return commitRecord(i);
+	}
+	
+	@Override
+	public int add(double v0,double v1)
+	{
+		checkValuesCount(2);
+		
+		int i = newRecord();
+		putValue(i, 0, v0);
+		putValue(i, 1, v1);
+		
+		return commitRecord(i);
+	}
+	
+	@Override
+	public int add(double v0,double v1,double v2,double v3)
+	{
+		checkValuesCount(4);
+		
+		int i = newRecord();
+		putValue(i, 0, v0);
+		putValue(i, 1, v1);
+		putValue(i, 2, v2);
+		putValue(i, 3, v3);
+		
+		return commitRecord(i);
+	}
+	
+	@Override
+	public int add(double[] values)
+	{
+		checkValuesCount(values.length);
+		
+		int i = newRecord();
+		
+		for(int vi=0;vi<values.length;vi++)
+			putValue(i, vi, values[vi]);
+		
+		return commitRecord(i);
+	}
+	
+	@Override
+	public int add(AbstractPoint p)
+	{
+		int i = newRecord();
+		copyFrom(i, p);
+		
+		return commitRecord(i);
+	}
+	
+	/**
+	 * Only appending is supported, i.e. <code>index</code> must be equal to <code>size()</code>.
+	 */
+	@Override
+	public void insert(int index,AbstractPoint p)
+	{
+		if(index != fSize)
+			throw new UnsupportedOperationException("Points can only be appended to the mapped file");
+		
+		add(p);
+	}
+	
+	@Override
+	public void set(int index,AbstractPoint p)
+	{
+		rangeCheck(index);
+		checkWritable();
+		copyFrom(index, p);
+		
+		fireValuesChanged(index, index + 1);
+	}
+	
+	@Override
+	public void read(int index,AbstractPoint p)
+	{
+		rangeCheck(index);
+		
+		p.detach();
+		
+		for(int vi=0;vi<getValuesCount();vi++)
+			p.setValueAt(vi, getRawValue(index, vi));
+		
+		p.setID(getID(index));
+		p.setVisible(true);
+	}
+	
+	@Override
+	public double getValue(int index,int valueIndex)
+	{
+		rangeCheck(index);
+		
+		return getRawValue(index, valueIndex);
+	}
+	
+	@Override
+	public void copyColumn(int valueIndex,int fromIndex,int toIndex,double[] dst,int dstPos)
+	{
+		rangeCheck(fromIndex, toIndex);
+		
+		// records are read in the file order
+		for(int i=fromIndex;i<toIndex;i++)
+			dst[dstPos++] = getRawValue(i, valueIndex);
+	}
+	
+	@Override
+	public void setValue(int index,int valueIndex,double v)
+	{
+		rangeCheck(index);
+		checkWritable();
+		
+		putValue(index, valueIndex, v);
+		
+		fireValuesChanged(index, index + 1);
+	}
+	
+	@Override
+	public double getMax(int index)
+	{
+		rangeCheck(index);
+		
+		double max = getRawValue(index, 0);
+		
+		for(int vi=1;vi<getValuesCount();vi++)
+		{
+			double v = getRawValue(index, vi);
+			
+			if(v > max)
+				max = v;
+		}
+		
+		return max;
+	}
+	
+	@Override
+	public double getMin(int index)
+	{
+		rangeCheck(index);
+		
+		double min = getRawValue(index, 0);
+		
+		for(int vi=1;vi<getValuesCount();vi++)
+		{
+			double v = getRawValue(index, vi);
+			
+			if(v < min)
+				min = v;
+		}
+		
+		return min;
+	}
+	
+	@Override
+	public boolean isVisible(int index)
+	{
+		rangeCheck(index);
+		
+		return true;
+	}
+	
+	@Override
+	public void setVisible(int index,boolean value)
+	{
+		rangeCheck(index);
+		
+		if(!value)
+			throw new UnsupportedOperationException("Mapped points can't be hidden");
+	}
+	
+	@Override
+	public boolean hasHiddenPoints()
+	{
+		return false;
+	}
+	
+	@Override
+	public void setPosition(int index,double position)
+	{
+		throw new UnsupportedOperationException("Mapped points can't have positions");
+	}
+	
+	@Override
+	public double[] getPositionColumn()
+	{
+		throw new UnsupportedOperationException("Mapped points can't have positions");
+	}
+	
+	@Override
+	public Object getID(int index)
+	{
+		rangeCheck(index);
+		
+		long time = fBuffer.getLong(getOffset(index));
+		
+		return NULL_ID == time?null:new Date(time);
+	}
+	
+	/**
+	 * Reads the time from the record, no <code>Date</code> is created.
+	 */
+	@Override
+	public long getTime(int index)
+	{
+		rangeCheck(index);
+		
+		return fBuffer.getLong(getOffset(index));
+	}
+	
+	@Override
+	public void setID(int index,Object id)
+	{
+		rangeCheck(index);
+		checkWritable();
+		
+		putID(index, id);
+	}
+	
+	/**
+	 * Only the tail can be removed, i.e. <code>toIndex</code> must be equal to <code>size()</code>.
+	 */
+	@Override
+	public void removeRange(int fromIndex,int toIndex)
+	{
+		if(fromIndex < 0 || toIndex > fSize || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("From: "+fromIndex+", To: "+toIndex+", Size: "+fSize);
+		
+		if(toIndex != fSize)
+			throw new UnsupportedOperationException("Points can only be removed from the tail of the mapped file");
+		
+		if(fromIndex == toIndex) return;
+		
+		checkWritable();
+		
+		int oldSize = fSize;
+		
+		fSize = fromIndex;
+		writeSize();
+		
+		fireValuesChanged(fromIndex, oldSize);
+	}
+	
+	/**
+	 * Replaces the content of the file with the points of the given storage,
+	 * which must have no hidden points and no positions.
+	 */
+	@Override
+	public void assign(PointColumns other)
+	{
+		checkValuesCount(other.getValuesCount());
+		checkWritable();
+		
+		if(other.hasHiddenPoints())
+			throw new UnsupportedOperationException("Mapped points can't be hidden");
+		
+		if(other.hasPositions())
+			throw new UnsupportedOperationException("Mapped points can't have positions");
+		
+		int oldSize = fSize;
+		int size = other.size();
+		
+		ensureCapacity(size);
+		
+		for(int i=0;i<size;i++)
+		{
+			for(int vi=0;vi<getValuesCount();vi++)
+				putValue(i, vi, other.getValue(i, vi));
+			
+			putID(i, other.getID(i));
+		}
+		
+		fSize = size;
+		writeSize();
+		
+		fireValuesChanged(0, Math.max(oldSize, size));
+	}
+	
+	@Override
+	public void swap(PointColumns other)
+	{
+		throw new UnsupportedOperationException("Mapped points can't be swapped");
+	}
+	
+	@Override
+	public void reset(int size)
+	{
+		throw new UnsupportedOperationException("Mapped points can't be reset");
+	}
+	
+	@Override
+	public void clear()
+	{
+		removeRange(0, fSize);
+	}
+	
+	@Override
+	protected void copyRows(PointColumns target)
+	{
+		for(int vi=0;vi<getValuesCount();vi++)
+		{
+			double[] column = target.getColumn(vi);
+			
+			for(int i=0;i<fSize;i++)
+				column[i] = getRawValue(i, vi);
+		}
+		
+		for(int i=0;i<fSize;i++)
+		{
+			long time = fBuffer.getLong(getOffset(i));
+			
+			if(NULL_ID != time)
+				target.setID(i, new Date(time));
+		}
+	}
+	
+	private int newRecord()
+	{
+		checkWritable();
+		ensureCapacity(fSize + 1);
+		
+		fBuffer.putLong(getOffset(fSize), NULL_ID);
+		
+		return fSize;
+	}
+	
+	private int commitRecord(int index)
+	{
+		fSize = index + 1;
+		writeSize();
+		
+		fireValuesChanged(index, fSize);
+		
+		return index;
+	}
+	
+	private void copyFrom(int index,AbstractPoint p)
+	{
+		if(p.getValuesCount() != getValuesCount())
+			throw new IllegalArgumentException("Point has "+p.getValuesCount()+" values, expected "+getValuesCount());
+		
+		if(!p.isVisible())
+			throw new UnsupportedOperationException("Mapped points can't be hidden");
+		
+		for(int vi=0;vi<getValuesCount();vi++)
+			putValue(index, vi, p.getValueAt(vi));
+		
+		putID(index, p.getID());
+	}
+	
+	private void putID(int index,Object id)
+	{
+		long time;
+		
+		if(null == id)
+			time = NULL_ID;
+		else if(id instanceof Date)
+			time = ((Date)id).getTime();
+		else
+			throw new IllegalArgumentException("Mapped point ID must be a Date, got "+id.getClass().getName());
+		
+		fBuffer.putLong(getOffset(index), time);
+	}
+	
+	private double getRawValue(int index,int valueIndex)
+	{
+		return fBuffer.getDouble(getOffset(index) + 8*(valueIndex + 1));
+	}
+	
+	private void putValue(int index,int valueIndex,double v)
+	{
+		fBuffer.putDouble(getOffset(index) + 8*(valueIndex + 1), v);
+	}
+	
+	private int getOffset(int index)
+	{
+		return HEADER_SIZE + index*fRecordSize;
+	}
+	
+	private void checkWritable()
+	{
+		if(null == fFile)
+			throw new IllegalStateException("Mapped file is not open");
+		
+		if(fIsReadOnly)
+			throw new UnsupportedOperationException("Mapped file is open read-only");
+	}
+	
+	private void map(int capacity) throws IOException
+	{
+		long length = HEADER_SIZE + (long)capacity*fRecordSize;
+		
+		if(length > Integer.MAX_VALUE)
+			throw new IOException("Mapped file can't exceed 2GB, requested "+length+" bytes");
+		
+		fBuffer = fChannel.map(fIsReadOnly?FileChannel.MapMode.READ_ONLY:FileChannel.MapMode.READ_WRITE, 0, length);
+		fBuffer.order(ByteOrder.LITTLE_ENDIAN);
+		
+		fCapacity = capacity;
+	}
+	
+	private int readHeader(FileChannel channel) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		
+		while(header.hasRemaining())
+		{
+			if(channel.read(header, header.position()) < 0)
+				throw new IOException("Corrupted mapped file header");
+		}
+		
+		if(MAGIC != header.getInt(0))
+			throw new IOException("Not a mapped points file");
+		
+		int version = header.getInt(4);
+		
+		if(version > VERSION)
+			throw new IOException("Unsupported mapped file version: "+version);
+		
+		int valuesCount = header.getInt(VALUES_COUNT_OFFSET);
+		
+		if(valuesCount != getValuesCount())
+			throw new IOException("File has "+valuesCount+" values per point, expected "+getValuesCount());
+		
+		long size = header.getLong(SIZE_OFFSET);
+		
+		if(size < 0 || HEADER_SIZE + size*fRecordSize > channel.size())
+			throw new IOException("Corrupted mapped file, points count: "+size);
+		
+		return (int)size;
+	}
+	
+	private void writeHeader()
+	{
+		fBuffer.putInt(0, MAGIC);
+		fBuffer.putInt(4, VERSION);
+		fBuffer.putInt(VALUES_COUNT_OFFSET, getValuesCount());
+		
+		writeSize();
+	}
+	
+	private void writeSize()
+	{
+		fBuffer.putLong(SIZE_OFFSET, fSize);
+	}
+}
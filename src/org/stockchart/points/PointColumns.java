@@ -0,0 +1,769 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.points;
+
+import java.util.Date;
+
+/**
+ * Columnar storage for series points.
+ * <p>
+ * Every value of the point (i.e. open, high, low, close for <code>StockPoint</code>)
+ * is kept in its own growable <code>double[]</code> column, visibility, IDs and positions 
+ * are kept in parallel columns which are allocated only when the first hidden point,
+ * the first ID or the first position appears. No point objects are created unless 
+ * they are requested explicitly through {@link #attach(AbstractPoint, int)}.
+ * <p>
+ * Points are placed at their indexes on the horizontal scale unless positions are set 
+ * (see {@link #setPosition(int, double)}), so series with gaps need no filler points.
+ */
+public class PointColumns
+{
+	/**
+	 * Receives notifications about changed values of the points.
+	 * Changes of visibility and IDs are not reported.
+	 */
+	public interface IChangeListener
+	{
+		/**
+		 * Called when values or positions of the points from <code>fromIndex</code>, inclusive, 
+		 * to <code>toIndex</code>, exclusive, have been changed, added or removed.
+		 */
+		public void onValuesChanged(int fromIndex,int toIndex);
+	}
+	
+	/**
+	 * Time of the point which has no <code>Date</code> ID, see {@link #getTime(int)}
+	 */
+	public static final long NO_TIME = Long.MIN_VALUE;
+	
+	private static final int DEFAULT_CAPACITY = 16;
+
+	private final double[][] fValues;
+	private boolean[] fHidden = null;
+	private Object[] fIDs = null;
+	private double[] fPositions = null;
+
+	// changes of the positions other than setting the position of the last point
+	private int fPositionsVersion = 0;
+
+	private int fSize = 0;
+	private int fCapacity = DEFAULT_CAPACITY;
+	
+	private IChangeListener fChangeListener = null;
+
+	public PointColumns(int valuesCount)
+	{
+		fValues = new double[valuesCount][fCapacity];
+	}
+	
+	public void setChangeListener(IChangeListener listener)
+	{
+		fChangeListener = listener;
+	}
+
+	public int getValuesCount()
+	{
+		return fValues.length;
+	}
+
+	public int size()
+	{
+		return fSize;
+	}
+
+	/**
+	 * Gets the backing array of the given column. Only first <code>size()</code>
+	 * elements are meaningful. The array is replaced when the storage grows, so
+	 * don't keep the reference between modifications. Storages which don't keep 
+	 * points in memory throw <code>UnsupportedOperationException</code>.
+	 *
+	 * @param valueIndex index of point's value
+	 * @return backing column
+	 */
+	public double[] getColumn(int valueIndex)
+	{
+		return fValues[valueIndex];
+	}
+
+	/**
+	 * Whether the values are kept in the arrays returned by {@link #getColumn(int)}
+	 */
+	public boolean isInMemory()
+	{
+		return true;
+	}
+
+	public void ensureCapacity(int capacity)
+	{
+		if(capacity <= fCapacity) return;
+
+		int newCapacity = Math.max(capacity, fCapacity + (fCapacity >> 1));
+
+		for(int i=0;i<fValues.length;i++)
+		{
+			double[] column = new double[newCapacity];
+			System.arraycopy(fValues[i], 0, column, 0, fSize);
+			fValues[i] = column;
+		}
+
+		if(null != fHidden)
+		{
+			boolean[] hidden = new boolean[newCapacity];
+			System.arraycopy(fHidden, 0, hidden, 0, fSize);
+			fHidden = hidden;
+		}
+
+		if(null != fIDs)
+		{
+			Object[] ids = new Object[newCapacity];
+			System.arraycopy(fIDs, 0, ids, 0, fSize);
+			fIDs = ids;
+		}
+
+		if(null != fPositions)
+		{
+			double[] positions = new double[newCapacity];
+			System.arraycopy(fPositions, 0, positions, 0, fSize);
+			fPositions = positions;
+		}
+
+		fCapacity = newCapacity;
+	}
+
+	public int add(double v)
+	{
+		checkValuesCount(1);
+
+		int i = newRow();
+		fValues[0][i] = v;
+
+		return i;
+	}
+
+	public int add(double v0,double v1)
+	{
+		checkValuesCount(2);
+
+		int i = newRow();
+		fValues[0][i] = v0;
+		fValues[1][i] = v1;
+
+		return i;
+	}
+
+	public int add(double v0,double v1,double v2,double v3)
+	{
+		checkValuesCount(4);
+
+		int i = newRow();
+		fValues[0][i] = v0;
+		fValues[1][i] = v1;
+		fValues[2][i] = v2;
+		fValues[3][i] = v3;
+
+		return i;
+	}
+
+	public int add(double[] values)
+	{
+		checkValuesCount(values.length);
+		
+		int i = newRow();
+		
+		for(int vi=0;vi<values.length;vi++)
+			fValues[vi][i] = values[vi];
+		
+		return i;
+	}
+
+	/**
+	 * Appends values, ID and visibility of the given point. The point itself is not attached.
+	 *
+	 * @return index of the new point
+	 */
+	public int add(AbstractPoint p)
+	{
+		int i = newRow();
+		copyFrom(i, p);
+
+		return i;
+	}
+
+	/**
+	 * Inserts values, ID and visibility of the given point at the given index.
+	 * If the points have positions, the point is placed next to the previous one 
+	 * and the following points are moved if there is no gap for it (see {@link #setPosition(int, double)}).
+	 */
+	public void insert(int index,AbstractPoint p)
+	{
+		if(index < 0 || index > fSize)
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+fSize);
+
+		newRow();
+
+		int moved = fSize - index - 1;
+
+		for(double[] column:fValues)
+			System.arraycopy(column, index, column, index + 1, moved);
+
+		if(null != fHidden)
+			System.arraycopy(fHidden, index, fHidden, index + 1, moved);
+
+		if(null != fIDs)
+			System.arraycopy(fIDs, index, fIDs, index + 1, moved);
+
+		if(null != fPositions && moved > 0)
+		{
+			System.arraycopy(fPositions, index, fPositions, index + 1, moved);
+
+			// next to the previous point, the following points are moved if there is no gap
+			if(0 == index)
+			{
+				fPositions[index] = fPositions[index + 1] - 1.0;
+			}
+			else
+			{
+				fPositions[index] = fPositions[index - 1] + 1.0;
+				
+				double shift = fPositions[index] + 1.0 - fPositions[index + 1];
+				
+				for(int i=index + 1;i<fSize && shift > 0.0;i++)
+				{
+					fPositions[i] += shift;
+					
+					shift = fPositions[i] + 1.0 - (i + 1 < fSize?fPositions[i + 1]:Double.POSITIVE_INFINITY);
+				}
+			}
+			
+			fPositionsVersion++;
+		}
+
+		copyFrom(index, p);
+		
+		fireValuesChanged(index, fSize);
+	}
+
+	/**
+	 * Replaces values, ID and visibility at the given index with the values of the given point.
+	 */
+	public void set(int index,AbstractPoint p)
+	{
+		rangeCheck(index);
+		copyFrom(index, p);
+		
+		fireValuesChanged(index, index + 1);
+	}
+
+	/**
+	 * Copies values, ID and visibility at the given index into the given point.
+	 */
+	public void read(int index,AbstractPoint p)
+	{
+		rangeCheck(index);
+
+		p.detach();
+
+		for(int i=0;i<fValues.length;i++)
+			p.setValueAt(i, fValues[i][index]);
+
+		p.setID(getID(index));
+		p.setVisible(isVisible(index));
+	}
+
+	/**
+	 * Binds the given point to the row with the given index, so the point becomes a view.
+	 * Any change of the point is written to the columns and vice versa.
+	 * <p>
+	 * The view is bound to the index, not to the data, so if points before it are removed
+	 * the view will show the next row.
+	 */
+	public void attach(AbstractPoint p, int index)
+	{
+		rangeCheck(index);
+
+		p.attach(this, index);
+	}
+
+	/**
+	 * Gets the index of the row the given point is attached to,
+	 * -1 if the point isn't a view of these columns or its row has been removed
+	 */
+	public int indexOf(AbstractPoint p)
+	{
+		int index = p.getIndexIn(this);
+
+		return index < fSize?index:-1;
+	}
+
+	public double getValue(int index,int valueIndex)
+	{
+		rangeCheck(index);
+
+		return fValues[valueIndex][index];
+	}
+
+	/**
+	 * Copies values of the points from <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive,
+	 * into the array.
+	 *
+	 * @param valueIndex index of point's value
+	 * @param dst array receiving the values
+	 * @param dstPos index in the array the first value is written at
+	 */
+	public void copyColumn(int valueIndex,int fromIndex,int toIndex,double[] dst,int dstPos)
+	{
+		rangeCheck(fromIndex, toIndex);
+
+		System.arraycopy(fValues[valueIndex], fromIndex, dst, dstPos, toIndex - fromIndex);
+	}
+
+	public void setValue(int index,int valueIndex,double v)
+	{
+		rangeCheck(index);
+
+		fValues[valueIndex][index] = v;
+		
+		fireValuesChanged(index, index + 1);
+	}
+
+	public double getMax(int index)
+	{
+		rangeCheck(index);
+
+		double max = fValues[0][index];
+
+		for(int i=1;i<fValues.length;i++)
+		{
+			if(fValues[i][index] > max)
+				max = fValues[i][index];
+		}
+
+		return max;
+	}
+
+	public double getMin(int index)
+	{
+		rangeCheck(index);
+
+		double min = fValues[0][index];
+
+		for(int i=1;i<fValues.length;i++)
+		{
+			if(fValues[i][index] < min)
+				min = fValues[i][index];
+		}
+
+		return min;
+	}
+
+	public boolean isVisible(int index)
+	{
+		rangeCheck(index);
+
+		return null == fHidden || !fHidden[index];
+	}
+
+	public void setVisible(int index,boolean value)
+	{
+		rangeCheck(index);
+
+		if(null == fHidden)
+		{
+			if(value) return;
+
+			fHidden = new boolean[fCapacity];
+		}
+
+		fHidden[index] = !value;
+	}
+
+	/**
+	 * Whether some point may be hidden. Returns <code>false</code> only if all points are known to be visible.
+	 */
+	public boolean hasHiddenPoints()
+	{
+		return null != fHidden;
+	}
+
+	public Object getID(int index)
+	{
+		rangeCheck(index);
+
+		return null == fIDs?null:fIDs[index];
+	}
+
+	/**
+	 * Gets the time of the point whose ID is a <code>Date</code> without creating the ID object,
+	 * {@link #NO_TIME} if the point has no <code>Date</code> ID.
+	 */
+	public long getTime(int index)
+	{
+		Object id = getID(index);
+
+		return id instanceof Date?((Date)id).getTime():NO_TIME;
+	}
+
+	public void setID(int index,Object id)
+	{
+		rangeCheck(index);
+
+		if(null == fIDs)
+		{
+			if(null == id) return;
+
+			fIDs = new Object[fCapacity];
+		}
+
+		fIDs[index] = id;
+	}
+
+	/**
+	 * Whether the points have explicit positions. Returns <code>false</code> if all points are placed at their indexes.
+	 */
+	public boolean hasPositions()
+	{
+		return null != fPositions;
+	}
+
+	/**
+	 * Gets the position of the point on the horizontal scale (without the index offset of the series).
+	 */
+	public double getPosition(int index)
+	{
+		rangeCheck(index);
+
+		return null == fPositions?index:fPositions[index];
+	}
+
+	/**
+	 * Places the point on the horizontal scale, i.e. at the number of its bar interval 
+	 * counted from the first one, so the missing bars leave gaps. 
+	 * Positions must increase by at least one from point to point, the points are found 
+	 * by binary search (see {@link #findPosition(double, boolean)}). 
+	 * Other points keep their indexes as positions, the points appended later are placed 
+	 * next to the last one until their positions are set.
+	 * 
+	 * @throws IllegalArgumentException if the position is less than one away from the neighbors
+	 */
+	public void setPosition(int index,double position)
+	{
+		rangeCheck(index);
+
+		if(null == fPositions)
+			fPositions = createPositions();
+		
+		if((index > 0 && !(position >= fPositions[index - 1] + 1.0)) || 
+		   (index < fSize - 1 && !(position <= fPositions[index + 1] - 1.0)))
+			throw new IllegalArgumentException("Position "+position+" of the point "+index+" is less than one away from the neighbors");
+
+		fPositions[index] = position;
+
+		if(index < fSize - 1)
+			fPositionsVersion++;
+
+		fireValuesChanged(index, index + 1);
+	}
+
+	/**
+	 * Gets the number of the changes of the positions, except setting the position 
+	 * of the last point (i.e. of the point just appended). Positions of the points 
+	 * before the last one are the same while the number is the same.
+	 */
+	public int getPositionsVersion()
+	{
+		return fPositionsVersion;
+	}
+
+	/**
+	 * Gets the backing array of the positions, it is allocated if the points have no positions yet.
+	 * Only first <code>size()</code> elements are meaningful. It is meant for bulk reads, 
+	 * the positions may be written through the array only right after {@link #reset(int)}, 
+	 * which reports the change.
+	 */
+	public double[] getPositionColumn()
+	{
+		if(null == fPositions)
+			fPositions = createPositions();
+
+		return fPositions;
+	}
+
+	/**
+	 * Gets the index of the first point placed after the given position, <code>size()</code> if there is no such point. 
+	 * Takes O(log n) time if the points have positions.
+	 *
+	 * @param inclusive whether the point placed exactly at the position is included
+	 */
+	public int findPosition(double position,boolean inclusive)
+	{
+		if(null == fPositions)
+		{
+			double i = inclusive?Math.ceil(position):Math.floor(position) + 1.0;
+
+			return (int)Math.max(0.0, Math.min(size(), i));
+		}
+
+		int low = 0;
+		int high = fSize;
+
+		while(low < high)
+		{
+			int mid = (low + high) >>> 1;
+
+			if(fPositions[mid] < position || (!inclusive && fPositions[mid] == position))
+				low = mid + 1;
+			else
+				high = mid;
+		}
+
+		return low;
+	}
+
+	private double[] createPositions()
+	{
+		double[] positions = new double[fCapacity];
+
+		for(int i=0;i<fSize;i++)
+			positions[i] = i;
+
+		return positions;
+	}
+
+	public void remove(int index)
+	{
+		removeRange(index, index + 1);
+	}
+
+	/**
+	 * Removes points from <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive.
+	 */
+	public void removeRange(int fromIndex,int toIndex)
+	{
+		if(fromIndex < 0 || toIndex > fSize || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("From: "+fromIndex+", To: "+toIndex+", Size: "+fSize);
+
+		int moved = fSize - toIndex;
+
+		for(double[] column:fValues)
+			System.arraycopy(column, toIndex, column, fromIndex, moved);
+
+		if(null != fHidden)
+		{
+			System.arraycopy(fHidden, toIndex, fHidden, fromIndex, moved);
+
+			for(int i=fSize - (toIndex - fromIndex);i<fSize;i++)
+				fHidden[i] = false;
+		}
+
+		if(null != fIDs)
+		{
+			System.arraycopy(fIDs, toIndex, fIDs, fromIndex, moved);
+
+			for(int i=fSize - (toIndex - fromIndex);i<fSize;i++)
+				fIDs[i] = null;
+		}
+
+		if(null != fPositions)
+		{
+			System.arraycopy(fPositions, toIndex, fPositions, fromIndex, moved);
+			fPositionsVersion++;
+		}
+
+		int oldSize = fSize;
+		fSize -= (toIndex - fromIndex);
+		
+		fireValuesChanged(fromIndex, oldSize);
+	}
+
+	/**
+	 * Replaces the content of the storage with a copy of the given storage.
+	 */
+	public void assign(PointColumns other)
+	{
+		checkValuesCount(other.getValuesCount());
+		
+		int oldSize = fSize;
+		int size = other.size();
+		
+		fSize = 0;
+		fHidden = null;
+		fIDs = null;
+		fPositions = null;
+		fPositionsVersion++;
+		
+		ensureCapacity(size);
+		
+		fSize = size;
+		
+		other.copyRows(this);
+		
+		fireValuesChanged(0, Math.max(oldSize, fSize));
+	}
+	
+	/**
+	 * Copies all points into the target of the same size, which has no hidden points, IDs and positions.
+	 */
+	protected void copyRows(PointColumns target)
+	{
+		for(int i=0;i<fValues.length;i++)
+			System.arraycopy(fValues[i], 0, target.fValues[i], 0, fSize);
+		
+		if(null != fHidden)
+		{
+			target.fHidden = new boolean[target.fCapacity];
+			System.arraycopy(fHidden, 0, target.fHidden, 0, fSize);
+		}
+		
+		if(null != fIDs)
+		{
+			target.fIDs = new Object[target.fCapacity];
+			System.arraycopy(fIDs, 0, target.fIDs, 0, fSize);
+		}
+		
+		if(null != fPositions)
+		{
+			target.fPositions = new double[target.fCapacity];
+			System.arraycopy(fPositions, 0, target.fPositions, 0, fSize);
+		}
+	}
+	
+	/**
+	 * Exchanges the content of two storages in O(1) time, no data is copied. 
+	 * Both storages keep their identity and change listeners.
+	 */
+	public void swap(PointColumns other)
+	{
+		checkValuesCount(other.fValues.length);
+		
+		for(int i=0;i<fValues.length;i++)
+		{
+			double[] column = fValues[i];
+			fValues[i] = other.fValues[i];
+			other.fValues[i] = column;
+		}
+		
+		boolean[] hidden = fHidden;
+		fHidden = other.fHidden;
+		other.fHidden = hidden;
+		
+		Object[] ids = fIDs;
+		fIDs = other.fIDs;
+		other.fIDs = ids;
+		
+		double[] positions = fPositions;
+		fPositions = other.fPositions;
+		other.fPositions = positions;
+		
+		fPositionsVersion++;
+		other.fPositionsVersion++;
+		
+		int size = fSize;
+		fSize = other.fSize;
+		other.fSize = size;
+		
+		int capacity = fCapacity;
+		fCapacity = other.fCapacity;
+		other.fCapacity = capacity;
+		
+		int changed = Math.max(fSize, other.fSize);
+		
+		fireValuesChanged(0, changed);
+		other.fireValuesChanged(0, changed);
+	}
+
+	/**
+	 * Replaces the content of the storage with <code>size</code> visible points without IDs and positions.
+	 * Values of the points are undefined until they are written through {@link #getColumn(int)},
+	 * i.e. by bulk reads.
+	 */
+	public void reset(int size)
+	{
+		int oldSize = fSize;
+		
+		fSize = 0;
+		fHidden = null;
+		fIDs = null;
+		fPositions = null;
+		fPositionsVersion++;
+		
+		ensureCapacity(size);
+		
+		fSize = size;
+		
+		fireValuesChanged(0, Math.max(oldSize, size));
+	}
+	
+	public void clear()
+	{
+		int oldSize = fSize;
+		
+		fSize = 0;
+		fHidden = null;
+		fIDs = null;
+		fPositions = null;
+		fPositionsVersion++;
+		
+		fireValuesChanged(0, oldSize);
+	}
+
+	private int newRow()
+	{
+		ensureCapacity(fSize + 1);
+		
+		if(null != fPositions)
+			fPositions[fSize] = fSize > 0?fPositions[fSize - 1] + 1.0:0.0;
+		
+		fireValuesChanged(fSize, fSize + 1);
+
+		return fSize++;
+	}
+	
+	protected void fireValuesChanged(int fromIndex,int toIndex)
+	{
+		if(null != fChangeListener && fromIndex < toIndex)
+			fChangeListener.onValuesChanged(fromIndex, toIndex);
+	}
+
+	private void copyFrom(int index,AbstractPoint p)
+	{
+		if(p.getValuesCount() != fValues.length)
+			throw new IllegalArgumentException("Point has "+p.getValuesCount()+" values, expected "+fValues.length);
+
+		for(int i=0;i<fValues.length;i++)
+			fValues[i][index] = p.getValueAt(i);
+
+		setID(index, p.getID());
+		setVisible(index, p.isVisible());
+	}
+
+	protected void checkValuesCount(int count)
+	{
+		if(count != fValues.length)
+			throw new IllegalArgumentException("Got "+count+" values, expected "+fValues.length);
+	}
+
+	protected void rangeCheck(int index)
+	{
+		if(index >= size() || index < 0)
+			throw new IndexOutOfBoundsException("Index: "+index+", Size: "+size());
+	}
+
+	protected void rangeCheck(int fromIndex,int toIndex)
+	{
+		if(fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+			throw new IndexOutOfBoundsException("From: "+fromIndex+", To: "+toIndex+", Size: "+size());
+	}
+}
@@ -16,37 +16,475 @@
 
 package org.stockchart.series;
 
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.stockchart.core.Appearance;
+import org.stockchart.core.PaintInfo;
 import org.stockchart.core.SeriesPaintInfo;
 import org.stockchart.points.AbstractPoint;
+import org.stockchart.points.PointColumns;
+import org.stockchart.utils.Reflection;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
 
 public abstract class AbstractSeries<T extends AbstractPoint> extends SeriesBase
 {
-	private final ArrayList<T> fPoints = new ArrayList<T>();
+	/**
+	 * List view of the point columns. Every <code>get</code> returns a new point 
+	 * attached to the row, <code>add</code> and <code>set</code> copy point's values into 
+	 * the columns and attach the point to its row.
+	 */
+	private class PointView extends AbstractList<T>
+	{
+		@Override
+		public T get(int i)
+		{
+			T p = createPoint();
+			fColumns.attach(p, i);
+			
+			return p;
+		}
+
+		@Override
+		public int size()
+		{
+			return fColumns.size();
+		}
+		
+		@Override
+		public void add(int i, T p)
+		{
+			if(i == fColumns.size())
+				i = fColumns.add(p);
+			else
+				fColumns.insert(i, p);
+			
+			fColumns.attach(p, i);
+			modCount++;
+		}
+		
+		@Override
+		public T set(int i, T p)
+		{
+			T old = createPoint();
+			fColumns.read(i, old);
+			
+			fColumns.set(i, p);
+			fColumns.attach(p, i);
+			
+			return old;
+		}
+		
+		@Override
+		public T remove(int i)
+		{
+			T old = createPoint();
+			fColumns.read(i, old);
+			
+			fColumns.remove(i);
+			modCount++;
+			
+			return old;
+		}
+		
+		@Override
+		protected void removeRange(int fromIndex, int toIndex)
+		{
+			fColumns.removeRange(fromIndex, toIndex);
+			modCount++;
+		}
+		
+		@Override
+		public void clear()
+		{
+			fColumns.clear();
+			modCount++;
+		}
+		
+		/**
+		 * Points are equal by identity, the point returned by the list is a new instance every time, 
+		 * so the point is found by the row it is attached to.
+		 */
+		@Override
+		public int indexOf(Object o)
+		{
+			return o instanceof AbstractPoint?fColumns.indexOf((AbstractPoint)o):-1;
+		}
+		
+		@Override
+		public int lastIndexOf(Object o)
+		{
+			return indexOf(o);
+		}
+		
+		@Override
+		public boolean contains(Object o)
+		{
+			return indexOf(o) >= 0;
+		}
+		
+		@Override
+		public boolean remove(Object o)
+		{
+			int i = indexOf(o);
+			
+			if(i < 0) return false;
+			
+			remove(i);
+			
+			return true;
+		}
+		
+		/**
+		 * Gets the points detached from the columns
+		 */
+		public ArrayList<T> copy()
+		{
+			ArrayList<T> points = new ArrayList<T>(size());
+			
+			for(int i=0;i<size();i++)
+			{
+				T p = createPoint();
+				fColumns.read(i, p);
+				points.add(p);
+			}
+			
+			return points;
+		}
+		
+		/**
+		 * Sorts the rows, the points previously returned by the list keep their indexes.
+		 * Overrides <code>List.sort</code> of Java 8, which is called by <code>Collections.sort</code>.
+		 */
+		public void sort(Comparator<? super T> c)
+		{
+			ArrayList<T> points = copy();
+			Collections.sort(points, c);
+			
+			fColumns.clear();
+			
+			for(T p:points)
+				fColumns.add(p);
+			
+			modCount++;
+		}
+	}
+	
+	private final PointColumns fColumns;
+	
+	private final PointView fPoints = new PointView();
+	
+	private final T fCursor;
 	
 	private final Appearance fAppearance = new Appearance();
 	
+	private boolean fIsDecimationEnabled = true;
+	
+	private boolean fIsDecimating = false;
+	
+	private AggregationPyramid fPyramid = null;
+	
+	private final double[] fAggregate;
+	
 	public AbstractSeries()
 	{
+		fCursor = createPoint();
+		fColumns = createColumns(fCursor.getValuesCount());
+		fAggregate = new double[fCursor.getValuesCount()];
+		fColumns.setChangeListener(new PointColumns.IChangeListener() 
+		{			
+			@Override
+			public void onValuesChanged(int fromIndex, int toIndex) 
+			{
+				onPointsChanged(fromIndex, toIndex);
+			}
+		});
+		
 		fAppearance.getFont().setColor(Color.BLUE);
 	}
 	
-	public ArrayList<T> getPoints()
+	/**
+	 * Creates new detached point of the series type. 
+	 * It is called from the constructor, so it must not depend on the subclass state.
+	 */
+	protected abstract T createPoint();
+	
+	/**
+	 * Creates storage of the points. It is called from the constructor, 
+	 * so it must not depend on the subclass state.
+	 */
+	protected PointColumns createColumns(int valuesCount)
+	{
+		return new PointColumns(valuesCount);
+	}
+	
+	/**
+	 * Gets points of the series. The list is a view of {@link #getColumns()}, 
+	 * points returned by it are views of the corresponding rows.
+	 * <p>
+	 * <b>The point is bound to the index of its row, not to the data.</b> If points before it 
+	 * are inserted or removed (i.e. the head of a live feed is trimmed), the point shows 
+	 * another row afterwards. Don't keep the points over such changes, keep the values 
+	 * or read the point again by the new index. Points removed from the list are detached 
+	 * copies, they are not affected. A point kept by the caller is found by <code>indexOf</code>, 
+	 * <code>contains</code> and <code>remove</code> as the row it is bound to.
+	 * <p>
+	 * The list is not an <code>ArrayList</code>, use <code>new ArrayList&lt;T&gt;(getPoints())</code> 
+	 * to get the points detached from the series.
+	 */
+	public List<T> getPoints()
 	{
 		return fPoints;
 	}
 	
+	/**
+	 * Gets columnar storage of the series. Use it to add or read points 
+	 * without creating point objects.
+	 */
+	public PointColumns getColumns()
+	{
+		return fColumns;
+	}
+	
+	/**
+	 * Gets the pyramid of aggregated points used when zoomed out, 
+	 * <code>null</code> if the series doesn't support it (see {@link #getAggregations()})
+	 */
+	public AggregationPyramid getPyramid()
+	{
+		if(null == fPyramid)
+		{
+			AggregationPyramid.Aggregation[] aggregations = getAggregations();
+			
+			if(null != aggregations)
+				fPyramid = new AggregationPyramid(fColumns, aggregations, getMaxPyramidEntries());
+		}
+		
+		return fPyramid;
+	}
+	
+	/**
+	 * Gets the maximum number of entries of the finest level the pyramid keeps in memory 
+	 * (see {@link AggregationPyramid#AggregationPyramid(PointColumns, AggregationPyramid.Aggregation[], int)}).
+	 */
+	protected int getMaxPyramidEntries()
+	{
+		return Integer.MAX_VALUE;
+	}
+	
+	/**
+	 * Gets the way every value of the point is aggregated by the pyramid, 
+	 * <code>null</code> if the series doesn't need the pyramid.
+	 * Call {@link #resetPyramid()} when the result changes.
+	 */
+	protected AggregationPyramid.Aggregation[] getAggregations()
+	{
+		return null;
+	}
+	
+	/**
+	 * Drops the pyramid, so it is rebuilt with the current aggregations on the next request.
+	 */
+	protected void resetPyramid()
+	{
+		fPyramid = null;
+	}
+	
+	@Override
+	protected void onPointsChanged(int fromIndex, int toIndex)
+	{
+		super.onPointsChanged(fromIndex, toIndex);
+		
+		if(null != fPyramid)
+			fPyramid.invalidate(fromIndex);
+	}
+	
+	/**
+	 * If the series is drawn aggregated by the pyramid, the maximum and minimum 
+	 * of the aggregated buckets are returned, i.e. summed volumes of the volume bars.
+	 */
+	@Override
+	public double[] getMaxMinPrice(PaintInfo x)
+	{
+		if(null == getPyramid() || !isVisibleOnScreen(x.Max, x.Min)) 
+			return super.getMaxMinPrice(x);
+		
+		int index = convertToArrayIndexZeroBased(x.Min);
+		
+		if(!isDecimationNeeded(x, index))
+			return super.getMaxMinPrice(x);
+		
+		double max = Double.NEGATIVE_INFINITY;
+		double min = Double.POSITIVE_INFINITY;
+		
+		int last = getLastDrawnIndex(x);
+		int from = index;
+		
+		while(from <= last)
+		{
+			int to = getBucketEnd(x, from, last);
+			
+			fPyramid.aggregate(from, to, fAggregate);
+			
+			for(double v:fAggregate)
+			{
+				if(v > max) max = v;
+				if(v < min) min = v;
+			}
+			
+			from = to + 1;
+		}
+		
+		if(Double.NEGATIVE_INFINITY == max)
+			return new double[] { Double.NaN, Double.NaN };
+		
+		return new double[] { max, min };
+	}
+	
+	/**
+	 * Gets the aggregated point drawn in the pixel column containing <code>x</code>. 
+	 * Returns <code>null</code> if the series is not drawn aggregated by the pyramid 
+	 * or there are no points in the column. 
+	 * 
+	 * @param x coordinate relative to the plot
+	 * @return new detached point having the ID of the last point of the bucket
+	 */
+	public T getBucketPointAt(SeriesPaintInfo pinfo, float x)
+	{
+		int last = aggregateBucketAt(pinfo, x, null);
+		
+		return last < 0?null:createBucketPoint(last);
+	}
+	
+	/**
+	 * Aggregates the bucket drawn in the pixel column containing <code>x</code> into the buffer 
+	 * of the series without allocations, so it can be called on every touch move.
+	 * 
+	 * @param x coordinate relative to the plot
+	 * @param maxMin receives the maximum and the minimum of the bucket if not <code>null</code>
+	 * @return index of the last point of the bucket or -1 if the series is not drawn aggregated 
+	 * by the pyramid or there are no points in the column
+	 */
+	public int aggregateBucketAt(SeriesPaintInfo pinfo, float x, double[] maxMin)
+	{
+		if(null == getPyramid() || !isVisibleOnScreen(pinfo.X.Max, pinfo.X.Min)) return -1;
+		
+		int index = convertToArrayIndexZeroBased(pinfo.X.Min);
+		
+		if(!isDecimationNeeded(pinfo.X, index)) return -1;
+		
+		float column = (float)Math.floor(x);
+		int last = getLastDrawnIndex(pinfo.X);
+		
+		// the first point of the column
+		int from = Math.max(index, findPosition(pinfo.X.getValue(column) - getIndexOffset(), true));
+		
+		while(from > index && pinfo.getX(getScalePosition(from - 1)) >= column)
+			from--;
+		
+		while(from <= last && pinfo.getX(getScalePosition(from)) < column)
+			from++;
+		
+		if(from > last || pinfo.getX(getScalePosition(from)) >= column + 1f) return -1;
+		
+		int to = getBucketEnd(pinfo.X, from, last);
+		
+		fPyramid.aggregate(from, to, fAggregate);
+		
+		if(null != maxMin)
+		{
+			maxMin[0] = Double.NEGATIVE_INFINITY;
+			maxMin[1] = Double.POSITIVE_INFINITY;
+			
+			for(double v:fAggregate)
+			{
+				if(v > maxMin[0]) maxMin[0] = v;
+				if(v < maxMin[1]) maxMin[1] = v;
+			}
+		}
+		
+		return to;
+	}
+	
+	/**
+	 * Creates the detached point from the bucket last aggregated by {@link #aggregateBucketAt(SeriesPaintInfo, float, double[])}.
+	 * 
+	 * @param last index of the last point of the bucket returned by the aggregation
+	 */
+	public T createBucketPoint(int last)
+	{
+		T p = createPoint();
+		
+		for(int i=0;i<fAggregate.length;i++)
+			p.setValueAt(i, fAggregate[i]);
+		
+		p.setID(fColumns.getID(last));
+		
+		return p;
+	}
+	
+	/**
+	 * Creates an empty series of the same type through the public default constructor.
+	 * 
+	 * @return new series or <code>null</code> if the type can't be instantiated (i.e. anonymous or inner class)
+	 */
+	public AbstractSeries<?> createEmptyCopy()
+	{
+		Class<?> c = getClass();
+		
+		if(c.isAnonymousClass() || (c.isMemberClass() && !Modifier.isStatic(c.getModifiers())))
+			return null;
+		
+		AbstractSeries<?> copy = (AbstractSeries<?>)Reflection.newInstance(c.getName());
+		
+		if(null != copy)
+			copy.setIndexOffset(getIndexOffset());
+		
+		return copy;
+	}
+	
+	/**
+	 * Creates a series of the same type holding a copy of the points.
+	 * The snapshot is independent of the series, so it can be read by another thread.
+	 * 
+	 * @return new series or <code>null</code> if the type can't be instantiated
+	 */
+	public AbstractSeries<?> createSnapshot()
+	{
+		AbstractSeries<?> copy = createEmptyCopy();
+		
+		if(null != copy)
+			copy.getColumns().assign(fColumns);
+		
+		return copy;
+	}
+	
+	/**
+	 * Exchanges points and index offsets with the given series of the same point type.
+	 * Used to publish points calculated into a back buffer series at once.
+	 */
+	public void swapPoints(AbstractSeries<?> other)
+	{
+		fColumns.swap(other.fColumns);
+		
+		int offset = getIndexOffset();
+		setIndexOffset(other.getIndexOffset());
+		other.setIndexOffset(offset);
+	}
+	
 	public JSONObject toJSONObject() throws JSONException
 	{
 		JSONObject j = super.toJSONObject();
 		j.put("appearance", fAppearance.toJSONObject());
+		j.put("decimationEnabled", fIsDecimationEnabled);
 		
 		return j;
 	}
@@ -55,6 +493,7 @@ public abstract class AbstractSeries<T extends AbstractPoint> extends SeriesBase
 	{
 		super.fromJSONObject(j);
 		fAppearance.fromJSONObject(j.getJSONObject("appearance"));
+		fIsDecimationEnabled = j.has("decimationEnabled")?j.getBoolean("decimationEnabled"):true;
 	}
 	
 	public Appearance getAppearance()
@@ -62,10 +501,101 @@ public abstract class AbstractSeries<T extends AbstractPoint> extends SeriesBase
 		return fAppearance;
 	}
 	
+	/**
+	 * Gets whether points narrower than a pixel are drawn aggregated by pixel columns 
+	 * (if the series supports it, see {@link #drawBucket(Canvas, SeriesPaintInfo, float, int, int)})
+	 */
+	public boolean isDecimationEnabled()
+	{
+		return fIsDecimationEnabled;
+	}
+	
+	public void setDecimationEnabled(boolean value)
+	{
+		fIsDecimationEnabled = value;
+	}
+	
 	@Override
 	public AbstractPoint getPointAt(int i)
 	{
-		return (AbstractPoint)fPoints.get(i);
+		return fPoints.get(i);
+	}
+	
+	@Override
+	public double getValueAt(int i, int valueIndex)
+	{
+		return fColumns.getValue(i, valueIndex);
+	}
+	
+	@Override
+	public double[] getColumn(int valueIndex)
+	{
+		return fColumns.isInMemory()?fColumns.getColumn(valueIndex):null;
+	}
+	
+	@Override
+	public void copyColumn(int valueIndex,int fromIndex,int toIndex,double[] dst,int dstPos)
+	{
+		fColumns.copyColumn(valueIndex, fromIndex, toIndex, dst, dstPos);
+	}
+	
+	public void setValueAt(int i, int valueIndex, double value)
+	{
+		fColumns.setValue(i, valueIndex, value);
+	}
+	
+	@Override
+	public double getMaxValueAt(int i)
+	{
+		return fColumns.getMax(i);
+	}
+	
+	@Override
+	public double getMinValueAt(int i)
+	{
+		return fColumns.getMin(i);
+	}
+	
+	@Override
+	public boolean isPointVisible(int i)
+	{
+		return fColumns.isVisible(i);
+	}
+	
+	@Override
+	public Object getIDAt(int i)
+	{
+		return fColumns.getID(i);
+	}
+	
+	@Override
+	public long getTimeAt(int i)
+	{
+		return fColumns.getTime(i);
+	}
+	
+	@Override
+	public double getPositionAt(int i)
+	{
+		return fColumns.getPosition(i);
+	}
+	
+	@Override
+	public boolean hasSparsePositions()
+	{
+		return fColumns.hasPositions();
+	}
+	
+	@Override
+	public int getPositionsVersion()
+	{
+		return fColumns.getPositionsVersion();
+	}
+	
+	@Override
+	public int findPosition(double position, boolean inclusive)
+	{
+		return fColumns.findPosition(position, inclusive);
 	}
 	
 	@Override
@@ -74,39 +604,153 @@ public abstract class AbstractSeries<T extends AbstractPoint> extends SeriesBase
 		if(!isVisibleOnScreen(pinfo.X.Max, pinfo.X.Min)) return;
 		
 		int index = convertToArrayIndexZeroBased(pinfo.X.Min);
+		
+		fIsDecimating = isDecimationNeeded(pinfo, index);
 
 		preDraw();
 		
+		if(fIsDecimating)
+			drawDecimated(c, pinfo, index);
+		else
+			drawPoints(c, pinfo, index);
+		
+		postDraw(c);
+		
+		fIsDecimating = false;
+	}
+	
+	private void drawPoints(Canvas c, SeriesPaintInfo pinfo, int index)
+	{
 		for(int i=index;i<getPointCount();i++)
 		{
-			T p = this.fPoints.get(i);			
+			double scaleIndex = getScalePosition(i);
 			
-			float scaleIndex = convertToScaleIndex(i);
-			
-			if(p.isVisible())
+			if(fColumns.isVisible(i))
 			{							
-				float x1 = pinfo.getX(scaleIndex - 0.5f) + 1f;
-				float x2 = pinfo.getX(scaleIndex + 0.5f) - 1f;
+				float x1 = pinfo.getX(scaleIndex - 0.5) + 1f;
+				float x2 = pinfo.getX(scaleIndex + 0.5) - 1f;
 
-				drawPoint(c, pinfo, x1, x2, p);
+				fColumns.attach(fCursor, i);
+				drawPoint(c, pinfo, x1, x2, fCursor);
 			}
 			
 			if(scaleIndex > pinfo.X.Max)
 				break;
 		}
+	}
+	
+	/**
+	 * Splits visible points into pixel columns and draws one bucket per column,
+	 * so the number of draw calls depends on the view width only.
+	 */
+	private void drawDecimated(Canvas c, SeriesPaintInfo pinfo, int index)
+	{
+		int last = getLastDrawnIndex(pinfo.X);
+		int from = index;
 		
-		postDraw(c);
+		while(from <= last)
+		{
+			float column = (float)Math.floor(pinfo.getX(getScalePosition(from)));
+			int to = getBucketEnd(pinfo.X, from, last);
+			
+			drawBucket(c, pinfo, column + 0.5f, from, to);
+			
+			from = to + 1;
+		}
+	}
+	
+	/**
+	 * Gets the index of the last point falling into the same pixel column as the point <code>from</code>.
+	 */
+	private int getBucketEnd(PaintInfo x, int from, int last)
+	{
+		float nextColumn = (float)Math.floor(x.get(getScalePosition(from))) + 1f;
+		
+		int to = findPosition(x.getValue(nextColumn) - getIndexOffset(), true) - 1;
+		to = Math.max(from, Math.min(last, to));
+		
+		// correct rounding errors of the inverse conversion
+		while(to < last && x.get(getScalePosition(to + 1)) < nextColumn)
+			to++;
+		
+		while(to > from && x.get(getScalePosition(to)) >= nextColumn)
+			to--;
+		
+		return to;
+	}
+	
+	/**
+	 * Gets the index of the last drawn point, the first point beyond the view is drawn as well.
+	 */
+	private int getLastDrawnIndex(PaintInfo x)
+	{
+		return Math.min(getPointCount() - 1, findPosition(x.Max - getIndexOffset(), false));
+	}
+	
+	private boolean isDecimationNeeded(SeriesPaintInfo pinfo, int index)
+	{
+		return isDecimationNeeded(pinfo.X, index);
+	}
+	
+	private boolean isDecimationNeeded(PaintInfo x, int index)
+	{
+		if(!fIsDecimationEnabled || !isDecimationSupported() || fColumns.hasHiddenPoints()) 
+			return false;
+		
+		double scaleIndex = getScalePosition(Math.min(index, getPointCount() - 1));
+		
+		return Math.abs(x.get(scaleIndex + 1.0) - x.get(scaleIndex)) < 1f;
+	}
+	
+	/**
+	 * Whether the current <code>draw</code> call aggregates points by pixel columns.
+	 * Valid between <code>preDraw</code> and <code>postDraw</code> calls, inclusive.
+	 */
+	protected boolean isDecimating()
+	{
+		return fIsDecimating;
 	}
 		
 	@Override
 	public int getPointCount()
 	{
-		return fPoints.size();
+		return fColumns.size();
 	}
 	
 
+	/**
+	 * Draws single point. The point passed is a cursor reused for every point of the series, 
+	 * so don't keep the reference to it. 
+	 */
 	protected abstract void drawPoint(Canvas c, SeriesPaintInfo pinfo, float x1,float x2, T p);
 
+	/**
+	 * Points are drawn independently of each other, series drawing shapes 
+	 * through all points override it.
+	 */
+	@Override
+	public boolean isPartialDrawingSupported()
+	{
+		return true;
+	}
+	
+	/**
+	 * Whether the series can draw aggregated buckets of points.
+	 */
+	protected boolean isDecimationSupported()
+	{
+		return false;
+	}
+	
+	/**
+	 * Draws points from <code>fromIndex</code> to <code>toIndex</code>, both inclusive, 
+	 * which fall into the same pixel column. Called instead of <code>drawPoint</code> 
+	 * when points are narrower than a pixel and {@link #isDecimationSupported()} returns <code>true</code>.
+	 * 
+	 * @param x center of the pixel column
+	 */
+	protected void drawBucket(Canvas c, SeriesPaintInfo pinfo, float x, int fromIndex, int toIndex) {}
+	
 	protected void preDraw() {}
 	protected void postDraw(Canvas c){}
 
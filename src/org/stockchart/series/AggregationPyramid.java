@@ -0,0 +1,293 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.series;
+
+import java.util.ArrayList;
+
+import org.stockchart.points.PointColumns;
+
+/**
+ * Multi-resolution pyramid of aggregated points.
+ * <p>
+ * Level 0 is the series itself, every entry of level <code>L</code> aggregates 4 entries
+ * of level <code>L-1</code>, i.e. <code>4^L</code> points of the series. Each value of the
+ * point is aggregated in its own way (i.e. first open, highest high, lowest low and last close for OHLC,
+ * sum for volume).
+ * <p>
+ * The pyramid is synchronized lazily, only entries covering changed points are recalculated,
+ * so appending a point costs one entry per level. Any range of points is aggregated from
+ * the coarsest entries fitting into it in O(log n) time.
+ * <p>
+ * The number of entries kept in memory can be capped, then the levels finer than the first level 
+ * having no more than <code>maxEntries</code> entries are not kept and their points are aggregated 
+ * from the series itself. This is used by series whose points are not kept in memory.
+ */
+public class AggregationPyramid
+{
+	public enum Aggregation
+	{
+		FIRST,
+		LAST,
+		MAX,
+		MIN,
+		SUM
+	}
+
+	private static final int LEVEL_SHIFT = 2;
+
+	private final PointColumns fBase;
+	private final Aggregation[] fAggregations;
+
+	private final ArrayList<PointColumns> fLevels = new ArrayList<PointColumns>();
+
+	private final double[] fRow;
+
+	private final int fMaxEntries;
+
+	// level of the first entry of fLevels
+	private int fFirstLevel = 1;
+
+	private int fDirtyFrom = 0;
+
+	public AggregationPyramid(PointColumns base, Aggregation[] aggregations)
+	{
+		this(base, aggregations, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * @param maxEntries maximum number of entries of the finest kept level
+	 */
+	public AggregationPyramid(PointColumns base, Aggregation[] aggregations, int maxEntries)
+	{
+		if(base.getValuesCount() != aggregations.length)
+			throw new IllegalArgumentException("Got "+aggregations.length+" aggregations, expected "+base.getValuesCount());
+
+		if(maxEntries < 1)
+			throw new IllegalArgumentException("maxEntries must be positive: "+maxEntries);
+
+		fBase = base;
+		fAggregations = aggregations;
+		fMaxEntries = maxEntries;
+		fRow = new double[aggregations.length];
+	}
+
+	/**
+	 * Marks points starting from <code>fromIndex</code> as changed.
+	 */
+	public void invalidate(int fromIndex)
+	{
+		if(fromIndex < fDirtyFrom)
+			fDirtyFrom = fromIndex;
+	}
+
+	/**
+	 * Gets the number of levels including the series itself and the levels which are not kept.
+	 */
+	public int getLevelsCount()
+	{
+		sync();
+
+		return fFirstLevel + fLevels.size();
+	}
+
+	/**
+	 * Gets entries of the level, level 0 is the series itself.
+	 * 
+	 * @return entries or <code>null</code> if the level is not kept because of the cap
+	 */
+	public PointColumns getLevel(int level)
+	{
+		sync();
+
+		return isKept(level)?getLevelColumns(level):null;
+	}
+
+	/**
+	 * Gets the number of points aggregated by the entry of the level.
+	 */
+	public static int getLevelScale(int level)
+	{
+		return 1 << (LEVEL_SHIFT*level);
+	}
+
+	/**
+	 * Gets the coarsest level whose entries cover no more than <code>pointsCount</code> points each,
+	 * i.e. the coarsest level still giving at least one entry per pixel for <code>pointsCount</code> points per pixel.
+	 */
+	public int getLevelFor(double pointsCount)
+	{
+		int level = 0;
+		int levels = getLevelsCount();
+
+		while(level + 1 < levels && getLevelScale(level + 1) <= pointsCount)
+			level++;
+
+		return isKept(level)?level:0;
+	}
+
+	/**
+	 * Aggregates points from <code>fromIndex</code> to <code>toIndex</code>, both inclusive.
+	 *
+	 * @param result receives aggregated values, its length must be equal to the number of point's values
+	 */
+	public void aggregate(int fromIndex,int toIndex,double[] result)
+	{
+		sync();
+
+		int top = fFirstLevel + fLevels.size() - 1;
+		boolean isFirst = true;
+		int i = fromIndex;
+
+		while(i <= toIndex)
+		{
+			// the coarsest kept entry starting at i and fitting into the range
+			int level = top;
+
+			while(level >= fFirstLevel)
+			{
+				int scale = getLevelScale(level);
+
+				if(0 == (i & (scale - 1)) && i + scale - 1 <= toIndex) break;
+
+				level--;
+			}
+
+			if(level < fFirstLevel)
+				level = 0;
+
+			combine(result, getLevelColumns(level), i >> (LEVEL_SHIFT*level), isFirst);
+			isFirst = false;
+
+			i += getLevelScale(level);
+		}
+	}
+
+	private boolean isKept(int level)
+	{
+		return 0 == level || (level >= fFirstLevel && level < fFirstLevel + fLevels.size());
+	}
+
+	private PointColumns getLevelColumns(int level)
+	{
+		return 0 == level?fBase:fLevels.get(level - fFirstLevel);
+	}
+
+	/**
+	 * Gets the finest level having no more than the maximum number of entries for <code>count</code> points
+	 */
+	private int getFirstLevel(int count)
+	{
+		int level = 1;
+
+		while(((count + getLevelScale(level) - 1) >> (LEVEL_SHIFT*level)) > fMaxEntries)
+			level++;
+
+		return level;
+	}
+
+	private void sync()
+	{
+		int count = fBase.size();
+		int firstLevel = getFirstLevel(count);
+
+		// the cap moves the first kept level as the series grows, the levels are rebuilt then
+		if(firstLevel != fFirstLevel)
+		{
+			fLevels.clear();
+			fFirstLevel = firstLevel;
+			fDirtyFrom = 0;
+		}
+
+		if(fDirtyFrom >= count && isComplete(count)) return;
+
+		for(int level=fFirstLevel;getLevelScale(level) <= count;level++)
+		{
+			if(fLevels.size() <= level - fFirstLevel)
+				fLevels.add(new PointColumns(fAggregations.length));
+
+			// the first kept level is aggregated from the series itself
+			int lowerLevel = level == fFirstLevel?0:level - 1;
+			int shift = LEVEL_SHIFT*(level - lowerLevel);
+
+			PointColumns lower = getLevelColumns(lowerLevel);
+			PointColumns entries = getLevelColumns(level);
+
+			int from = Math.min(entries.size(), fDirtyFrom >> (LEVEL_SHIFT*level));
+			int to = (count + getLevelScale(level) - 1) >> (LEVEL_SHIFT*level);
+
+			entries.removeRange(from, entries.size());
+
+			for(int e=from;e<to;e++)
+			{
+				int child = e << shift;
+				int lastChild = Math.min(child + (1 << shift), lower.size());
+
+				for(int c=child;c<lastChild;c++)
+					combine(fRow, lower, c, c == child);
+
+				entries.add(fRow);
+			}
+		}
+
+		// drop levels which are too coarse after points have been removed
+		while(fLevels.size() > 0 && getLevelScale(fFirstLevel + fLevels.size() - 1) > count)
+			fLevels.remove(fLevels.size() - 1);
+
+		fDirtyFrom = count;
+	}
+
+	private boolean isComplete(int count)
+	{
+		int top = fFirstLevel + fLevels.size() - 1;
+
+		return getLevelScale(top + 1) > count && (0 == fLevels.size() || getLevelScale(top) <= count);
+	}
+
+	private void combine(double[] acc,PointColumns columns,int index,boolean isFirst)
+	{
+		for(int vi=0;vi<fAggregations.length;vi++)
+		{
+			double v = columns.getValue(index, vi);
+
+			if(isFirst)
+			{
+				acc[vi] = v;
+				continue;
+			}
+
+			switch(fAggregations[vi])
+			{
+			case FIRST:
+				break;
+			case LAST:
+				acc[vi] = v;
+				break;
+			case MAX:
+				if(v > acc[vi] || Double.isNaN(acc[vi]))
+					acc[vi] = v;
+				break;
+			case MIN:
+				if(v < acc[vi] || Double.isNaN(acc[vi]))
+					acc[vi] = v;
+				break;
+			case SUM:
+				if(!Double.isNaN(v))
+					acc[vi] = Double.isNaN(acc[vi])?v:acc[vi] + v;
+				break;
+			}
+		}
+	}
+}
@@ -0,0 +1,295 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.series;
+
+import java.util.Date;
+
+import org.stockchart.core.IndicatorManager;
+import org.stockchart.points.PointColumns;
+import org.stockchart.points.StockPoint;
+
+/**
+ * Rolls trades (timestamp, price, size) into bars of the price series and, optionally,
+ * the volume series.
+ * <p>
+ * The forming bar is the last point of the series, it is updated in place by every trade
+ * and the next bar is appended when the forming bar closes. Bars get <code>Date</code> IDs
+ * (the start of the interval for time bars, the time of the first trade otherwise),
+ * the last price is set as the last value of the price series. Indicators of the
+ * linked {@link IndicatorManager} are notified at most twice per batch.
+ * The first trade always opens the new bar, existing points of the series are not continued.
+ * No objects are created per trade, only the ID of every new bar.
+ */
+public class BarAggregator
+{
+	public enum BarType
+	{
+		/**
+		 * Bar covers the interval of the given duration in milliseconds,
+		 * intervals are aligned to the epoch
+		 */
+		TIME,
+		/**
+		 * Bar closes after the given number of trades
+		 */
+		TICKS,
+		/**
+		 * Bar closes when its volume reaches the given size, trades are not split between bars
+		 */
+		VOLUME
+	}
+
+	private static final int HIGH = StockPoint.getValueIndex(StockPoint.PointValue.HIGH);
+	private static final int LOW = StockPoint.getValueIndex(StockPoint.PointValue.LOW);
+	private static final int CLOSE = StockPoint.getValueIndex(StockPoint.PointValue.CLOSE);
+
+	// volume is the second value of the bar, the first one is zero
+	private static final int VOLUME = 1;
+
+	private final StockSeries fPrice;
+	private final BarSeries fVolume;
+	private final BarType fBarType;
+	private final double fBarSize;
+
+	private IndicatorManager fIndicatorManager = null;
+
+	private boolean fHasFormingBar = false;
+	private long fBarStart;
+	private int fBarTicks;
+	private double fBarVolume;
+
+	// notifications collected while the batch is processed
+	private int fFirstAppended = -1;
+	private int fFirstVolumeAppended = -1;
+	private boolean fIsLastUpdated = false;
+
+	/**
+	 * @param price		series receiving OHLC bars
+	 * @param volume	series receiving volumes of the bars, may be <code>null</code>. 
+	 * 					It is marked as volume, see {@link BarSeries#setVolume(boolean)}
+	 * @param barType	the way trades are grouped into bars
+	 * @param barSize	duration of the bar in milliseconds, number of trades or volume, depending on the bar type
+	 */
+	public BarAggregator(StockSeries price,BarSeries volume,BarType barType,double barSize)
+	{
+		if(barSize <= 0)
+			throw new IllegalArgumentException("Bar size must be positive: "+barSize);
+
+		fPrice = price;
+		fVolume = volume;
+		
+		if(null != volume)
+			volume.setVolume(true);
+		
+		fBarType = barType;
+		fBarSize = barSize;
+	}
+
+	public StockSeries getPrice()
+	{
+		return fPrice;
+	}
+
+	public BarSeries getVolume()
+	{
+		return fVolume;
+	}
+
+	public BarType getBarType()
+	{
+		return fBarType;
+	}
+
+	public double getBarSize()
+	{
+		return fBarSize;
+	}
+
+	public IndicatorManager getIndicatorManager()
+	{
+		return fIndicatorManager;
+	}
+
+	/**
+	 * Sets indicators to notify about appended and updated bars
+	 */
+	public void setIndicatorManager(IndicatorManager value)
+	{
+		fIndicatorManager = value;
+	}
+
+	/**
+	 * Closes the forming bar, the next trade opens the new one (i.e. at the end of the session)
+	 */
+	public void closeBar()
+	{
+		fHasFormingBar = false;
+	}
+
+	public void addTick(long timestamp,double price,double size)
+	{
+		processTick(timestamp, price, size);
+		notifyIndicators();
+	}
+
+	/**
+	 * Adds the batch of trades ordered by time.
+	 *
+	 * @param timestamps	times of the trades in milliseconds
+	 * @param prices		prices of the trades
+	 * @param sizes			sizes of the trades
+	 * @param offset		index of the first trade in the arrays
+	 * @param count			number of trades
+	 */
+	public void addTicks(long[] timestamps,double[] prices,double[] sizes,int offset,int count)
+	{
+		for(int i=offset;i<offset + count;i++)
+			processTick(timestamps[i], prices[i], sizes[i]);
+
+		notifyIndicators();
+	}
+
+	private void processTick(long timestamp,double price,double size)
+	{
+		if(!fHasFormingBar || isBarClosedBy(timestamp))
+			openBar(timestamp, price, size);
+		else
+			updateBar(price, size);
+
+		fPrice.setLastValue(price);
+
+		if(isBarComplete())
+			fHasFormingBar = false;
+	}
+
+	private boolean isBarClosedBy(long timestamp)
+	{
+		// late trades are merged into the forming bar
+		return BarType.TIME == fBarType && getIntervalStart(timestamp) > fBarStart;
+	}
+
+	private boolean isBarComplete()
+	{
+		switch(fBarType)
+		{
+		case TICKS:
+			return fBarTicks >= fBarSize;
+		case VOLUME:
+			return fBarVolume >= fBarSize;
+		default:
+			return false;
+		}
+	}
+
+	private void openBar(long timestamp,double price,double size)
+	{
+		// the old last bar must get its final values before the new one is appended
+		if(fIsLastUpdated && fFirstAppended < 0 && null != fIndicatorManager)
+		{
+			fIndicatorManager.onLastPointUpdated(fPrice);
+
+			if(null != fVolume)
+				fIndicatorManager.onLastPointUpdated(fVolume);
+		}
+
+		fIsLastUpdated = false;
+
+		fBarStart = BarType.TIME == fBarType?getIntervalStart(timestamp):timestamp;
+		fBarTicks = 1;
+		fBarVolume = size;
+		fHasFormingBar = true;
+
+		Date id = new Date(fBarStart);
+
+		PointColumns columns = fPrice.getColumns();
+		int i = columns.add(price, price, price, price);
+
+		columns.setID(i, id);
+
+		if(fFirstAppended < 0)
+			fFirstAppended = i;
+
+		if(null != fVolume)
+		{
+			PointColumns volume = fVolume.getColumns();
+			int vi = volume.add(0, size);
+
+			volume.setID(vi, id);
+
+			if(fFirstVolumeAppended < 0)
+				fFirstVolumeAppended = vi;
+		}
+	}
+
+	private void updateBar(double price,double size)
+	{
+		fBarTicks++;
+		fBarVolume += size;
+
+		PointColumns columns = fPrice.getColumns();
+		int i = columns.size() - 1;
+
+		if(price > columns.getValue(i, HIGH))
+			columns.setValue(i, HIGH, price);
+
+		if(price < columns.getValue(i, LOW))
+			columns.setValue(i, LOW, price);
+
+		columns.setValue(i, CLOSE, price);
+
+		if(null != fVolume)
+		{
+			PointColumns volume = fVolume.getColumns();
+			volume.setValue(volume.size() - 1, VOLUME, fBarVolume);
+		}
+
+		fIsLastUpdated = true;
+	}
+
+	private void notifyIndicators()
+	{
+		if(null != fIndicatorManager)
+		{
+			if(fFirstAppended >= 0)
+			{
+				fIndicatorManager.onPointsAppended(fPrice, fFirstAppended);
+
+				if(null != fVolume)
+					fIndicatorManager.onPointsAppended(fVolume, fFirstVolumeAppended);
+			}
+			else if(fIsLastUpdated)
+			{
+				fIndicatorManager.onLastPointUpdated(fPrice);
+
+				if(null != fVolume)
+					fIndicatorManager.onLastPointUpdated(fVolume);
+			}
+		}
+
+		fFirstAppended = -1;
+		fFirstVolumeAppended = -1;
+		fIsLastUpdated = false;
+	}
+
+	private long getIntervalStart(long timestamp)
+	{
+		long duration = (long)fBarSize;
+		long start = timestamp - timestamp % duration;
+
+		// floor for the times before the epoch
+		return start > timestamp?start - duration:start;
+	}
+}
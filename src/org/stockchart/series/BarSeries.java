@@ -16,11 +16,14 @@
 
 package org.stockchart.series;
 
+import org.json.JSONException;
+import org.json.JSONObject;
 import org.stockchart.core.Appearance.Gradient;
 import org.stockchart.core.SeriesPaintInfo;
 import org.stockchart.core.Theme;
 import org.stockchart.points.BarPoint;
 import org.stockchart.utils.ColorUtils;
+import org.stockchart.utils.FloatList;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -33,6 +36,25 @@ public class BarSeries extends AbstractSeries<BarPoint>
 	
 	private final RectF fBodyRect = new RectF();
 	
+	// lines of the decimated bars
+	private final FloatList fLines = new FloatList();
+	
+	private final double[] fBar = new double[2];
+	
+	private static final AggregationPyramid.Aggregation[] AGGREGATIONS = new AggregationPyramid.Aggregation[] 
+			{ 
+				AggregationPyramid.Aggregation.LAST, 
+				AggregationPyramid.Aggregation.LAST 
+			};
+	
+	private static final AggregationPyramid.Aggregation[] VOLUME_AGGREGATIONS = new AggregationPyramid.Aggregation[] 
+			{ 
+				AggregationPyramid.Aggregation.SUM, 
+				AggregationPyramid.Aggregation.SUM 
+			};
+	
+	private boolean fIsVolume = false;
+	
 	public BarSeries()
 	{	
 		getAppearance().setGradient(Gradient.LINEAR_HORIZONTAL);	
@@ -49,17 +71,97 @@ public class BarSeries extends AbstractSeries<BarPoint>
 	    * @param v1 first value of the bar
 	    * @param v2 second value of the bar
 	    * 
-	    * @return new instance of BarPoint
+	    * @return new instance of BarPoint bound to the index of the point, see {@link #getPoints()}.
+	    * Use <code>getColumns().add()</code> if the point is not needed.
 	    */
 	
 	public BarPoint addPoint(double v1,double v2)
 	{
-		BarPoint bp = new BarPoint(v1,v2);
-		this.getPoints().add(bp);
+		int i = getColumns().add(v1, v2);
+		
+		return getPoints().get(i);
+	}
+	
+	@Override
+	protected BarPoint createPoint()
+	{
+		return new BarPoint();
+	}
+	
+	@Override
+	public JSONObject toJSONObject() throws JSONException
+	{
+		JSONObject j = super.toJSONObject();
+		j.put("volume", fIsVolume);
+		
+		return j;
+	}
+	
+	@Override
+	public void fromJSONObject(JSONObject j) throws JSONException
+	{
+		super.fromJSONObject(j);
+		setVolume(j.has("volume")?j.getBoolean("volume"):false);
+	}
+	
+	/**
+	 * Whether the bars are volumes. Volumes of the bars aggregated when zoomed out are summed, 
+	 * other bars (i.e. MACD histogram) show the last bar of the aggregated period.
+	 */
+	public boolean isVolume()
+	{
+		return fIsVolume;
+	}
+	
+	public void setVolume(boolean value)
+	{
+		if(fIsVolume == value) return;
+		
+		fIsVolume = value;
+		resetPyramid();
+	}
+	
+	@Override
+	protected AggregationPyramid.Aggregation[] getAggregations()
+	{
+		return fIsVolume?VOLUME_AGGREGATIONS:AGGREGATIONS;
+	}
+	
+	@Override
+	protected boolean isDecimationSupported()
+	{
+		return true;
+	}
+	
+	@Override
+	protected void preDraw()
+	{
+		fLines.clear();
+	}
+	
+	/**
+	 * Aggregates bars of the pixel column into a single bar drawn as a line.
+	 */
+	@Override
+	protected void drawBucket(Canvas c, SeriesPaintInfo pinfo, float x, int fromIndex, int toIndex)
+	{
+		getPyramid().aggregate(fromIndex, toIndex, fBar);
 		
-		return bp;
+		float y1 = pinfo.getY(Math.max(fBar[0], fBar[1]));
+		float y2 = pinfo.getY(Math.min(fBar[0], fBar[1]));
+		
+		fLines.add(x, y1);
+		fLines.add(x, Math.max(y2, y1 + 1f));
 	}
 	
+	@Override
+	protected void postDraw(Canvas c)
+	{
+		if(fLines.isEmpty()) return;
+		
+		getAppearance().applyOutline(fPaint);
+		c.drawLines(fLines.getArray(), 0, fLines.size(), fPaint);
+	}
 	
 	@Override
 	protected void drawPoint(Canvas c, SeriesPaintInfo pinfo, float x1, float x2,BarPoint p) 
@@ -72,8 +174,7 @@ public class BarSeries extends AbstractSeries<BarPoint>
 			fBodyRect.set(x1, y1, x2, y2);		
 			fBodyRect.sort();
 			
-			getAppearance().applyFill(fPaint, fBodyRect);
-			c.drawRect(fBodyRect, fPaint);
+			getAppearance().fillRect(c, fPaint, fBodyRect);
 			
 			getAppearance().applyOutline(fPaint);
 			c.drawRect(fBodyRect, fPaint);
@@ -16,8 +16,6 @@
 
 package org.stockchart.series;
 
-import java.util.ArrayList;
-
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.stockchart.core.Appearance;
@@ -25,12 +23,13 @@ import org.stockchart.core.Appearance.Gradient;
 import org.stockchart.core.SeriesPaintInfo;
 import org.stockchart.core.Theme;
 import org.stockchart.points.LinePoint;
+import org.stockchart.utils.FloatList;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PointF;
+import android.graphics.Rect;
 import android.graphics.RectF;
 
 public class LinearSeries extends AbstractSeries<LinePoint>
@@ -51,10 +50,15 @@ public class LinearSeries extends AbstractSeries<LinePoint>
 	private final Path fLinePath = new Path();
 	private final Path fFillPath = new Path();
 	
-	private ArrayList<PointF> fPoints = new ArrayList<PointF>();
+	private final Rect fClipRect = new Rect();
+	
+	// x and y coordinates of the drawn points
+	private final FloatList fCoords = new FloatList();
 	
 	private final Appearance fPointAppearance = new Appearance();
 	
+	private final double[] fMaxMin = new double[2];
+	
 	public enum PointStyle
 	{
 		SQUARE,
@@ -160,12 +164,23 @@ public class LinearSeries extends AbstractSeries<LinePoint>
 		return fPointSizeInPercents;
 	}
 	
+	/**
+	 * Adds point to the end of collection
+	 * 
+	 * @return new instance of LinePoint bound to the index of the point, see {@link #getPoints()}.
+	 * Use <code>getColumns().add()</code> if the point is not needed.
+	 */
 	public LinePoint addPoint(double value)
 	{
-		LinePoint p = new LinePoint(value);
-		this.getPoints().add(p);
+		int i = getColumns().add(value);
 		
-		return p;
+		return getPoints().get(i);
+	}
+	
+	@Override
+	protected LinePoint createPoint()
+	{
+		return new LinePoint();
 	}
 	
 	@Override
@@ -176,18 +191,46 @@ public class LinearSeries extends AbstractSeries<LinePoint>
 		float x = (x1 + x2)/2f;
 		float y = pinfo.getY(p.getValue());
 		
-
-		if(fPoints.isEmpty())
+		addVertex(x, y);
+	}
+	
+	@Override
+	protected boolean isDecimationSupported()
+	{
+		return true;
+	}
+	
+	/**
+	 * M4 reduction: the first, the maximum, the minimum and the last values of the pixel column 
+	 * are enough to draw the same line at pixel resolution.
+	 */
+	@Override
+	protected void drawBucket(Canvas c, SeriesPaintInfo pinfo, float x, int fromIndex, int toIndex)
+	{
+		if(!getMaxMin(fromIndex, toIndex, fMaxMin)) return;
+		
+		addVertex(x, pinfo.getY(getValueAt(fromIndex, 0)));
+		
+		if(fromIndex == toIndex) return;
+		
+		addVertex(x, pinfo.getY(fMaxMin[0]));
+		addVertex(x, pinfo.getY(fMaxMin[1]));
+		addVertex(x, pinfo.getY(getValueAt(toIndex, 0)));
+	}
+	
+	private void addVertex(float x,float y)
+	{
+		if(fCoords.isEmpty())
 			fLinePath.moveTo(x, y);
 		else
 			fLinePath.lineTo(x, y);
 		
-		if(fPoints.isEmpty())
+		if(fCoords.isEmpty())
 			fFillPath.moveTo(x, y);
 		else
 			fFillPath.lineTo(x, y);
 		
-		this.fPoints.add(new PointF(x,y));
+		fCoords.add(x, y);
 		
 		if(y < minY)
 			minY = y;
@@ -201,20 +244,27 @@ public class LinearSeries extends AbstractSeries<LinePoint>
 		{
 			case SQUARE: 
 
-				getPointAppearance().applyFill(fPaint, fTempRectF);
-				c.drawRect(fTempRectF, fPaint);
+				getPointAppearance().fillRect(c, fPaint, fTempRectF);
 				getPointAppearance().applyOutline(fPaint);
 				c.drawRect(fTempRectF, fPaint);
 			break;
 			case CIRCLE:
-				getPointAppearance().applyFill(fPaint, fTempRectF);
-				c.drawCircle(x, y, r, fPaint);
+				getPointAppearance().fillCircle(c, fPaint, x, y, r);
 				getPointAppearance().applyOutline(fPaint);
 				c.drawCircle(x, y, r, fPaint);
 				break;
 		}		
 	}
 	
+	/**
+	 * The gradient of the fill is stretched over all drawn points
+	 */
+	@Override
+	public boolean isPartialDrawingSupported()
+	{
+		return Gradient.NONE == getAppearance().getGradient();
+	}
+	
 	@Override
 	protected void preDraw() 
 	{
@@ -223,37 +273,42 @@ public class LinearSeries extends AbstractSeries<LinePoint>
 		
 		fLinePath.reset();
 		fFillPath.reset();
-		fPoints.clear();
+		fCoords.clear();
 	}
 
 	@Override
 	protected void postDraw(Canvas c) 
 	{
-		if(fPoints.size() == 0) return;
+		if(fCoords.isEmpty()) return;
+		
+		c.getClipBounds(fClipRect);
+		int h = fClipRect.bottom;
 		
-		int h = c.getClipBounds().bottom;
+		float[] coords = fCoords.getArray();
+		int count = fCoords.size();
 		
-		PointF firstPoint = fPoints.get(0);
-		PointF lastPoint = fPoints.get(fPoints.size() - 1);
+		float firstX = coords[0];
+		float lastX = coords[count - 2];
 		
-		fFillPath.lineTo(lastPoint.x, h);
-		fFillPath.lineTo(firstPoint.x, h);
+		fFillPath.lineTo(lastX, h);
+		fFillPath.lineTo(firstX, h);
 		fFillPath.close();
 		
 		
-		this.fTempRectF.set(firstPoint.x, minY, lastPoint.x, h);
+		this.fTempRectF.set(firstX, minY, lastX, h);
 		this.getAppearance().applyFill(fPaint,fTempRectF);
 		c.drawPath(fFillPath, fPaint);
 		
 		this.getAppearance().applyOutline(fPaint);
 		c.drawPath(fLinePath,fPaint);
 		
-		if(fPointsVisible)
+		if(fPointsVisible && !isDecimating())
 		{
-			for(PointF p:fPoints)
+			float r = fDistanceBetweenPoints*fPointSizeInPercents*0.5f;
+			
+			for(int i=0;i<count;i+=2)
 			{
-				float r = fDistanceBetweenPoints*fPointSizeInPercents*0.5f;
-				drawPoint(c, p.x, p.y, r);	
+				drawPoint(c, coords[i], coords[i + 1], r);	
 			}
 			//drawPoint(c, prevX,prevY,r);
 		}
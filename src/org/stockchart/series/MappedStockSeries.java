@@ -0,0 +1,181 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.series;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.stockchart.points.MappedPointColumns;
+import org.stockchart.points.PointColumns;
+
+/**
+ * Stock series reading its points from the memory-mapped file (see {@link MappedPointColumns}),
+ * so the history of any length opens instantly and only the pages of the visible points are loaded.
+ * New bars are appended to the tail of the file as usual, i.e. with <code>addPoint()</code>.
+ * <p>
+ * Maximum and minimum of the visible points are found by scanning them while the visible range
+ * is small compared to the series, the index covering the whole file is built only for wide ranges.
+ * The aggregation pyramid used when zoomed out keeps only its coarse levels.
+ * <p>
+ * Only the OHLC bars are mapped. There are no mapped bar (volume) or linear series, 
+ * the volume of the history stays in the memory, e.g. in <code>BarSeries</code>.
+ */
+public class MappedStockSeries extends StockSeries 
+{
+	// ranges shorter than 1/SCAN_RATIO of the series are scanned directly
+	private static final int SCAN_RATIO = 8;
+	
+	// the pyramid keeps about 3 MB on the heap, its finer levels are aggregated from the file
+	private static final int MAX_PYRAMID_ENTRIES = 1 << 16;
+	
+	private File fFile = null;
+	private boolean fIsReadOnly = false;
+	
+	public MappedStockSeries()
+	{
+	}
+	
+	public MappedStockSeries(File file,boolean readOnly) throws IOException
+	{
+		open(file, readOnly);
+	}
+	
+	@Override
+	protected PointColumns createColumns(int valuesCount)
+	{
+		return new MappedPointColumns(valuesCount);
+	}
+	
+	public MappedPointColumns getMappedColumns()
+	{
+		return (MappedPointColumns)getColumns();
+	}
+	
+	/**
+	 * Opens the file, the file is created if it doesn't exist and isn't opened read-only
+	 */
+	public void open(File file,boolean readOnly) throws IOException
+	{
+		getMappedColumns().open(file, readOnly);
+		
+		fFile = file;
+		fIsReadOnly = readOnly;
+	}
+	
+	public void close() throws IOException
+	{
+		getMappedColumns().close();
+		
+		fFile = null;
+	}
+	
+	/**
+	 * Writes appended and changed points to the disk
+	 */
+	public void flush()
+	{
+		getMappedColumns().flush();
+	}
+	
+	public File getFile()
+	{
+		return fFile;
+	}
+	
+	public boolean isReadOnly()
+	{
+		return fIsReadOnly;
+	}
+	
+	@Override
+	protected int getMaxPyramidEntries()
+	{
+		return MAX_PYRAMID_ENTRIES;
+	}
+	
+	@Override
+	public boolean getMaxMin(int startIndex,int endIndex,double[] result)
+	{
+		if((long)(endIndex - startIndex + 1)*SCAN_RATIO >= getPointCount())
+			return super.getMaxMin(startIndex, endIndex, result);
+		
+		result[0] = Double.NEGATIVE_INFINITY;
+		result[1] = Double.POSITIVE_INFINITY;
+		
+		for(int i=startIndex;i<=endIndex;i++)
+		{
+			double max = getMaxValueAt(i);
+			double min = getMinValueAt(i);
+			
+			if(max > result[0])
+				result[0] = max;
+			
+			if(min < result[1])
+				result[1] = min;
+		}
+		
+		return result[0] != Double.NEGATIVE_INFINITY;
+	}
+	
+	/**
+	 * Creates in-memory <code>StockSeries</code>, so snapshots of the mapped series
+	 * can be used by background calculations.
+	 */
+	@Override
+	public AbstractSeries<?> createEmptyCopy()
+	{
+		StockSeries copy = new StockSeries();
+		copy.setIndexOffset(getIndexOffset());
+		
+		return copy;
+	}
+	
+	@Override
+	public JSONObject toJSONObject() throws JSONException
+	{
+		JSONObject j = super.toJSONObject();
+		
+		if(null != fFile)
+		{
+			j.put("file", fFile.getPath());
+			j.put("readOnly", fIsReadOnly);
+		}
+		
+		return j;
+	}
+	
+	@Override
+	public void fromJSONObject(JSONObject j) throws JSONException
+	{
+		super.fromJSONObject(j);
+		
+		if(j.has("file"))
+		{
+			File file = new File(j.getString("file"));
+			
+			try
+			{
+				open(file, j.getBoolean("readOnly"));
+			}
+			catch(IOException e)
+			{
+				throw new JSONException("Can't open "+file.getPath()+": "+e.getMessage());
+			}
+		}
+	}
+}
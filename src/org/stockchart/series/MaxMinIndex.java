@@ -0,0 +1,243 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.series;
+
+/**
+ * Range maximum/minimum index over the points of the series.
+ * <p>
+ * Points are grouped into blocks of <code>BLOCK_SIZE</code>, every block is a leaf
+ * of the segment tree holding the maximum and minimum of the block.
+ * Queries scan at most two partial blocks and walk the tree for the rest,
+ * so they take O(log n) time. The index is synchronized lazily on the next query,
+ * only the blocks touched since the previous query are recalculated.
+ * <p>
+ * Indicators calculated in parallel query the index of the same source, 
+ * so the methods are synchronized.
+ */
+class MaxMinIndex
+{
+	private static final int BLOCK_SHIFT = 4;
+	private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+
+	private final SeriesBase fSeries;
+
+	private double[] fMax = new double[2];
+	private double[] fMin = new double[2];
+
+	private int fLeafCapacity = 1;
+	private int fCount = 0;
+
+	private int fDirtyFrom = Integer.MAX_VALUE;
+	private int fDirtyTo = 0;
+
+	MaxMinIndex(SeriesBase series)
+	{
+		fSeries = series;
+
+		fMax[0] = fMax[1] = Double.NEGATIVE_INFINITY;
+		fMin[0] = fMin[1] = Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * Marks points from <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive, as changed.
+	 */
+	synchronized void invalidate(int fromIndex,int toIndex)
+	{
+		if(fromIndex < fDirtyFrom)
+			fDirtyFrom = fromIndex;
+
+		if(toIndex > fDirtyTo)
+			fDirtyTo = toIndex;
+	}
+
+	/**
+	 * Gets maximum and minimum of the points from <code>fromIndex</code> to <code>toIndex</code>, both inclusive.
+	 *
+	 * @param result array of two elements receiving maximum and minimum values
+	 * @return <code>false</code> if there are no values in the range
+	 */
+	synchronized boolean getMaxMin(int fromIndex,int toIndex,double[] result)
+	{
+		sync();
+
+		result[0] = Double.NEGATIVE_INFINITY;
+		result[1] = Double.POSITIVE_INFINITY;
+
+		int fromBlock = fromIndex >> BLOCK_SHIFT;
+		int toBlock = toIndex >> BLOCK_SHIFT;
+
+		if(fromBlock == toBlock)
+		{
+			scan(fromIndex, toIndex + 1, result);
+		}
+		else
+		{
+			scan(fromIndex, (fromBlock + 1) << BLOCK_SHIFT, result);
+			scan(toBlock << BLOCK_SHIFT, toIndex + 1, result);
+
+			int l = fromBlock + 1 + fLeafCapacity;
+			int r = toBlock + fLeafCapacity;
+
+			while(l < r)
+			{
+				if(0 != (l & 1))
+				{
+					accumulate(l, result);
+					l++;
+				}
+
+				if(0 != (r & 1))
+				{
+					r--;
+					accumulate(r, result);
+				}
+
+				l >>= 1;
+				r >>= 1;
+			}
+		}
+
+		return result[0] != Double.NEGATIVE_INFINITY;
+	}
+
+	private void accumulate(int node,double[] result)
+	{
+		if(fMax[node] > result[0])
+			result[0] = fMax[node];
+
+		if(fMin[node] < result[1])
+			result[1] = fMin[node];
+	}
+
+	private void scan(int fromIndex,int toIndex,double[] result)
+	{
+		for(int i=fromIndex;i<toIndex;i++)
+		{
+			double max = fSeries.getMaxValueAt(i);
+			double min = fSeries.getMinValueAt(i);
+
+			if(max > result[0])
+				result[0] = max;
+
+			if(min < result[1])
+				result[1] = min;
+		}
+	}
+
+	private void sync()
+	{
+		int count = fSeries.getPointCount();
+
+		if(count > fCount)
+			invalidate(fCount, count);
+		else if(count < fCount)
+			invalidate(count, fCount);
+
+		if(fDirtyFrom >= fDirtyTo) return;
+
+		int oldBlocks = getBlocksCount(fCount);
+		int blocks = getBlocksCount(count);
+
+		fCount = count;
+
+		if(blocks > fLeafCapacity)
+		{
+			grow(blocks);
+
+			fDirtyFrom = 0;
+			fDirtyTo = count;
+		}
+
+		int fromBlock = fDirtyFrom >> BLOCK_SHIFT;
+		int toBlock = Math.max(blocks, oldBlocks);
+
+		if(fDirtyTo < count)
+			toBlock = getBlocksCount(fDirtyTo);
+
+		for(int b=fromBlock;b<toBlock;b++)
+		{
+			int node = b + fLeafCapacity;
+
+			if(b < blocks)
+			{
+				int from = b << BLOCK_SHIFT;
+				int to = Math.min(from + BLOCK_SIZE, count);
+
+				double max = Double.NEGATIVE_INFINITY;
+				double min = Double.POSITIVE_INFINITY;
+
+				for(int i=from;i<to;i++)
+				{
+					double v = fSeries.getMaxValueAt(i);
+					if(v > max) max = v;
+
+					v = fSeries.getMinValueAt(i);
+					if(v < min) min = v;
+				}
+
+				fMax[node] = max;
+				fMin[node] = min;
+			}
+			else
+			{
+				fMax[node] = Double.NEGATIVE_INFINITY;
+				fMin[node] = Double.POSITIVE_INFINITY;
+			}
+		}
+
+		// update parents of the changed leaves
+		int l = (fromBlock + fLeafCapacity) >> 1;
+		int r = (Math.max(fromBlock, toBlock - 1) + fLeafCapacity) >> 1;
+
+		while(l >= 1)
+		{
+			for(int p=l;p<=r;p++)
+			{
+				fMax[p] = Math.max(fMax[2*p], fMax[2*p + 1]);
+				fMin[p] = Math.min(fMin[2*p], fMin[2*p + 1]);
+			}
+
+			l >>= 1;
+			r >>= 1;
+		}
+
+		fDirtyFrom = Integer.MAX_VALUE;
+		fDirtyTo = 0;
+	}
+
+	private void grow(int blocks)
+	{
+		int capacity = fLeafCapacity;
+
+		while(capacity < blocks)
+			capacity <<= 1;
+
+		fLeafCapacity = capacity;
+		fMax = new double[2*capacity];
+		fMin = new double[2*capacity];
+
+		for(int i=0;i<fMax.length;i++)
+		{
+			fMax[i] = Double.NEGATIVE_INFINITY;
+			fMin[i] = Double.POSITIVE_INFINITY;
+		}
+	}
+
+	private static int getBlocksCount(int count)
+	{
+		return (count + BLOCK_SIZE - 1) >> BLOCK_SHIFT;
+	}
+}
@@ -15,18 +15,17 @@
  */
 package org.stockchart.series;
 
-import java.util.ArrayList;
-
 import org.stockchart.core.SeriesPaintInfo;
 import org.stockchart.core.Theme;
 import org.stockchart.core.Appearance.Gradient;
 import org.stockchart.points.BarPoint;
+import org.stockchart.points.PointColumns;
+import org.stockchart.utils.FloatList;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.Path;
-import android.graphics.PointF;
 import android.graphics.RectF;
 
 
@@ -46,7 +45,12 @@ public class RangeSeries extends AbstractSeries<BarPoint>
 	
 	private final Paint fPaint = new Paint();
 	
-	private ArrayList<PointF> fPoints = new ArrayList<PointF>();
+	// x and second y coordinates of the drawn points, the lower edge is closed backwards
+	private final FloatList fCoords = new FloatList();
+	
+	// first, maximum, minimum and last values of the pixel column for both lines
+	private final double[] fBucket0 = new double[4];
+	private final double[] fBucket1 = new double[4];
 	
 	public RangeSeries()
 	{
@@ -59,13 +63,34 @@ public class RangeSeries extends AbstractSeries<BarPoint>
 		Theme.fillAppearanceFromCurrentTheme(RangeSeries.class, getAppearance());
 	}
 	
+	/**
+	 * Adds point to the end of collection
+	 * 
+	 * @return new instance of BarPoint bound to the index of the point, see {@link #getPoints()}.
+	 * Use <code>getColumns().add()</code> if the point is not needed.
+	 */
 	public BarPoint addPoint(double v1,double v2)
 	{
-		BarPoint bp = new BarPoint(v1,v2);
-		this.getPoints().add(bp);
+		int i = getColumns().add(v1, v2);
 		
-		return bp;
+		return getPoints().get(i);
 	}
+	
+	@Override
+	protected BarPoint createPoint()
+	{
+		return new BarPoint();
+	}
+	
+	/**
+	 * The gradient of the fill is stretched over all drawn points
+	 */
+	@Override
+	public boolean isPartialDrawingSupported()
+	{
+		return Gradient.NONE == getAppearance().getGradient();
+	}
+	
 	@Override
 	protected void preDraw() 
 	{
@@ -74,7 +99,7 @@ public class RangeSeries extends AbstractSeries<BarPoint>
 		fMinX = Float.MAX_VALUE;
 		fMaxX = Float.MIN_VALUE;
 		
-		fPoints.clear();
+		fCoords.clear();
 		fResultPath.reset();
 		fPath1.reset();
 		fPath2.reset();
@@ -87,21 +112,69 @@ public class RangeSeries extends AbstractSeries<BarPoint>
 		float y0 = pinfo.getY(p.getValueAt(0));
 		float y1 = pinfo.getY(p.getValueAt(1));
 		
+		addVertex(x, y0, y1);
+	}
+	
+	@Override
+	protected boolean isDecimationSupported()
+	{
+		return true;
+	}
+	
+	/**
+	 * M4 reduction applied to both lines of the range.
+	 */
+	@Override
+	protected void drawBucket(Canvas c, SeriesPaintInfo pinfo, float x, int fromIndex, int toIndex)
+	{
+		getBucket(0, fromIndex, toIndex, fBucket0);
+		getBucket(1, fromIndex, toIndex, fBucket1);
+		
+		int count = (fromIndex == toIndex)?1:4;
+		
+		for(int i=0;i<count;i++)
+			addVertex(x, pinfo.getY(fBucket0[i]), pinfo.getY(fBucket1[i]));
+	}
+	
+	private void getBucket(int valueIndex,int fromIndex,int toIndex,double[] bucket)
+	{
+		PointColumns columns = getColumns();
+		
+		double first = columns.getValue(fromIndex, valueIndex);
+		double max = first;
+		double min = first;
+		
+		for(int i=fromIndex + 1;i<=toIndex;i++)
+		{
+			double v = columns.getValue(i, valueIndex);
+			
+			if(v > max) max = v;
+			if(v < min) min = v;
+		}
+		
+		bucket[0] = first;
+		bucket[1] = max;
+		bucket[2] = min;
+		bucket[3] = columns.getValue(toIndex, valueIndex);
+	}
+	
+	private void addVertex(float x,float y0,float y1)
+	{
 		float minY = Math.min(y0, y1);
 		float maxY = Math.max(y0, y1);
 		
-		if(fPoints.isEmpty())
+		if(fCoords.isEmpty())
 			fPath1.moveTo(x, y0);
 		else
 			fPath1.lineTo(x, y0);
 		
 	
-		if(fPoints.isEmpty())
+		if(fCoords.isEmpty())
 			fPath2.moveTo(x, y1);
 		else
 			fPath2.lineTo(x, y1);
 
-		fPoints.add(new PointF(x,y1));
+		fCoords.add(x, y1);
 		
 		if(minY < fMinY)
 			fMinY = minY;
@@ -119,14 +192,15 @@ public class RangeSeries extends AbstractSeries<BarPoint>
 	@Override
 	protected void postDraw(Canvas c) 
 	{
-		if(fPoints.isEmpty()) return;
+		if(fCoords.isEmpty()) return;
 		
 		fResultPath.addPath(fPath1);
 		
-		for(int i = fPoints.size() - 1;i>=0;i--)
+		float[] coords = fCoords.getArray();
+		
+		for(int i = fCoords.size() - 2;i>=0;i-=2)
 		{
-			PointF p = fPoints.get(i);
-			fResultPath.lineTo(p.x,p.y);
+			fResultPath.lineTo(coords[i],coords[i + 1]);
 		}
 		
 		fResultPath.close();
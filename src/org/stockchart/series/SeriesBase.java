@@ -15,11 +15,16 @@
  */
 package org.stockchart.series;
 
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.stockchart.core.Axis;
+import org.stockchart.core.PaintInfo;
 import org.stockchart.core.SeriesPaintInfo;
 import org.stockchart.points.AbstractPoint;
+import org.stockchart.points.PointColumns;
 
 import android.graphics.Canvas;
 
@@ -40,11 +45,16 @@ public abstract class SeriesBase
 	
 	private String fName; 
 	
-	private static int DEFAULT_NAME_ID = 0;
+	// series may be created by the indicators calculated in background
+	private static final AtomicInteger DEFAULT_NAME_ID = new AtomicInteger();
+	
+	private final MaxMinIndex fMaxMinIndex = new MaxMinIndex(this);
+	
+	private int fVersion = 0;
 	
 	public SeriesBase()
 	{		
-		fName = this.getClass().getSimpleName()+String.valueOf(++DEFAULT_NAME_ID);		
+		fName = this.getClass().getSimpleName()+String.valueOf(DEFAULT_NAME_ID.incrementAndGet());		
 	}
 	
 	public JSONObject toJSONObject() throws JSONException
@@ -71,6 +81,8 @@ public abstract class SeriesBase
 		fIsVisible = j.getBoolean("visible");
 		
 		fLastValue = j.has("lastValue")?j.getDouble("lastValue"):Double.NaN;
+		
+		fVersion++;
 	}
 	
 	public String getName()
@@ -91,17 +103,20 @@ public abstract class SeriesBase
 	public void setVisible(boolean value)
 	{
 		fIsVisible = value;
+		fVersion++;
 	}
 	
 		
 	public void setXAxisSide(Axis.Side side)
 	{
 		fXAxisSide = side;
+		fVersion++;
 	}
 	
 	public void setYAxisSide(Axis.Side side)
 	{
 		fYAxisSide = side;
+		fVersion++;
 	}
 		
 	public Axis.Side getXAxisSide()
@@ -115,51 +130,168 @@ public abstract class SeriesBase
 	}
 	
 	public abstract void draw(Canvas c,SeriesPaintInfo pinfo);
+	
+	/**
+	 * Whether drawing the series in a narrowed horizontal range of the same scale gives 
+	 * the same pixels as the corresponding part of the full drawing, so a scrolled drawing 
+	 * can be completed by drawing the exposed strip only.
+	 */
+	public boolean isPartialDrawingSupported()
+	{
+		return false;
+	}
+
 	public abstract int getPointCount();
 	public abstract AbstractPoint getPointAt(int i);
+	
+	/**
+	 * Gets the value of the point without creating the point object 
+	 * (if the series supports it)
+	 * 
+	 * @param i index of the point 
+	 * @param valueIndex index of point's value
+	 */
+	public double getValueAt(int i,int valueIndex)
+	{
+		return getPointAt(i).getValueAt(valueIndex);
+	}
+	
+	/**
+	 * Gets the array the series keeps the values in, the first {@link #getPointCount()} elements 
+	 * are the values of the points. The array is valid until the series is modified.
+	 * 
+	 * @param valueIndex index of point's value
+	 * @return the array or <code>null</code> if the series doesn't keep the values in an array
+	 */
+	public double[] getColumn(int valueIndex)
+	{
+		return null;
+	}
+	
+	/**
+	 * Copies values of the points from <code>fromIndex</code>, inclusive, to <code>toIndex</code>, exclusive,
+	 * into the array. Series keeping the values in columns copy them in bulk, 
+	 * so loops over the values don't call the series for every point.
+	 * 
+	 * @param valueIndex index of point's value
+	 * @param dst array receiving the values
+	 * @param dstPos index in the array the first value is written at
+	 */
+	public void copyColumn(int valueIndex,int fromIndex,int toIndex,double[] dst,int dstPos)
+	{
+		for(int i=fromIndex;i<toIndex;i++)
+			dst[dstPos++] = getValueAt(i, valueIndex);
+	}
+	
+	public double getMaxValueAt(int i)
+	{
+		return getPointAt(i).getMaxMin()[0];
+	}
+	
+	public double getMinValueAt(int i)
+	{
+		return getPointAt(i).getMaxMin()[1];
+	}
+	
+	public boolean isPointVisible(int i)
+	{
+		return getPointAt(i).isVisible();
+	}
+	
+	public Object getIDAt(int i)
+	{
+		return getPointAt(i).getID();
+	}
+	
+	/**
+	 * Gets the time of the point whose ID is a <code>Date</code>, 
+	 * <code>PointColumns.NO_TIME</code> if the point has no <code>Date</code> ID.
+	 */
+	public long getTimeAt(int i)
+	{
+		Object id = getIDAt(i);
+		
+		return id instanceof Date?((Date)id).getTime():PointColumns.NO_TIME;
+	}
+	
+	/**
+	 * Notifies the series that values of the points from <code>fromIndex</code>, inclusive, 
+	 * to <code>toIndex</code>, exclusive, have been changed, added or removed. 
+	 * Series which modify their points without notification are reindexed only when 
+	 * the number of points changes.
+	 */
+	protected void onPointsChanged(int fromIndex,int toIndex)
+	{
+		fMaxMinIndex.invalidate(fromIndex, toIndex);
+		fVersion++;
+	}
+	
+	/**
+	 * Gets the number of changes of the points and of the properties affecting 
+	 * the axes (visibility, axis sides, index offset). Unchanged version means 
+	 * the auto values calculated from the series are still valid.
+	 */
+	public int getVersion()
+	{
+		return fVersion;
+	}
+	
 	public double[] getMaxMinPrice(double viewMax,double viewMin)
 	{
 		if(!isVisibleOnScreen(viewMax,viewMin)) return null;
-
-		double max = Double.NaN;
-		double min = Double.NaN;
 		
-		int arrayIndex = convertToArrayIndexZeroBased(viewMin);
-							
-		for(int i=arrayIndex;i<getPointCount();i++)
-		{
-			AbstractPoint p = getPointAt(i);
-			
-			double[] maxMin = p.getMaxMin();
-						
-			max = (0 == Double.compare(max, Double.NaN))?maxMin[0]:Math.max(maxMin[0], max);
-			min = (0 == Double.compare(min, Double.NaN))?maxMin[1]:Math.min(maxMin[1], min);
-			
-			if(convertToScaleIndex(i) > viewMax)
-				break;
-		}
+		int startIndex = convertToArrayIndexZeroBased(viewMin);
+		
+		// the first point beyond viewMax is included as well
+		int endIndex = Math.min(getPointCount() - 1, findPosition(viewMax - fIndexOffset, false));
 		
-		return new double[] { max, min };	
+		double[] result = new double[2];
+		
+		if(!getMaxMin(startIndex, endIndex, result))
+			return new double[] { Double.NaN, Double.NaN };
+				
+		return result;	
+	}
+	
+	/**
+	 * Gets maximum and minimum of the points visible on the horizontal axis. 
+	 * Series drawing aggregated points when zoomed out return extremes of what is actually drawn.
+	 * 
+	 * @param x paint info of the horizontal axis
+	 */
+	public double[] getMaxMinPrice(PaintInfo x)
+	{
+		return getMaxMinPrice(x.Max, x.Min);
 	}
 	
 	public double[] getMaxMinPrice2(int startIndex,int endIndex)
 	{
-		double max = Double.MIN_VALUE;
-		double min = Double.MAX_VALUE;
+		double[] result = new double[2];
 		
-		for(int i=startIndex;i<=endIndex;i++)
+		if(startIndex <= endIndex && getMaxMin(startIndex, endIndex, result))
 		{
-			AbstractPoint p = getPointAt(i);
-			
-			double[] maxMin = p.getMaxMin();
-			if(maxMin[0] > max)
-				max = maxMin[0];
-			
-			if(maxMin[1] < min)
-				min = maxMin[1];
+			result[0] = Math.max(Double.MIN_VALUE, result[0]);
+			result[1] = Math.min(Double.MAX_VALUE, result[1]);
+		}
+		else
+		{
+			result[0] = Double.MIN_VALUE;
+			result[1] = Double.MAX_VALUE;
 		}
 		
-		return new double[] { max, min };
+		return result;
+	}
+	
+	/**
+	 * Gets maximum and minimum of the points from <code>startIndex</code> to <code>endIndex</code>, both inclusive,
+	 * without allocating the result. Takes O(log n) time, can be called from several threads.
+	 * 
+	 * @param result array of two elements receiving maximum and minimum values
+	 * @return <code>false</code> if there are no values in the range
+	 */
+	public boolean getMaxMin(int startIndex,int endIndex,double[] result)
+	{
+		return fMaxMinIndex.getMaxMin(startIndex, endIndex, result);
 	}
 	
 	public AbstractPoint getFirstPoint()
@@ -175,6 +307,7 @@ public abstract class SeriesBase
 	public void setIndexOffset(int offset)
 	{
 		fIndexOffset = offset;
+		fVersion++;
 	}
 	
 	public int getIndexOffset()
@@ -192,14 +325,72 @@ public abstract class SeriesBase
 		return index;
 	}
 	
+	/**
+	 * Gets the index of the point whose box (one unit wide) contains the scale value.
+	 * If the series has sparse positions, the value may fall into the gap, 
+	 * then the index of the next point or the number of points is returned.
+	 */
 	public int convertToArrayIndex(double value)
 	{
+		if(hasSparsePositions())
+			return findPosition(value - fIndexOffset - 0.5, false);
+		
 		return (int)Math.round(value) - fIndexOffset;
 	}
 	
 	public float convertToScaleIndex(int indexInArray)
 	{
-		return (float)(fIndexOffset + indexInArray);
+		return (float)getScalePosition(indexInArray);
+	}
+	
+	/**
+	 * Gets the value of the horizontal scale the point is placed at, 
+	 * in double precision unlike {@link #convertToScaleIndex(int)}
+	 */
+	public double getScalePosition(int indexInArray)
+	{
+		return fIndexOffset + getPositionAt(indexInArray);
+	}
+	
+	/**
+	 * Gets the position of the point without the index offset. 
+	 * Points are placed at their indexes unless the series has sparse positions.
+	 */
+	public double getPositionAt(int i)
+	{
+		return i;
+	}
+	
+	/**
+	 * Whether the points have explicit positions, i.e. there are gaps between them 
+	 * (see {@link org.stockchart.points.PointColumns#setPosition(int, double)})
+	 */
+	public boolean hasSparsePositions()
+	{
+		return false;
+	}
+	
+	/**
+	 * Gets the number of the changes of the positions except setting the position of the last point
+	 * (see {@link org.stockchart.points.PointColumns#getPositionsVersion()})
+	 */
+	public int getPositionsVersion()
+	{
+		return 0;
+	}
+	
+	/**
+	 * Gets the index of the first point placed after the given position 
+	 * (without the index offset), the number of points if there is no such point.
+	 * Series with sparse positions find it by binary search.
+	 * 
+	 * @param inclusive whether the point placed exactly at the position is included
+	 */
+	public int findPosition(double position,boolean inclusive)
+	{
+		double i = inclusive?Math.ceil(position):Math.floor(position) + 1.0;
+		
+		return (int)Math.max(0.0, Math.min(getPointCount(), i));
 	}
 	
 	public boolean hasPoints()
@@ -232,7 +423,7 @@ public abstract class SeriesBase
 	{
 		if(!isVisible() || !hasPoints()) return false;
 		
-		if(getFirstScaleIndex() > viewMax || getLastScaleIndex() < viewMin) return false;
+		if(getScalePosition(0) > viewMax || getScalePosition(getPointCount() - 1) < viewMin) return false;
 		
 		return true;	
 	}	
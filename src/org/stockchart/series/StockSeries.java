@@ -24,6 +24,7 @@ import org.stockchart.core.Theme;
 import org.stockchart.core.Appearance.Gradient;
 import org.stockchart.points.StockPoint;
 import org.stockchart.utils.ColorUtils;
+import org.stockchart.utils.FloatList;
 
 import android.graphics.Canvas;
 import android.graphics.Color;
@@ -45,6 +46,22 @@ public class StockSeries extends AbstractSeries<StockPoint>
 	private final Paint fPaint = new Paint();
 	
 	private final RectF fBodyRect = new RectF();
+	
+	// high-low lines of the decimated bars
+	private final FloatList fRiseLines = new FloatList();
+	private final FloatList fFallLines = new FloatList();
+	
+	private final double[] fBar = new double[4];
+	
+	private static final AggregationPyramid.Aggregation[] AGGREGATIONS = new AggregationPyramid.Aggregation[4];
+	
+	static
+	{
+		AGGREGATIONS[StockPoint.getValueIndex(StockPoint.PointValue.OPEN)] = AggregationPyramid.Aggregation.FIRST;
+		AGGREGATIONS[StockPoint.getValueIndex(StockPoint.PointValue.HIGH)] = AggregationPyramid.Aggregation.MAX;
+		AGGREGATIONS[StockPoint.getValueIndex(StockPoint.PointValue.LOW)] = AggregationPyramid.Aggregation.MIN;
+		AGGREGATIONS[StockPoint.getValueIndex(StockPoint.PointValue.CLOSE)] = AggregationPyramid.Aggregation.LAST;
+	}
 
 	public StockSeries()
 	{	
@@ -91,15 +108,32 @@ public class StockSeries extends AbstractSeries<StockPoint>
 	    * @param l low price of the bar
 	    * @param c close price of the bar
 	    * 
-	    * @return new instance of StockPoint
+	    * @return new instance of StockPoint bound to the index of the point, see {@link #getPoints()}.
+	    * Use <code>getColumns().add()</code> if the point is not needed.
 	    */
 	public StockPoint addPoint(double o, double h, double l, double c)
 	{
-		StockPoint sp = new StockPoint(o,h,l,c);
+		int i = getColumns().add(o, h, l, c);
 		
-		this.getPoints().add(sp);
-		
-		return sp;
+		return getPoints().get(i);
+	}
+	
+	@Override
+	protected StockPoint createPoint()
+	{
+		return new StockPoint();
+	}
+	
+	@Override
+	public double getMaxValueAt(int i)
+	{
+		return getColumns().getValue(i, StockPoint.getValueIndex(StockPoint.PointValue.HIGH));
+	}
+	
+	@Override
+	public double getMinValueAt(int i)
+	{
+		return getColumns().getValue(i, StockPoint.getValueIndex(StockPoint.PointValue.LOW));
 	}
 	
 	/** 
@@ -142,6 +176,60 @@ public class StockSeries extends AbstractSeries<StockPoint>
 		fFallAppearance.fromJSONObject(j.getJSONObject("fallAppearance"));
 	}
 	
+	@Override
+	protected AggregationPyramid.Aggregation[] getAggregations()
+	{
+		return AGGREGATIONS;
+	}
+	
+	@Override
+	protected boolean isDecimationSupported()
+	{
+		return true;
+	}
+	
+	@Override
+	protected void preDraw()
+	{
+		fRiseLines.clear();
+		fFallLines.clear();
+	}
+	
+	/**
+	 * Aggregates points of the pixel column into a single bar using the pyramid, 
+	 * the bar is drawn as a high-low line colored by its rise or fall.
+	 */
+	@Override
+	protected void drawBucket(Canvas c, SeriesPaintInfo pinfo, float x, int fromIndex, int toIndex)
+	{
+		getPyramid().aggregate(fromIndex, toIndex, fBar);
+		
+		double open = fBar[StockPoint.getValueIndex(StockPoint.PointValue.OPEN)];
+		double close = fBar[StockPoint.getValueIndex(StockPoint.PointValue.CLOSE)];
+		
+		float high = pinfo.getY(fBar[StockPoint.getValueIndex(StockPoint.PointValue.HIGH)]);
+		float low = pinfo.getY(fBar[StockPoint.getValueIndex(StockPoint.PointValue.LOW)]);
+		
+		FloatList lines = (close < open)?fFallLines:fRiseLines;
+		lines.add(x, high);
+		lines.add(x, Math.max(low, high + 1f));
+	}
+	
+	@Override
+	protected void postDraw(Canvas c)
+	{
+		drawLines(c, fRiseLines, getRiseAppearance());
+		drawLines(c, fFallLines, fFallAppearance);
+	}
+	
+	private void drawLines(Canvas c, FloatList lines, Appearance a)
+	{
+		if(lines.isEmpty()) return;
+		
+		a.applyOutline(fPaint);
+		c.drawLines(lines.getArray(), 0, lines.size(), fPaint);
+	}
+	
 	protected void drawPoint(Canvas c, SeriesPaintInfo pinfo, float x1,float x2, StockPoint p) 
 	{
 		this.fPaint.reset();
@@ -170,8 +258,7 @@ public class StockSeries extends AbstractSeries<StockPoint>
 			c.drawLine(midX, high, midX, low, fPaint);
 			
 			// body fill
-			a.applyFill(fPaint,fBodyRect);			
-			c.drawRect(fBodyRect, fPaint);
+			a.fillRect(c, fPaint, fBodyRect);
 	
 			// body outline			
 			a.applyOutline(fPaint);
@@ -0,0 +1,84 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.utils;
+
+import android.os.Debug;
+
+/**
+ * Test hook counting objects allocated by the calling thread while drawing series.
+ * <p>
+ * When enabled, <code>StockChartView</code> resets the counter at the start of every frame and
+ * the plot counts allocations made by <code>SeriesBase.draw</code>, so after a steady-state frame
+ * (nothing changed since the previous one) instrumentation tests can call {@link #assertNoAllocations()}.
+ * Counting relies on {@link Debug} allocation counters and slows drawing down, keep it disabled in production.
+ */
+public class AllocationCounter 
+{
+	private static boolean fIsEnabled = false;
+	private static int fCount = 0;
+	
+	public static void setEnabled(boolean value)
+	{
+		fIsEnabled = value;
+		fCount = 0;
+	}
+	
+	public static boolean isEnabled()
+	{
+		return fIsEnabled;
+	}
+	
+	public static void reset()
+	{
+		fCount = 0;
+	}
+	
+	public static void begin()
+	{
+		if(!fIsEnabled) return;
+		
+		Debug.resetThreadAllocCount();
+		Debug.startAllocCounting();
+	}
+	
+	public static void end()
+	{
+		if(!fIsEnabled) return;
+		
+		Debug.stopAllocCounting();
+		fCount += Debug.getThreadAllocCount();
+	}
+	
+	/**
+	 * Gets the number of objects allocated between <code>begin()</code> and <code>end()</code> calls since the last reset.
+	 */
+	public static int getCount()
+	{
+		return fCount;
+	}
+	
+	/**
+	 * @throws IllegalStateException if the counting is disabled or something has been allocated
+	 */
+	public static void assertNoAllocations()
+	{
+		if(!fIsEnabled)
+			throw new IllegalStateException("Allocation counting is disabled");
+		
+		if(0 != fCount)
+			throw new IllegalStateException(fCount+" objects allocated while drawing series");
+	}
+}
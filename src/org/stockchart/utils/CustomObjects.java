@@ -30,4 +30,10 @@ public class CustomObjects extends TreeMap<Integer, Object>
 	
 	public static final int CROSSHAIR = newID();
 	public static final int STICKER = newID();
+	
+	/**
+	 * Previous bitmap of the series layer, set while the layer is drawn 
+	 * if the plots may scroll their series instead of redrawing them
+	 */
+	public static final int PREVIOUS_SERIES = newID();
 }
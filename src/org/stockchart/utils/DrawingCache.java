@@ -19,13 +19,47 @@ import android.graphics.Bitmap;
 import android.graphics.Bitmap.Config;
 import android.graphics.Canvas;
 
-
+/**
+ * Bitmaps of the layers of the chart.
+ * <p>
+ * A layer is redrawn only when it has been invalidated, either explicitly or because
+ * the inputs it is drawn from (see {@link #addInput(double)}) differ from the last frame.
+ * The overlay layer is cheap and changes every frame, so it has no bitmap and is drawn
+ * directly onto the view. The background is drawn into the 16-bit bitmap if it is opaque 
+ * (see {@link #setOpaque(boolean)}), so the cache takes the memory of two full-screen 
+ * ARGB bitmaps at most, the second one is the back bitmap of the series.
+ *
+ * @author alexv
+ *
+ */
 public class DrawingCache 
 {
+	/**
+	 * Layers in the order they are composited
+	 */
+	public enum Layer
+	{
+		/**
+		 * Background of the view and areas, axes, legends, background of the plots and grid
+		 */
+		BACKGROUND,
+		SERIES,
+		/**
+		 * Lines, stickers, the crosshair, titles and borders of the plots
+		 */
+		OVERLAY;
+		
+		public boolean isCached()
+		{
+			return this != OVERLAY;
+		}
+	}
+	
 	public class Params
 	{
 		public Canvas canvas;
 		public Bitmap bitmap;
+		public Config config;
 		
 		public void recycle()
 		{
@@ -43,27 +77,173 @@ public class DrawingCache
 		
 	}
 	
-	private Params fParams = null;
+	private static final int LAYERS_COUNT = Layer.values().length;
 	
-	public Params getParams(Canvas c)
+	private final Params[] fParams = new Params[LAYERS_COUNT];
+	private final Params[] fBackParams = new Params[LAYERS_COUNT];
+	private final boolean[] fIsDirty = new boolean[LAYERS_COUNT];
+	
+	// inputs of the layers drawn last time
+	private final DrawingInputs[] fInputs = new DrawingInputs[LAYERS_COUNT];
+	
+	// inputs of the current frame
+	private final DrawingInputs fNewInputs = new DrawingInputs();
+	
+	private boolean fIsOpaque = false;
+	
+	public DrawingCache()
 	{
-		if(!verifyParams(fParams,c))
+		for(int i=0;i<LAYERS_COUNT;i++)
+			fInputs[i] = new DrawingInputs();
+	}
+	
+	/**
+	 * Gets the bitmap of the layer of the same size as the canvas. 
+	 * The layer is invalidated if the bitmap has been recreated.
+	 */
+	public Params getParams(Canvas c,Layer layer)
+	{
+		int i = layer.ordinal();
+		Config config = getConfig(layer);
+		
+		if(!verifyParams(fParams[i],c) || fParams[i].config != config)
 		{
-			recycle();
-			
-			fParams = new Params();
-			fParams.bitmap = Bitmap.createBitmap(c.getWidth(), c.getHeight(), Config.ARGB_8888);
-			fParams.canvas = new Canvas(fParams.bitmap);
+			fParams[i] = createParams(fParams[i], c, config);
+			fIsDirty[i] = true;
 		}
 		
-		return fParams;
+		return fParams[i];
+	}
+	
+	/**
+	 * Gets the second bitmap of the layer, so the layer can be drawn from its previous
+	 * content (a bitmap can't be drawn onto itself). Call {@link #swap(Layer)} 
+	 * when the drawing is finished.
+	 */
+	public Params getBackParams(Canvas c,Layer layer)
+	{
+		int i = layer.ordinal();
+		
+		Config config = getConfig(layer);
+		
+		if(!verifyParams(fBackParams[i],c) || fBackParams[i].config != config)
+			fBackParams[i] = createParams(fBackParams[i], c, config);
+		
+		return fBackParams[i];
+	}
+	
+	/**
+	 * Makes the back bitmap of the layer the front one
+	 */
+	public void swap(Layer layer)
+	{
+		int i = layer.ordinal();
+		
+		Params p = fParams[i];
+		fParams[i] = fBackParams[i];
+		fBackParams[i] = p;
+	}
+	
+	public boolean isOpaque()
+	{
+		return fIsOpaque;
+	}
+	
+	/**
+	 * Sets whether the background is opaque (i.e. the clear color has no alpha), 
+	 * then the background layer is kept in the RGB_565 bitmap taking half the memory.
+	 */
+	public void setOpaque(boolean value)
+	{
+		fIsOpaque = value;
+	}
+	
+	private Config getConfig(Layer layer)
+	{
+		return Layer.BACKGROUND == layer && fIsOpaque?Config.RGB_565:Config.ARGB_8888;
+	}
+	
+	private Params createParams(Params old,Canvas c,Config config)
+	{
+		if(null != old)
+			old.recycle();
+		
+		Params p = new Params();
+		p.bitmap = Bitmap.createBitmap(c.getWidth(), c.getHeight(), config);
+		p.canvas = new Canvas(p.bitmap);
+		p.config = config;
+		
+		return p;
+	}
+	
+	public boolean isDirty(Layer layer)
+	{
+		return !layer.isCached() || fIsDirty[layer.ordinal()];
+	}
+	
+	/**
+	 * Marks the layer as drawn
+	 */
+	public void validate(Layer layer)
+	{
+		fIsDirty[layer.ordinal()] = false;
+	}
+	
+	public void invalidate(Layer layer)
+	{
+		fIsDirty[layer.ordinal()] = true;
+	}
+	
+	/**
+	 * Invalidates all layers
+	 */
+	public void invalidate()
+	{
+		for(int i=0;i<LAYERS_COUNT;i++)
+			fIsDirty[i] = true;
+	}
+	
+	/**
+	 * Starts collecting inputs of the current frame
+	 */
+	public void beginInputs()
+	{
+		fNewInputs.clear();
+	}
+	
+	public void addInput(double v)
+	{
+		fNewInputs.add(v);
+	}
+	
+	/**
+	 * Invalidates the layer if the inputs added since {@link #beginInputs()} differ 
+	 * from the ones committed to the layer last time. The inputs are kept, 
+	 * so the layers drawn from more inputs can be committed after adding them.
+	 */
+	public void commitInputs(Layer layer)
+	{
+		int i = layer.ordinal();
+		
+		if(fInputs[i].update(fNewInputs))
+			fIsDirty[i] = true;
 	}
 	
 	public void recycle()
 	{
-		if(null != fParams)
+		for(int i=0;i<LAYERS_COUNT;i++)
 		{
-			fParams.recycle();
+			if(null != fParams[i])
+			{
+				fParams[i].recycle();
+				fParams[i] = null;
+			}
+			
+			if(null != fBackParams[i])
+			{
+				fBackParams[i].recycle();
+				fBackParams[i] = null;
+			}
 		}
 	}
 	
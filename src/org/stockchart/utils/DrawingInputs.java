@@ -0,0 +1,74 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.utils;
+
+/**
+ * Values a cached drawing depends on. The values of the current frame are compared
+ * with the ones the drawing was made from to find out whether it is still valid.
+ */
+public class DrawingInputs
+{
+	private double[] fValues = new double[16];
+	private int fCount = 0;
+
+	public void clear()
+	{
+		fCount = 0;
+	}
+
+	public void add(double v)
+	{
+		if(fCount == fValues.length)
+		{
+			double[] values = new double[fValues.length * 2];
+			System.arraycopy(fValues, 0, values, 0, fCount);
+			fValues = values;
+		}
+
+		fValues[fCount++] = v;
+	}
+
+	public int size()
+	{
+		return fCount;
+	}
+
+	/**
+	 * Replaces the values with the given ones.
+	 *
+	 * @return <code>true</code> if the values have been different
+	 */
+	public boolean update(DrawingInputs current)
+	{
+		if(fCount == current.fCount)
+		{
+			int i = 0;
+
+			while(i < fCount && 0 == Double.compare(fValues[i], current.fValues[i]))
+				i++;
+
+			if(i == fCount) return false;
+		}
+
+		if(fValues.length < current.fCount)
+			fValues = new double[current.fValues.length];
+
+		System.arraycopy(current.fValues, 0, fValues, 0, current.fCount);
+		fCount = current.fCount;
+
+		return true;
+	}
+}
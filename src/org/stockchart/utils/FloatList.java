@@ -0,0 +1,85 @@
+/**
+ * Copyright 18.10.2026 stock-chart contributors
+
+   Licensed under the Apache License, Version 2.0 (the "License");
+   you may not use this file except in compliance with the License.
+   You may obtain a copy of the License at
+
+     http://www.apache.org/licenses/LICENSE-2.0
+
+   Unless required by applicable law or agreed to in writing, software
+   distributed under the License is distributed on an "AS IS" BASIS,
+   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+   See the License for the specific language governing permissions and
+   limitations under the License.
+ */
+package org.stockchart.utils;
+
+/**
+ * Growable list of primitive floats. Used as a reusable coordinate buffer while drawing,
+ * <code>clear()</code> keeps the backing array so steady-state frames don't allocate.
+ */
+public class FloatList 
+{
+	private float[] fValues;
+	private int fSize = 0;
+	
+	public FloatList()
+	{
+		this(64);
+	}
+	
+	public FloatList(int capacity)
+	{
+		fValues = new float[capacity];
+	}
+	
+	public void add(float v)
+	{
+		if(fSize == fValues.length)
+		{
+			float[] values = new float[fValues.length + (fValues.length >> 1) + 1];
+			System.arraycopy(fValues, 0, values, 0, fSize);
+			fValues = values;
+		}
+		
+		fValues[fSize++] = v;
+	}
+	
+	public void add(float v1,float v2)
+	{
+		add(v1);
+		add(v2);
+	}
+	
+	public float get(int i)
+	{
+		if(i >= fSize || i < 0)
+			throw new IndexOutOfBoundsException("Index: "+i+", Size: "+fSize);
+		
+		return fValues[i];
+	}
+	
+	public int size()
+	{
+		return fSize;
+	}
+	
+	public boolean isEmpty()
+	{
+		return 0 == fSize;
+	}
+	
+	public void clear()
+	{
+		fSize = 0;
+	}
+	
+	/**
+	 * Gets the backing array, only first <code>size()</code> elements are meaningful.
+	 */
+	public float[] getArray()
+	{
+		return fValues;
+	}
+}
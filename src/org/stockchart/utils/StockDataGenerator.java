@@ -1,6 +1,7 @@
 package org.stockchart.utils;
 
 import java.util.Date;
+import java.util.Random;
 
 public class StockDataGenerator 
 {
@@ -9,6 +10,8 @@ public class StockDataGenerator
 	private double fLastPrice = Double.NaN;
 	private double fMaxVolume = 100000.0;
 	
+	private final Random fRandom;
+	
 	public class Point 
 	{
 		public Date dt;
@@ -17,13 +20,28 @@ public class StockDataGenerator
 	
 	public StockDataGenerator()
 	{
+		fRandom = new Random();
 	}
 	
 	public StockDataGenerator(double volatility,double startPrice,double maxVolume)
+	{
+		this(volatility, startPrice, maxVolume, new Random());
+	}
+	
+	/**
+	 * Creates generator producing the same points for the same seed, i.e. for benchmarks
+	 */
+	public StockDataGenerator(double volatility,double startPrice,double maxVolume,long seed)
+	{
+		this(volatility, startPrice, maxVolume, new Random(seed));
+	}
+	
+	private StockDataGenerator(double volatility,double startPrice,double maxVolume,Random random)
 	{
 		fVolatility = volatility;
 		fStartPrice = startPrice;
 		fMaxVolume = maxVolume;
+		fRandom = random;
 	}
 	
 	public double getVolatility()
@@ -42,7 +60,7 @@ public class StockDataGenerator
 		// taken from http://stackoverflow.com/questions/8597731/are-there-known-techniques-to-generate-realistic-looking-fake-stock-data
 		double old_price = Double.isNaN(fLastPrice)?fStartPrice:fLastPrice;
 		
-		double rnd = Math.random();
+		double rnd = fRandom.nextDouble();
 		double change_percent = 2.0*fVolatility*rnd;
 		if(change_percent > fVolatility)
 			change_percent-= (2*fVolatility);
@@ -54,16 +72,16 @@ public class StockDataGenerator
 		// open
 		double open = old_price;
 		// high
-		double high = Math.max(open,fLastPrice) + Math.abs(change_amount)*Math.random()*0.5;
+		double high = Math.max(open,fLastPrice) + Math.abs(change_amount)*fRandom.nextDouble()*0.5;
 		// low
-		double low = Math.min(open,fLastPrice) - Math.abs(change_amount)*Math.random()*0.5;
+		double low = Math.min(open,fLastPrice) - Math.abs(change_amount)*fRandom.nextDouble()*0.5;
 		
 		Point p = new Point();
 		p.o = open;
 		p.h = high;
 		p.l = low;
 		p.c = fLastPrice;
-		p.v = Math.random()*fMaxVolume;
+		p.v = fRandom.nextDouble()*fMaxVolume;
 		
 		return  p;
 	}